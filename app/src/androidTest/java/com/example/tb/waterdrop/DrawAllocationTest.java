@@ -0,0 +1,172 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 稳定状态下每一帧的触摸和绘制都不能分配内存
+ */
+@RunWith(AndroidJUnit4.class)
+public class DrawAllocationTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 800;
+    private static final int WARM_UP_FRAMES = 30;
+    private static final int FRAMES = 120;
+    private static final long FRAME_NANOS = 16666667L;
+    
+    private interface Frame {
+        void run(int frame);
+    }
+    
+    private Context mContext;
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+    private MotionEvent mDown;
+    private MotionEvent mMove;
+    
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mBitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mBitmap);
+        long now = SystemClock.uptimeMillis();
+        mDown = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 100, HEIGHT / 2, 0);
+        mMove = MotionEvent.obtain(now, now, MotionEvent.ACTION_MOVE, 100, HEIGHT / 2, 0);
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        mDown.recycle();
+        mMove.recycle();
+        mBitmap.recycle();
+    }
+    
+    @Test
+    public void waterAnimFrameDoesNotAllocate() throws Exception {
+        final WaterAnim view = new WaterAnim(mContext);
+        assertNoAllocation(view, view.getFrameClock(), view.getShape(), new Frame() {
+            @Override
+            public void run(int frame) {
+                view.setDeltaDistance(0, (frame % 90) / 100f);
+            }
+        });
+    }
+    
+    @Test
+    public void waterTouchFrameDoesNotAllocate() throws Exception {
+        final WaterTouch view = new WaterTouch(mContext);
+        assertNoAllocation(view, view.getFrameClock(), view.getShape(), new Frame() {
+            @Override
+            public void run(int frame) {
+                drag(view, frame);
+            }
+        });
+    }
+    
+    @Test
+    public void quadToFrameDoesNotAllocate() throws Exception {
+        final QuadTo view = new QuadTo(mContext);
+        assertNoAllocation(view, null, null, new Frame() {
+            @Override
+            public void run(int frame) {
+                drag(view, frame);
+            }
+        });
+    }
+    
+    @Test
+    public void cubicToFrameDoesNotAllocate() throws Exception {
+        final CubicTo view = new CubicTo(mContext);
+        assertNoAllocation(view, null, null, new Frame() {
+            @Override
+            public void run(int frame) {
+                view.setMode(frame % 2 == 0);
+                drag(view, frame);
+            }
+        });
+    }
+    
+    private void drag(View view, int frame) {
+        if (frame == 0) {
+            view.dispatchTouchEvent(mDown);
+        }
+        mMove.setLocation(100 + (frame % 60) * 10, HEIGHT / 2 + (frame % 7) * 5);
+        view.dispatchTouchEvent(mMove);
+    }
+    
+    /**
+     * @param clock 形状在帧回调里更新的控件传入它的帧时钟，每帧手动执行一次；直接重绘的控件传null
+     * @param shape 帧回调更新的形状，用来确认每帧确实走了更新的路径
+     */
+    private void assertNoAllocation(final View view, final FrameClock clock, final float[] shape, final Frame frame) {
+        final int[] allocations = new int[1];
+        final int[] changedFrames = new int[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                view.layout(0, 0, WIDTH, HEIGHT);
+                float[] previous = shape == null ? null : new float[shape.length];
+                long frameTime = SystemClock.uptimeMillis() * 1000000L;
+                for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                    frame.run(i);
+                    frameTime += FRAME_NANOS;
+                    doFrame(clock, frameTime);
+                    view.draw(mCanvas);
+                }
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                for (int i = WARM_UP_FRAMES; i < WARM_UP_FRAMES + FRAMES; i++) {
+                    if (shape != null) {
+                        System.arraycopy(shape, 0, previous, 0, shape.length);
+                    }
+                    frame.run(i);
+                    frameTime += FRAME_NANOS;
+                    doFrame(clock, frameTime);
+                    view.draw(mCanvas);
+                    if (shape != null && !Arrays.equals(shape, previous)) {
+                        changedFrames[0]++;
+                    }
+                }
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+        assertEquals(view.getClass().getSimpleName() + " allocated during steady-state frames", 0, allocations[0]);
+        if (shape != null) {
+            //进度每帧都在变，只有循环回到起点的那一帧可能相同
+            assertTrue(view.getClass().getSimpleName() + " shape changed in only " + changedFrames[0] + " frames",
+                    changedFrames[0] >= FRAMES - FRAMES / 30);
+        }
+    }
+    
+    /**
+     * 主线程被runOnMainSync占着，Choreographer的回调不会执行，这里代替vsync执行一次帧回调。
+     * 执行完停掉时钟，移除已经排进Choreographer的回调，队列不会越积越长
+     */
+    private static void doFrame(FrameClock clock, long frameTimeNanos) {
+        if (clock == null || !clock.isRunning()) {
+            return;
+        }
+        clock.doFrame(frameTimeNanos);
+        clock.stop();
+    }
+}
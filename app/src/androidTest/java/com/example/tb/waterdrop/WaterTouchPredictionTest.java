@@ -0,0 +1,91 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 开启预测时，抬起的采样要把水滴修正回真实的位置
+ */
+@RunWith(AndroidJUnit4.class)
+public class WaterTouchPredictionTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 800;
+    private static final long FRAME_NANOS = 16666667L;
+    private static final int SAMPLE_MILLIS = 8;
+    private static final int STEP = 20;
+    private static final int MOVES = 15;
+    
+    @Test
+    public void liftSettlesOnLastRealSample() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        final WaterTouch view = new WaterTouch(context);
+        view.setPredictionEnabled(true);
+        final float[] predicted = new float[DropletGeometry.SIZE];
+        final float[] settled = new float[DropletGeometry.SIZE];
+        //默认半径200，按下的位置在圆心，整个形变需要移动4倍半径
+        final float radius = 200f;
+        final float downX = radius;
+        final float upX = downX + MOVES * STEP;
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                view.layout(0, 0, WIDTH, HEIGHT);
+                long down = SystemClock.uptimeMillis();
+                long frameTime = down * 1000000L;
+                dispatch(view, down, down, MotionEvent.ACTION_DOWN, downX);
+                //匀速拖动，预测器会把水滴画在手指前面
+                for (int i = 1; i <= MOVES; i++) {
+                    dispatch(view, down, down + i * SAMPLE_MILLIS, MotionEvent.ACTION_MOVE, downX + i * STEP);
+                    if (i % 2 == 0) {
+                        frameTime += FRAME_NANOS;
+                        doFrame(view.getFrameClock(), frameTime);
+                    }
+                }
+                frameTime += FRAME_NANOS;
+                doFrame(view.getFrameClock(), frameTime);
+                System.arraycopy(view.getShape(), 0, predicted, 0, predicted.length);
+                //在最后一个位置停住抬起
+                dispatch(view, down, down + (MOVES + 1) * SAMPLE_MILLIS, MotionEvent.ACTION_UP, upX);
+                frameTime += FRAME_NANOS;
+                doFrame(view.getFrameClock(), frameTime);
+                System.arraycopy(view.getShape(), 0, settled, 0, settled.length);
+            }
+        });
+        float[] expected = new DropletGeometry(radius, 3 * radius).shapeAt((upX - downX) / (4 * radius),
+                new float[DropletGeometry.SIZE]);
+        //拖动时确实画在了预测的位置，否则这个测试什么也没验证
+        assertTrue("prediction did not overshoot", predicted[2] > expected[2] + 1f);
+        assertArrayEquals(expected, settled, 1e-3f);
+    }
+    
+    private static void dispatch(View view, long downTime, long eventTime, int action, float x) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, HEIGHT / 2, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+    
+    /**
+     * 同{@link DrawAllocationTest}，主线程被runOnMainSync占着，这里代替vsync执行一次帧回调
+     */
+    private static void doFrame(FrameClock clock, long frameTimeNanos) {
+        if (!clock.isRunning()) {
+            return;
+        }
+        clock.doFrame(frameTimeNanos);
+        clock.stop();
+    }
+}
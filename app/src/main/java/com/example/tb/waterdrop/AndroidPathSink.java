@@ -0,0 +1,45 @@
+package com.example.tb.waterdrop;
+
+import android.graphics.Path;
+
+import com.example.tb.waterdrop.core.PathSink;
+
+/**
+ * 把几何内核输出的路径命令写进android.graphics.Path
+ */
+public class AndroidPathSink implements PathSink {
+    private final Path mPath;
+    
+    public AndroidPathSink(Path path) {
+        mPath = path;
+    }
+    
+    public Path getPath() {
+        return mPath;
+    }
+    
+    @Override
+    public void moveTo(float x, float y) {
+        mPath.moveTo(x, y);
+    }
+    
+    @Override
+    public void lineTo(float x, float y) {
+        mPath.lineTo(x, y);
+    }
+    
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        mPath.quadTo(x1, y1, x2, y2);
+    }
+    
+    @Override
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        mPath.cubicTo(x1, y1, x2, y2, x3, y3);
+    }
+    
+    @Override
+    public void close() {
+        mPath.close();
+    }
+}
@@ -18,6 +18,10 @@ import android.view.View;
  */
 public class CubicTo extends View{
     private Paint mPaint;
+    /**
+     * 贝塞尔曲线的路径，每帧rewind后复用
+     */
+    private final Path mPath = new Path();
     private int centerX, centerY;
     
     private PointF start, end, control1, control2;
@@ -106,11 +110,10 @@ public class CubicTo extends View{
         mPaint.setColor(Color.RED);
         mPaint.setStrokeWidth(8);
         
-        Path path = new Path();
+        mPath.rewind();
+        mPath.moveTo(start.x, start.y);
+        mPath.cubicTo(control1.x, control1.y, control2.x,control2.y, end.x, end.y);
         
-        path.moveTo(start.x, start.y);
-        path.cubicTo(control1.x, control1.y, control2.x,control2.y, end.x, end.y);
-        
-        canvas.drawPath(path, mPaint);
+        canvas.drawPath(mPath, mPaint);
     }
 }
@@ -0,0 +1,297 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.example.tb.waterdrop.core.PointGridIndex;
+import com.example.tb.waterdrop.core.SegmentedPath;
+
+/**
+ * 多段三阶贝塞尔曲线编辑器：按下时选中离手指最近的数据点或控制点，拖动它改变曲线
+ * <p>
+ * 相比CubicTo用单选框切换要移动的控制点，这里所有点都放在{@link PointGridIndex}里，
+ * 按下时只查手指附近的格子，拖动时只更新被拖的点，曲线有上千段时选点也不会变慢。
+ * 点按顺序排列：数据点、控制点、控制点、数据点……第i段曲线用第3i到第3i+3个点。
+ * <p>
+ * 曲线本身放在{@link SegmentedPath}里，拖动时只重新计算相邻的一两段。每{@link #CHUNK_SEGMENTS}段
+ * 缓存成一条Path，拖动只标记这一两块需要重建，onDraw只重建被标记的块，其余的块直接画缓存的Path；
+ * 硬件加速下局部重绘不起作用，整个控件每帧都会重画，但每帧的工作量只和块数成正比，不再和段数成正比。
+ */
+public class CurveEditor extends View {
+    /**
+     * 默认的曲线段数
+     */
+    private static final int DEFAULT_SEGMENTS = 8;
+    /**
+     * 拆分曲线的容差（像素），用于命中测试
+     */
+    private static final float TOLERANCE = 0.5f;
+    /**
+     * 重绘区域向外扩展的像素，覆盖点的半径和线宽
+     */
+    private static final int DIRTY_PADDING = 12;
+    /**
+     * 每条缓存的Path包含的段数
+     */
+    private static final int CHUNK_SEGMENTS = 32;
+    
+    private Paint mPaint;
+    /**
+     * 每块曲线缓存的Path，只在块里的点移动后重建
+     */
+    private Path[] mChunkPaths = new Path[0];
+    private AndroidPathSink[] mChunkSinks = new AndroidPathSink[0];
+    private boolean[] mChunkDirty = new boolean[0];
+    /**
+     * 每块的包围盒，left、top、right、bottom依次存放，重建时更新，用来跳过画布外的块
+     */
+    private float[] mChunkBounds = new float[0];
+    private int mChunkCount;
+    /**
+     * 选中的那一段单独画一遍
+     */
+    private final Path mActivePath = new Path();
+    private final AndroidPathSink mActivePathSink = new AndroidPathSink(mActivePath);
+    /**
+     * 所有点的坐标，x和y交替存放，drawPoints直接使用
+     */
+    private float[] mPoints = new float[0];
+    private int mPointCount;
+    private int mSegmentCount = DEFAULT_SEGMENTS;
+    
+    private PointGridIndex mIndex;
+    private final SegmentedPath mSegments = new SegmentedPath(TOLERANCE);
+    private final Rect mDirty = new Rect();
+    private final float[] mBounds = new float[4];
+    /**
+     * 按在曲线上而不是点上时选中的段，-1表示没有
+     */
+    private int mActiveSegment = -1;
+    /**
+     * 手指能选中点的最大距离
+     */
+    private float mTouchRadius;
+    /**
+     * 正在拖动的点，-1表示没有
+     */
+    private int mActivePoint = -1;
+    /**
+     * 按下时手指和点的偏差，拖动时保持不变，点不会一下跳到手指下面
+     */
+    private float mOffsetX, mOffsetY;
+    
+    public CurveEditor(Context context) {
+        this(context, null);
+    }
+    
+    public CurveEditor(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+    
+    public CurveEditor(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+    
+    private void init() {
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+        mTouchRadius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 24, getResources().getDisplayMetrics());
+        mIndex = new PointGridIndex(mTouchRadius);
+    }
+    
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutPoints(w, h);
+    }
+    
+    /**
+     * 设置曲线段数，所有点重新排成一条横穿控件的波浪线
+     */
+    public void setSegmentCount(int segmentCount) {
+        if (segmentCount < 1) {
+            throw new IllegalArgumentException("segmentCount must be >= 1");
+        }
+        mSegmentCount = segmentCount;
+        layoutPoints(getWidth(), getHeight());
+    }
+    
+    public int getSegmentCount() {
+        return mSegmentCount;
+    }
+    
+    private void layoutPoints(int w, int h) {
+        mPointCount = 3 * mSegmentCount + 1;
+        if (mPoints.length < 2 * mPointCount) {
+            mPoints = new float[2 * mPointCount];
+        }
+        mIndex.clear();
+        mActivePoint = -1;
+        float step = w / (float) (mPointCount - 1);
+        float amplitude = h / 4f;
+        for (int i = 0; i < mPointCount; i++) {
+            float x = i * step;
+            //数据点在中线上，两个控制点分别在上下，连起来是一条波浪线
+            int phase = i % 3;
+            float y = h / 2f + (phase == 0 ? 0 : (phase == 1 ? -amplitude : amplitude));
+            mPoints[2 * i] = x;
+            mPoints[2 * i + 1] = y;
+            mIndex.add(x, y);
+        }
+        mSegments.setPoints(mPoints, mPointCount);
+        mChunkCount = (mSegmentCount + CHUNK_SEGMENTS - 1) / CHUNK_SEGMENTS;
+        if (mChunkPaths.length < mChunkCount) {
+            mChunkPaths = new Path[mChunkCount];
+            mChunkSinks = new AndroidPathSink[mChunkCount];
+            mChunkDirty = new boolean[mChunkCount];
+            mChunkBounds = new float[4 * mChunkCount];
+            for (int c = 0; c < mChunkCount; c++) {
+                mChunkPaths[c] = new Path();
+                mChunkSinks[c] = new AndroidPathSink(mChunkPaths[c]);
+            }
+        }
+        for (int c = 0; c < mChunkCount; c++) {
+            mChunkDirty[c] = true;
+        }
+        mActiveSegment = -1;
+        invalidate();
+    }
+    
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                mActivePoint = mIndex.nearest(event.getX(), event.getY(), mTouchRadius);
+                if (mActivePoint < 0) {
+                    //没按在点上，再看是否按在曲线上
+                    mActiveSegment = mSegments.hitSegment(event.getX(), event.getY(), mTouchRadius);
+                    invalidate();
+                    return mActiveSegment >= 0;
+                }
+                mActiveSegment = -1;
+                mOffsetX = mPoints[2 * mActivePoint] - event.getX();
+                mOffsetY = mPoints[2 * mActivePoint + 1] - event.getY();
+                invalidate();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (mActivePoint >= 0) {
+                    movePoint(mActivePoint, event.getX() + mOffsetX, event.getY() + mOffsetY);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mActivePoint = -1;
+                mActiveSegment = -1;
+                invalidate();
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+    
+    private void movePoint(int id, float x, float y) {
+        //重绘受影响的几段移动前后覆盖的区域，包围盒已经包含了被拖动的点
+        mDirty.setEmpty();
+        unionSegmentBounds(id);
+        mPoints[2 * id] = x;
+        mPoints[2 * id + 1] = y;
+        mIndex.move(id, x, y);
+        mSegments.movePoint(id, x, y);
+        unionSegmentBounds(id);
+        mChunkDirty[mSegments.getFirstSegment(id) / CHUNK_SEGMENTS] = true;
+        mChunkDirty[mSegments.getLastSegment(id) / CHUNK_SEGMENTS] = true;
+        mDirty.inset(-DIRTY_PADDING, -DIRTY_PADDING);
+        invalidate(mDirty);
+    }
+    
+    private void unionSegmentBounds(int point) {
+        int last = mSegments.getLastSegment(point);
+        for (int s = mSegments.getFirstSegment(point); s <= last; s++) {
+            mSegments.getSegmentBounds(s, mBounds);
+            mDirty.union((int) Math.floor(mBounds[0]), (int) Math.floor(mBounds[1]),
+                    (int) Math.ceil(mBounds[2]), (int) Math.ceil(mBounds[3]));
+        }
+    }
+    
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        
+        //绘制贝塞尔曲线，只重建点移动过的块，跳过画布外的块
+        mPaint.setColor(Color.RED);
+        mPaint.setStrokeWidth(4);
+        mPaint.setStyle(Paint.Style.STROKE);
+        for (int c = 0; c < mChunkCount; c++) {
+            if (mChunkDirty[c]) {
+                rebuildChunk(c);
+            }
+            if (!isChunkRejected(canvas, c)) {
+                canvas.drawPath(mChunkPaths[c], mPaint);
+            }
+        }
+        if (mActiveSegment >= 0) {
+            mActivePath.rewind();
+            mSegments.buildPath(mActiveSegment, mActiveSegment + 1, mActivePathSink);
+            mPaint.setColor(Color.BLUE);
+            canvas.drawPath(mActivePath, mPaint);
+        }
+        
+        // 绘制数据点和控制点，每块画它的起点和控制点，最后一块再补上终点
+        mPaint.setColor(Color.GRAY);
+        mPaint.setStrokeWidth(12);
+        for (int c = 0; c < mChunkCount; c++) {
+            if (isChunkRejected(canvas, c)) {
+                continue;
+            }
+            int from = c * CHUNK_SEGMENTS;
+            int to = Math.min(from + CHUNK_SEGMENTS, mSegmentCount);
+            canvas.drawPoints(mPoints, 6 * from, 6 * (to - from) + (to == mSegmentCount ? 2 : 0), mPaint);
+        }
+        if (mActivePoint >= 0) {
+            mPaint.setColor(Color.BLUE);
+            mPaint.setStrokeWidth(20);
+            canvas.drawPoint(mPoints[2 * mActivePoint], mPoints[2 * mActivePoint + 1], mPaint);
+        }
+    }
+    
+    /**
+     * 重建一块的Path和包围盒
+     */
+    private void rebuildChunk(int chunk) {
+        int from = chunk * CHUNK_SEGMENTS;
+        int to = Math.min(from + CHUNK_SEGMENTS, mSegmentCount);
+        mChunkPaths[chunk].rewind();
+        mSegments.buildPath(from, to, mChunkSinks[chunk]);
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE, right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        for (int seg = from; seg < to; seg++) {
+            //段的包围盒包含了控制点
+            mSegments.getSegmentBounds(seg, mBounds);
+            left = Math.min(left, mBounds[0]);
+            top = Math.min(top, mBounds[1]);
+            right = Math.max(right, mBounds[2]);
+            bottom = Math.max(bottom, mBounds[3]);
+        }
+        mChunkBounds[4 * chunk] = left - DIRTY_PADDING;
+        mChunkBounds[4 * chunk + 1] = top - DIRTY_PADDING;
+        mChunkBounds[4 * chunk + 2] = right + DIRTY_PADDING;
+        mChunkBounds[4 * chunk + 3] = bottom + DIRTY_PADDING;
+        mChunkDirty[chunk] = false;
+    }
+    
+    private boolean isChunkRejected(Canvas canvas, int chunk) {
+        return canvas.quickReject(mChunkBounds[4 * chunk], mChunkBounds[4 * chunk + 1],
+                mChunkBounds[4 * chunk + 2], mChunkBounds[4 * chunk + 3], Canvas.EdgeType.AA);
+    }
+}
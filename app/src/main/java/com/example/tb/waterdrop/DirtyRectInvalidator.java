@@ -0,0 +1,138 @@
+package com.example.tb.waterdrop;
+
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.View;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+
+/**
+ * 只重绘水滴覆盖的区域：当前形状的包围盒加上抗锯齿的余量，再并上一帧的包围盒（擦掉旧的水滴）
+ * <p>
+ * 脏区只在软件绘制时生效。API 21起开启硬件加速后，invalidate(l, t, r, b)和invalidate()一样，
+ * 整个控件都会重新录制、重新绘制，统计的像素个数按整个控件计算。
+ */
+public class DirtyRectInvalidator {
+    /**
+     * 抗锯齿边缘向外扩展的像素
+     */
+    private static final int ANTI_ALIAS_PADDING = 2;
+    
+    private final View mView;
+    private final float[] mBounds = new float[4];
+    /**
+     * 上一帧水滴的区域
+     */
+    private final Rect mPrevious = new Rect();
+    /**
+     * 当前帧水滴的区域
+     */
+    private final Rect mCurrent = new Rect();
+    /**
+     * 本次需要重绘的区域
+     */
+    private final Rect mDirty = new Rect();
+    private boolean mHasPrevious;
+    
+    /**
+     * 最近一次重绘的像素个数
+     */
+    private long mLastPixels;
+    /**
+     * 累计重绘的像素个数
+     */
+    private long mTotalPixels;
+    /**
+     * 累计重绘的次数
+     */
+    private int mInvalidateCount;
+    
+    public DirtyRectInvalidator(View view) {
+        mView = view;
+    }
+    
+    /**
+     * 根据形状重绘，必须在主线程调用
+     *
+     * @param shape {@link DropletGeometry#shapeAt}的输出
+     * @param dx    绘制时画布在x方向的平移
+     * @param dy    绘制时画布在y方向的平移
+     */
+    public void invalidate(float[] shape, float dx, float dy) {
+        computeRect(shape, dx, dy, mCurrent);
+        mDirty.set(mCurrent);
+        if (mHasPrevious) {
+            mDirty.union(mPrevious);
+        }
+        mPrevious.set(mCurrent);
+        mHasPrevious = true;
+        if (!mDirty.intersect(0, 0, mView.getWidth(), mView.getHeight())) {
+            mLastPixels = 0;
+            return;
+        }
+        record(ignoresDirtyRect() ? viewPixels() : mDirty.width() * (long) mDirty.height());
+        mView.invalidate(mDirty.left, mDirty.top, mDirty.right, mDirty.bottom);
+    }
+    
+    /**
+     * 整个控件重绘，比如尺寸或参数变化时，参数同{@link #invalidate(float[], float, float)}
+     */
+    public void invalidateAll(float[] shape, float dx, float dy) {
+        computeRect(shape, dx, dy, mPrevious);
+        mHasPrevious = true;
+        record(viewPixels());
+        mView.invalidate();
+    }
+    
+    /**
+     * API 21起硬件加速的控件不按脏区重绘，invalidate(l, t, r, b)也会重绘整个控件
+     */
+    private boolean ignoresDirtyRect() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && mView.isHardwareAccelerated();
+    }
+    
+    private long viewPixels() {
+        return mView.getWidth() * (long) mView.getHeight();
+    }
+    
+    private void computeRect(float[] shape, float dx, float dy, Rect out) {
+        DropletGeometry.bounds(shape, 0, mBounds);
+        out.set((int) Math.floor(mBounds[0] + dx) - ANTI_ALIAS_PADDING,
+                (int) Math.floor(mBounds[1] + dy) - ANTI_ALIAS_PADDING,
+                (int) Math.ceil(mBounds[2] + dx) + ANTI_ALIAS_PADDING,
+                (int) Math.ceil(mBounds[3] + dy) + ANTI_ALIAS_PADDING);
+    }
+    
+    private void record(long pixels) {
+        mLastPixels = pixels;
+        mTotalPixels += pixels;
+        mInvalidateCount++;
+    }
+    
+    /**
+     * 最近一次实际重绘的像素个数，硬件加速（API 21起）时是整个控件的面积，不是脏区的面积
+     */
+    public long getLastInvalidatedPixels() {
+        return mLastPixels;
+    }
+    
+    /**
+     * 累计实际重绘的像素个数，硬件加速时同样按整个控件计算，见{@link #getLastInvalidatedPixels()}
+     */
+    public long getTotalInvalidatedPixels() {
+        return mTotalPixels;
+    }
+    
+    public int getInvalidateCount() {
+        return mInvalidateCount;
+    }
+    
+    /**
+     * 清零统计
+     */
+    public void resetCounters() {
+        mLastPixels = 0;
+        mTotalPixels = 0;
+        mInvalidateCount = 0;
+    }
+}
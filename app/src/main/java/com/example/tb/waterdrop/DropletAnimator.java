@@ -0,0 +1,203 @@
+package com.example.tb.waterdrop;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletKeyframes;
+import com.example.tb.waterdrop.core.SpringIntegrator;
+
+/**
+ * WaterAnim的动画状态：进度、形变阶段和回弹，和具体在哪个线程、画在哪里无关
+ * <p>
+ * WaterAnim在主线程使用，WaterAnimSurface在自己的渲染线程使用，同一个实例只能在一个线程里访问。
+ */
+public class DropletAnimator {
+    private float radius;
+    /**
+     * 水滴形变的几何内核
+     */
+    private final DropletGeometry mGeometry;
+    /**
+     * 共享的关键帧表，就绪后每帧查表
+     */
+    private final KeyframeShapes mShapes;
+    /**
+     * 资源里的形变，设置后代替几何内核和共享的关键帧表
+     */
+    private DropletKeyframes mMorph;
+    /**
+     * 当前形状：逆时针4个数据点和8个控制点，布局见{@link DropletGeometry}
+     */
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    /**
+     * 当前进度，0～1
+     */
+    private float mProgress;
+    
+    /**
+     * 注释仅代表向右，左边相反即可（0-7，1-5，2-4状态都是对应的，6是回弹状态，3是维持平移状态）
+     * 0:初始状态
+     * 1:右半部分向右拉伸从圆形变为锥形
+     * 2:逐渐变为椭圆状态(最左边保持不动)
+     * 3:椭圆状态维持一段时间，整体右移（前提是移动距离足够长）
+     * 4:逐渐变为锥形状态(最右边到达，同时保持不动)
+     * 5:左半部分向右缩减直至变为圆形
+     * 6:回弹
+     * 7:恢复初始状态
+     */
+    private int STATUS = 0;
+    
+    /**
+     * 回弹：最左边向前冲出去再被弹簧拉回原位，位置就是偏移的像素
+     */
+    private final SpringIntegrator mSpring = new SpringIntegrator();
+    /**
+     * 半径为50时弹簧静止的能量阈值，其它半径按回弹幅度的平方缩放
+     */
+    private float mRestEnergy = 0.5f;
+    /**
+     * 本次到达终点后是否已经开始回弹
+     */
+    private boolean mReboundStarted;
+    
+    public DropletAnimator(float radius, float distance) {
+        this.radius = radius;
+        mGeometry = new DropletGeometry(radius, distance);
+        mGeometry.shapeAt(0f, mShape);
+        mShapes = new KeyframeShapes(mGeometry);
+    }
+    
+    /**
+     * 重新设置半径和移动距离，形状按当前进度重新计算
+     */
+    public void configure(float radius, float distance) {
+        this.radius = radius;
+        mGeometry.set(radius, distance);
+        mShapes.prefetch();
+        shapeAt(mProgress, 0f);
+    }
+    
+    /**
+     * 用数据驱动的形变代替几何内核，半径和移动距离要先用{@link #configure(float, float)}设置成和它一致，
+     * 形变阶段仍由几何内核判断
+     *
+     * @param morph null时恢复几何内核
+     */
+    public void setMorph(DropletKeyframes morph) {
+        mMorph = morph;
+        shapeAt(mProgress, 0f);
+    }
+    
+    /**
+     * 设置当前进度
+     *
+     * @return 回弹已经完成、需要先{@link #reset()}时返回false，进度被忽略
+     */
+    public boolean setProgress(float progress) {
+        if (STATUS == 7) {
+            return false;
+        }
+        if (progress > 0.99) {
+            progress = 1;
+        }
+        //形状只由当前位置决定，上一次的位置不再参与计算
+        mProgress = progress;
+        STATUS = mGeometry.statusAt(mProgress);
+        if (STATUS != 6) {
+            //还没到终点，或者又往回拖了，下次到达终点重新回弹
+            mReboundStarted = false;
+        }
+        return true;
+    }
+    
+    /**
+     * 按流逝的时间推进一帧，形状直接由进度算出，和绘制的次数无关
+     *
+     * @param dt 距上一帧流逝的秒数
+     * @return 是否还需要下一帧
+     */
+    public boolean advance(float dt) {
+        float rebound = 0f;
+        if (STATUS == 6) {
+            if (!mReboundStarted) {
+                //从原位带着初速度冲出去，无阻尼时振幅为v / ω，和原先回弹的最大偏移(radius / 5)² / 2一致
+                float amplitude = radius * radius / 50f;
+                //能量和幅度的平方成正比，阈值跟着缩放，小半径的回弹不会刚开始就被判定为静止
+                float scale = amplitude / 50f;
+                mSpring.setRestEnergy(mRestEnergy * scale * scale);
+                mSpring.start(0f, amplitude * (float) Math.sqrt(mSpring.getStiffness()));
+                mReboundStarted = true;
+            }
+            if (mSpring.advance(dt)) {
+                rebound = mSpring.getPosition();
+            } else {
+                //弹簧静止，回弹完成，不再请求新帧
+                STATUS = 7;
+            }
+        }
+        shapeAt(mProgress, rebound);
+        //只有回弹需要持续出帧，其余状态等待下一次滑动
+        return STATUS == 6;
+    }
+    
+    /**
+     * 回到初始状态
+     */
+    public void reset() {
+        mProgress = 0;
+        mSpring.snapToTarget();
+        mReboundStarted = false;
+        STATUS = 0;
+        shapeAt(0f, 0f);
+    }
+    
+    private void shapeAt(float progress, float rebound) {
+        if (mMorph != null) {
+            mMorph.shapeAt(progress, rebound, mShape, 0);
+        } else {
+            mShapes.shapeAt(progress, rebound, mShape, 0);
+        }
+    }
+    
+    /**
+     * 回弹弹簧的参数
+     *
+     * @param stiffness 劲度系数，越大振得越快
+     * @param damping   阻尼系数，越大停得越快，2 * √stiffness为临界阻尼
+     */
+    public void setSpring(float stiffness, float damping) {
+        mSpring.setStiffness(stiffness);
+        mSpring.setDamping(damping);
+    }
+    
+    /**
+     * 弹簧静止的能量阈值，越大停得越早，按半径为50给出，其它半径按回弹幅度自动缩放
+     */
+    public void setRestEnergy(float restEnergy) {
+        mRestEnergy = restEnergy;
+    }
+    
+    /**
+     * 取共享的关键帧表，在控件attach时调用
+     */
+    public void prefetch() {
+        mShapes.prefetch();
+    }
+    
+    /**
+     * 放开对关键帧表的引用，在控件detach时调用
+     */
+    public void release() {
+        mShapes.release();
+    }
+    
+    public float[] getShape() {
+        return mShape;
+    }
+    
+    public float getProgress() {
+        return mProgress;
+    }
+    
+    public int getStatus() {
+        return STATUS;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.view.Display;
+import android.view.WindowManager;
+
+import com.example.tb.waterdrop.core.Histogram;
+
+/**
+ * 水滴控件的性能统计：绘制耗时、更新耗时、每次动画的帧数、迟到和丢掉的帧、空闲时的重绘、合并掉的进度更新
+ * <p>
+ * 默认关闭，关闭时每个埋点只有一次布尔判断。所有统计都记在定长直方图和计数器里，记录时不分配内存，
+ * 每次动画结束回调一次{@link Listener}，由应用自己决定怎么上报。只能在主线程使用。
+ */
+public class DropletMetrics {
+    
+    public interface Listener {
+        /**
+         * 一次动画结束，此时可以读取统计结果，回调返回后统计继续累加，需要分段上报就自己调用{@link #reset()}
+         */
+        void onAnimationEnd(DropletMetrics metrics);
+    }
+    
+    /**
+     * 耗时直方图每个桶0.1毫秒，共500个桶，覆盖0～50毫秒
+     */
+    private static final long TIME_BUCKET_NANOS = 100000L;
+    private static final int TIME_BUCKETS = 500;
+    /**
+     * 每次动画帧数的直方图，每个桶1帧，覆盖0～599帧
+     */
+    private static final int FRAME_BUCKETS = 600;
+    
+    private final Histogram mDrawTime = new Histogram(TIME_BUCKET_NANOS, TIME_BUCKETS);
+    private final Histogram mUpdateTime = new Histogram(TIME_BUCKET_NANOS, TIME_BUCKETS);
+    private final Histogram mFramesPerAnimation = new Histogram(1, FRAME_BUCKETS);
+    
+    private boolean mEnabled;
+    private Listener mListener;
+    /**
+     * 一次刷新的时长，按屏幕刷新率换算
+     */
+    private long mRefreshPeriodNanos;
+    
+    private boolean mAnimating;
+    private int mAnimationFrames;
+    
+    private long mFrameCount;
+    private long mLateFrames;
+    private long mDroppedFrames;
+    private long mIdleInvalidates;
+    private long mProgressUpdates;
+    private long mAppliedUpdates;
+    
+    public DropletMetrics(Context context) {
+        float refreshRate = 60f;
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager != null) {
+            Display display = windowManager.getDefaultDisplay();
+            if (display != null && display.getRefreshRate() > 0) {
+                refreshRate = display.getRefreshRate();
+            }
+        }
+        mRefreshPeriodNanos = (long) (1e9 / refreshRate);
+    }
+    
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        if (!enabled) {
+            mAnimating = false;
+        }
+    }
+    
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+    
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+    
+    /**
+     * 屏幕刷新率变化时（比如切换了高刷模式）更新
+     */
+    public void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            mRefreshPeriodNanos = (long) (1e9 / refreshRate);
+        }
+    }
+    
+    public long getRefreshPeriodNanos() {
+        return mRefreshPeriodNanos;
+    }
+    
+    /**
+     * 开始计时
+     *
+     * @return 传给{@link #endDraw(long)}或{@link #endUpdate(long)}，关闭时为0
+     */
+    public long begin() {
+        return mEnabled ? System.nanoTime() : 0L;
+    }
+    
+    public void endDraw(long start) {
+        if (mEnabled && start != 0L) {
+            mDrawTime.record(System.nanoTime() - start);
+        }
+    }
+    
+    public void endUpdate(long start) {
+        if (mEnabled && start != 0L) {
+            mUpdateTime.record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * 帧回调开始时调用：回调比vsync晚了一个刷新周期以上，说明主线程被占用，这一帧迟到了，
+     * 迟到了几个完整周期就相当于丢了几帧
+     */
+    public void onFrame(long frameTimeNanos) {
+        if (!mEnabled) {
+            return;
+        }
+        mFrameCount++;
+        if (mAnimating) {
+            mAnimationFrames++;
+        }
+        long late = System.nanoTime() - frameTimeNanos;
+        if (late > mRefreshPeriodNanos) {
+            mLateFrames++;
+            mDroppedFrames += late / mRefreshPeriodNanos;
+        }
+    }
+    
+    /**
+     * 每次请求重绘时调用，不在动画中的重绘记为空闲重绘
+     */
+    public void onInvalidate() {
+        if (mEnabled && !mAnimating) {
+            mIdleInvalidates++;
+        }
+    }
+    
+    /**
+     * 收到一次进度更新时调用
+     */
+    public void onProgressUpdate() {
+        if (mEnabled) {
+            mProgressUpdates++;
+        }
+    }
+    
+    /**
+     * 帧回调里真正应用了一次进度时调用，同一帧内收到的多次更新只应用最后一次
+     */
+    public void onProgressApplied() {
+        if (mEnabled) {
+            mAppliedUpdates++;
+        }
+    }
+    
+    public void startAnimation() {
+        if (!mEnabled || mAnimating) {
+            return;
+        }
+        mAnimating = true;
+        mAnimationFrames = 0;
+    }
+    
+    public void endAnimation() {
+        if (!mEnabled || !mAnimating) {
+            return;
+        }
+        mAnimating = false;
+        mFramesPerAnimation.record(mAnimationFrames);
+        if (mListener != null) {
+            mListener.onAnimationEnd(this);
+        }
+    }
+    
+    public boolean isAnimating() {
+        return mAnimating;
+    }
+    
+    /**
+     * onDraw的耗时（纳秒）
+     */
+    public Histogram getDrawTime() {
+        return mDrawTime;
+    }
+    
+    /**
+     * 一帧内形状更新的耗时（纳秒）：计算形状加上请求重绘。WaterTouch的触摸事件只记录采样，
+     * 形状计算合并到了帧回调里，所以这里统计的就是它处理移动的主要开销
+     */
+    public Histogram getUpdateTime() {
+        return mUpdateTime;
+    }
+    
+    public Histogram getFramesPerAnimation() {
+        return mFramesPerAnimation;
+    }
+    
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+    
+    public long getLateFrames() {
+        return mLateFrames;
+    }
+    
+    public long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+    
+    public long getIdleInvalidates() {
+        return mIdleInvalidates;
+    }
+    
+    /**
+     * 收到的进度更新次数
+     */
+    public long getProgressUpdates() {
+        return mProgressUpdates;
+    }
+    
+    /**
+     * 应用的进度更新次数，每帧最多一次
+     */
+    public long getAppliedUpdates() {
+        return mAppliedUpdates;
+    }
+    
+    /**
+     * 被同一帧内更晚的更新覆盖、没有单独应用的进度更新次数
+     */
+    public long getMergedUpdates() {
+        return mProgressUpdates - mAppliedUpdates;
+    }
+    
+    /**
+     * 清空所有统计，不影响开关和正在进行的动画
+     */
+    public void reset() {
+        mDrawTime.reset();
+        mUpdateTime.reset();
+        mFramesPerAnimation.reset();
+        mFrameCount = 0;
+        mLateFrames = 0;
+        mDroppedFrames = 0;
+        mIdleInvalidates = 0;
+        mProgressUpdates = 0;
+        mAppliedUpdates = 0;
+    }
+}
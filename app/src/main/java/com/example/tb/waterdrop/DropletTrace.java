@@ -0,0 +1,152 @@
+package com.example.tb.waterdrop;
+
+import android.os.Build;
+import android.support.v4.os.TraceCompat;
+
+import java.lang.reflect.Method;
+
+/**
+ * systrace/Perfetto埋点：动画各阶段的区间和状态计数
+ * <p>
+ * 区间直接走TraceCompat，没有抓trace时系统内部只判断一次开关。计数器在API 29以上用公开的
+ * Trace.isEnabled和Trace.setCounter，以前的版本只有隐藏的Trace.isTagEnabled和Trace.traceCounter。
+ * compileSdkVersion还是26，两种都只能反射调用，Method在第一次使用时查找并缓存，找不到就当作关闭。
+ * <p>
+ * 调用方每帧先判断{@link #isEnabled(long)}，同一帧只真正查询一次开关，关闭时不再记录计数器；
+ * 计数器的参数数组提前分配，0～{@link #BOX_CACHE_SIZE}之间的值用缓存的装箱对象，抓trace时也不分配内存。
+ * 只在主线程调用。
+ */
+public final class DropletTrace {
+    /**
+     * android.os.Trace.TRACE_TAG_APP
+     */
+    private static final long TRACE_TAG_APP = 1L << 12;
+    /**
+     * Trace.isEnabled和Trace.setCounter公开的版本，Build.VERSION_CODES.Q
+     */
+    private static final int PUBLIC_API_LEVEL = 29;
+    /**
+     * 缓存装箱对象的个数，覆盖形变阶段和放大到千分之一的进度
+     */
+    private static final int BOX_CACHE_SIZE = 1024;
+    
+    private static volatile boolean sResolved;
+    private static boolean sPublicApi;
+    private static Method sIsEnabled;
+    private static Method sCounter;
+    /**
+     * 反射调用的参数，提前分配并装箱好，每次调用只改里面的值
+     */
+    private static Object[] sEnabledArgs;
+    private static Object[] sCounterArgs;
+    private static Object[] sBoxes;
+    
+    /**
+     * 最近一次查询开关的帧时间和结果
+     */
+    private static long sEnabledFrameNanos = Long.MIN_VALUE;
+    private static boolean sEnabled;
+    
+    private DropletTrace() {
+    }
+    
+    public static void beginSection(String name) {
+        TraceCompat.beginSection(name);
+    }
+    
+    public static void endSection() {
+        TraceCompat.endSection();
+    }
+    
+    /**
+     * 当前是否正在抓取应用的trace，同一帧内的多次调用复用第一次的结果
+     *
+     * @param frameTimeNanos 当前帧的vsync时间
+     */
+    public static boolean isEnabled(long frameTimeNanos) {
+        if (frameTimeNanos != sEnabledFrameNanos) {
+            sEnabledFrameNanos = frameTimeNanos;
+            sEnabled = queryEnabled();
+        }
+        return sEnabled;
+    }
+    
+    /**
+     * 记录一个计数器的值，trace里显示成单独的一条轨道，调用前先判断{@link #isEnabled(long)}
+     */
+    public static void counter(String name, int value) {
+        resolve();
+        if (sCounter == null) {
+            return;
+        }
+        try {
+            if (sPublicApi) {
+                sCounterArgs[0] = name;
+                sCounterArgs[1] = box(value);
+            } else {
+                sCounterArgs[1] = name;
+                sCounterArgs[2] = box(value);
+            }
+            sCounter.invoke(null, sCounterArgs);
+        } catch (Exception e) {
+            //隐藏接口在某些ROM上可能不可用，计数器丢掉即可
+        }
+    }
+    
+    private static boolean queryEnabled() {
+        resolve();
+        if (sIsEnabled == null) {
+            return false;
+        }
+        try {
+            return (Boolean) sIsEnabled.invoke(null, sEnabledArgs);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    /**
+     * setCounter的参数是long，traceCounter的是int，缓存对应类型的装箱对象
+     */
+    private static Object box(int value) {
+        if (value >= 0 && value < BOX_CACHE_SIZE) {
+            return sBoxes[value];
+        }
+        return sPublicApi ? (Object) Long.valueOf(value) : (Object) Integer.valueOf(value);
+    }
+    
+    private static void resolve() {
+        if (!sResolved) {
+            resolveLocked();
+        }
+    }
+    
+    private static synchronized void resolveLocked() {
+        if (sResolved) {
+            return;
+        }
+        try {
+            Class<?> trace = Class.forName("android.os.Trace");
+            sPublicApi = Build.VERSION.SDK_INT >= PUBLIC_API_LEVEL;
+            if (sPublicApi) {
+                sIsEnabled = trace.getMethod("isEnabled");
+                sCounter = trace.getMethod("setCounter", String.class, long.class);
+                sEnabledArgs = new Object[0];
+                sCounterArgs = new Object[2];
+            } else {
+                sIsEnabled = trace.getMethod("isTagEnabled", long.class);
+                sCounter = trace.getMethod("traceCounter", long.class, String.class, int.class);
+                sEnabledArgs = new Object[]{TRACE_TAG_APP};
+                sCounterArgs = new Object[]{TRACE_TAG_APP, null, null};
+            }
+            sBoxes = new Object[BOX_CACHE_SIZE];
+            for (int i = 0; i < BOX_CACHE_SIZE; i++) {
+                sBoxes[i] = sPublicApi ? (Object) Long.valueOf(i) : (Object) Integer.valueOf(i);
+            }
+        } catch (Exception e) {
+            sIsEnabled = null;
+            sCounter = null;
+        }
+        sResolved = true;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.tb.waterdrop;
+
+import android.view.Choreographer;
+
+/**
+ * 基于Choreographer的帧时钟，按两帧之间真实流逝的时间推进动画，与屏幕刷新率无关
+ */
+public class FrameClock implements Choreographer.FrameCallback {
+    
+    public interface Callback {
+        /**
+         * 每个vsync回调一次
+         *
+         * @param frameTimeNanos 当前帧的vsync时间
+         * @param deltaSeconds   距上一帧流逝的秒数（第一帧为0）
+         * @return 是否还需要下一帧
+         */
+        boolean onFrame(long frameTimeNanos, float deltaSeconds);
+    }
+    
+    /**
+     * 单帧最多推进的时间，主线程长时间卡顿后不至于一下跳到终点
+     */
+    private static final float MAX_DELTA_SECONDS = 0.1f;
+    
+    private final Choreographer mChoreographer = Choreographer.getInstance();
+    private final Callback mCallback;
+    /**
+     * 是否已经请求了下一帧
+     */
+    private boolean mRunning;
+    /**
+     * 上一帧的vsync时间，0表示还没有开始计时
+     */
+    private long mLastFrameTimeNanos;
+    
+    public FrameClock(Callback callback) {
+        mCallback = callback;
+    }
+    
+    /**
+     * 开始出帧，已经在运行则忽略
+     */
+    public void start() {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mLastFrameTimeNanos = 0;
+        mChoreographer.postFrameCallback(this);
+    }
+    
+    /**
+     * 停止出帧
+     */
+    public void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        mChoreographer.removeFrameCallback(this);
+    }
+    
+    public boolean isRunning() {
+        return mRunning;
+    }
+    
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        float deltaSeconds = 0f;
+        if (mLastFrameTimeNanos != 0) {
+            deltaSeconds = Math.min((frameTimeNanos - mLastFrameTimeNanos) / 1e9f, MAX_DELTA_SECONDS);
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        if (mCallback.onFrame(frameTimeNanos, deltaSeconds)) {
+            mChoreographer.postFrameCallback(this);
+        } else {
+            mRunning = false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.tb.waterdrop;
+
+import android.os.AsyncTask;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletKeyframes;
+import com.example.tb.waterdrop.core.KeyframeCache;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 控件取形状的入口：共享的关键帧表就绪后查表，就绪之前直接用几何内核计算
+ * <p>
+ * 表在后台线程生成，生成完成后只写一次volatile引用，每帧只读这个引用，不查缓存、不装箱。
+ */
+public class KeyframeShapes implements KeyframeCache.Listener {
+    private final DropletGeometry mGeometry;
+    private volatile DropletKeyframes mKeyframes;
+    
+    public KeyframeShapes(DropletGeometry geometry) {
+        mGeometry = geometry;
+    }
+    
+    /**
+     * 按几何内核当前的参数去取共享的表，在onAttachedToWindow和参数变化时调用
+     */
+    public void prefetch() {
+        DropletKeyframes keyframes = mKeyframes;
+        if (keyframes != null && keyframes.matches(mGeometry.getRadius(), mGeometry.getDistance())) {
+            return;
+        }
+        try {
+            KeyframeCache.getInstance().acquire(mGeometry.getRadius(), mGeometry.getDistance(),
+                    AsyncTask.THREAD_POOL_EXECUTOR, this);
+        } catch (RejectedExecutionException e) {
+            //线程池满了，继续用几何内核计算，下次prefetch再取
+        }
+    }
+    
+    /**
+     * 放开对表的引用，在onDetachedFromWindow时调用，表本身仍留在缓存里
+     */
+    public void release() {
+        mKeyframes = null;
+    }
+    
+    @Override
+    public void onKeyframesReady(DropletKeyframes keyframes) {
+        if (!keyframes.matches(mGeometry.getRadius(), mGeometry.getDistance())) {
+            //参数已经变了，这份表是旧参数的，丢弃
+            return;
+        }
+        mKeyframes = keyframes;
+    }
+    
+    /**
+     * 是否正在查表
+     */
+    public boolean isReady() {
+        DropletKeyframes keyframes = mKeyframes;
+        return keyframes != null && keyframes.matches(mGeometry.getRadius(), mGeometry.getDistance());
+    }
+    
+    /**
+     * 参数和输出同{@link DropletGeometry#shapeAt(float, float, float[], int)}
+     */
+    public float[] shapeAt(float progress, float rebound, float[] out, int offset) {
+        DropletKeyframes keyframes = mKeyframes;
+        if (keyframes != null && keyframes.matches(mGeometry.getRadius(), mGeometry.getDistance())) {
+            return keyframes.shapeAt(progress, rebound, out, offset);
+        }
+        //表还没生成好，或者参数刚变过
+        return mGeometry.shapeAt(progress, rebound, out, offset);
+    }
+}
@@ -9,6 +9,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,14 +17,15 @@ public class Main4Activity extends AppCompatActivity {
     private static final String TAG = "Main4Activity";
     private ViewPager vp;
     private List<View> list=new ArrayList<>();
-    private float lastDis;
     private WaterAnim waterAnim;
+    private WaterIndicator indicator;
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main4);
         vp=findViewById(R.id.vp);
         waterAnim=findViewById(R.id.water);
+        indicator=findViewById(R.id.indicator);
         for (int i = 0; i < 5; i++) {
             TextView tv=new TextView(Main4Activity.this);
             tv.setText(i+"===");
@@ -53,25 +55,21 @@ public class Main4Activity extends AppCompatActivity {
                 return list.get(position);
             }
         });
-        vp.addOnPageChangeListener(new ViewPager.OnPageChangeListener() {
-            @Override
-            public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-                if(positionOffset==0){
-                    return;
-                }
-                Log.e(TAG, "onPageScrolled: "+lastDis+"$"+positionOffset );
-                waterAnim.setDeltaDistance(lastDis,positionOffset);
-                lastDis=positionOffset;
-            }
-    
-            @Override
-            public void onPageSelected(int position) {
-        
-            }
-    
+        indicator.setPageCount(list.size());
+        vp.addOnPageChangeListener(indicator);
+        //形变从资源读取，替换assets里的文件就能换一种动作；默认资源移动12倍半径，半径50px时仍是600px
+        try {
+            waterAnim.setMorph(MorphAssets.load(this, "droplet_default.wdmf"));
+        } catch (IOException e) {
+            Log.w(TAG, "load morph failed, using built-in geometry", e);
+        }
+        //水滴直接跟随页面的绝对位置，往回拖和一次滑过多页都能正确处理
+        WaterAnimScrollBinding.bind(vp, waterAnim);
+        //点一下播放预生成的一跳，由droplet_default.wdmf经AvdGenerator生成
+        waterAnim.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onPageScrollStateChanged(int state) {
-        
+            public void onClick(View v) {
+                waterAnim.play(R.drawable.droplet_hop);
             }
         });
     }
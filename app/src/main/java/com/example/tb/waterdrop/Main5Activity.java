@@ -0,0 +1,30 @@
+package com.example.tb.waterdrop;
+
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.widget.RadioGroup;
+
+public class Main5Activity extends AppCompatActivity {
+    
+    private RadioGroup mRgRadioGroup;
+    private CurveEditor mCurveEditor;
+    
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_main5);
+        mRgRadioGroup = findViewById(R.id.rg);
+        mCurveEditor = findViewById(R.id.curveEditor);
+        
+        mRgRadioGroup.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(RadioGroup group, int checkedId) {
+                if (checkedId == R.id.rb1) {
+                    mCurveEditor.setSegmentCount(8);
+                } else if (checkedId == R.id.rb2) {
+                    mCurveEditor.setSegmentCount(1000);
+                }
+            }
+        });
+    }
+}
@@ -8,7 +8,7 @@ import android.widget.Button;
 
 public class MainActivity extends AppCompatActivity {
     
-    private Button bt1,bt2,bt3;
+    private Button bt1,bt2,bt3,bt4;
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -16,6 +16,7 @@ public class MainActivity extends AppCompatActivity {
         bt1= findViewById(R.id.bt1);
         bt2= findViewById(R.id.bt2);
         bt3= findViewById(R.id.bt3);
+        bt4= findViewById(R.id.bt4);
         bt1.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -34,5 +35,11 @@ public class MainActivity extends AppCompatActivity {
                 startActivity(new Intent(MainActivity.this,Main4Activity.class));
             }
         });
+        bt4.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(MainActivity.this,Main5Activity.class));
+            }
+        });
     }
 }
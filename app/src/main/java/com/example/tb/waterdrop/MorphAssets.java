@@ -0,0 +1,70 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import com.example.tb.waterdrop.core.MorphFormat;
+import com.example.tb.waterdrop.core.MorphKeyframes;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 从assets读形变资源（.wdmf）
+ * <p>
+ * .wdmf在打包时不压缩（见build.gradle的aaptOptions），直接把apk里的这一段映射进内存读一遍；
+ * 被压缩了就退回到一次读进数组。
+ */
+public final class MorphAssets {
+    
+    private MorphAssets() {
+    }
+    
+    /**
+     * 读出半径为1的形变，交给{@link WaterAnim#setMorph(MorphKeyframes)}
+     *
+     * @param name assets下的文件名，比如droplet_default.wdmf
+     */
+    public static MorphKeyframes load(Context context, String name) throws IOException {
+        AssetFileDescriptor fd;
+        try {
+            fd = context.getAssets().openFd(name);
+        } catch (IOException compressed) {
+            //压缩过的资源没有文件描述符
+            return read(context, name);
+        }
+        try {
+            FileInputStream in = fd.createInputStream();
+            try {
+                ByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        fd.getStartOffset(), fd.getDeclaredLength());
+                return MorphFormat.read(buffer);
+            } finally {
+                in.close();
+            }
+        } finally {
+            fd.close();
+        }
+    }
+    
+    private static MorphKeyframes read(Context context, String name) throws IOException {
+        InputStream in = context.getAssets().open(name);
+        try {
+            byte[] bytes = new byte[in.available()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            return MorphFormat.read(ByteBuffer.wrap(bytes, 0, read));
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -19,6 +19,10 @@ import android.view.View;
 public class QuadTo extends View{
     
     private Paint mPaint;
+    /**
+     * 贝塞尔曲线的路径，每帧rewind后复用
+     */
+    private final Path mPath = new Path();
     private int centerX, centerY;
     
     private PointF start, end, control;
@@ -92,11 +96,10 @@ public class QuadTo extends View{
         mPaint.setColor(Color.RED);
         mPaint.setStrokeWidth(8);
         
-        Path path = new Path();
+        mPath.rewind();
+        mPath.moveTo(start.x,start.y);
+        mPath.quadTo(control.x,control.y,end.x,end.y);
         
-        path.moveTo(start.x,start.y);
-        path.quadTo(control.x,control.y,end.x,end.y);
-        
-        canvas.drawPath(path, mPaint);
+        canvas.drawPath(mPath, mPaint);
     }
 }
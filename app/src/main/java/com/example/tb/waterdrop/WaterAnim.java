@@ -5,14 +5,19 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PointF;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.graphics.drawable.AnimatedVectorDrawableCompat;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
-import android.view.MotionEvent;
 import android.view.View;
 
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletLod;
+import com.example.tb.waterdrop.core.MorphKeyframes;
+
 /**
  * @auther tb
  * @time 2017/11/20 下午4:41
@@ -28,26 +33,24 @@ public class WaterAnim extends View {
      * 画布的坐标中心
      */
     private float centerX, centerY;
-    /**
-     * 一个常量，用来计算绘制圆形贝塞尔曲线控制点的位置
-     */
-    private static final float C = 0.551915024494f;
-    /**
-     * 圆形的控制点与数据点的差值
-     */
-    private float mDelta = radius * C;
     /**
      * 绘制圆的画笔
      */
     private Paint mPaint;
     /**
-     * 逆时针记录绘制圆形的四个数据点
+     * 水滴的路径，每帧rewind后复用，不再重新分配
      */
-    private PointF[] mData = new PointF[4];
+    private final Path mPath = new Path();
+    private final AndroidPathSink mPathSink = new AndroidPathSink(mPath);
     /**
-     * 逆时针记录绘制圆形的八个控制点
+     * 细节层次允许的误差（像素），0表示关闭，始终按原来的4段三阶曲线输出
      */
-    private PointF[] mCtrl = new PointF[8];
+    private float mLodTolerance;
+    private int mLodLevel = DropletLod.CUBIC_4;
+    /**
+     * 画笔宽度，只在初始化时换算一次
+     */
+    private float mStrokeWidth;
     
     /**
      * 控件整体移动的距离
@@ -55,47 +58,39 @@ public class WaterAnim extends View {
     private float distance = 600f;
     
     /**
-     * 注释仅代表向右，左边相反即可（0-7，1-5，2-4状态都是对应的，6是回弹状态，3是维持平移状态）
-     * 0:初始状态
-     * 1:右半部分向右拉伸从圆形变为锥形
-     * 2:逐渐变为椭圆状态(最左边保持不动)
-     * 3:椭圆状态维持一段时间，整体右移（前提是移动距离足够长）
-     * 4:逐渐变为锥形状态(最右边到达，同时保持不动)
-     * 5:左半部分向右缩减直至变为圆形
-     * 6:回弹
-     * 7:恢复初始状态
+     * 进度、形变阶段和回弹
      */
-    private int STATUS = 0;
-    
+    private DropletAnimator mAnimator;
     /**
-     * 每一份的长度
-     * 移动的总距离根据半径分为若干份(每一份的长度，最少分为3份，其实2份也行，不过把状态3省略了)
-     * 第一份：对应状态STATUS=1
-     * 第二份：对应状态STATUS=2
-     * 第三份～最后一份：对应状态STATUS=3
-     * 最左边往前数两份：对应状态STATUS=4
-     * 最左边往前数一份：对应状态STATUS=5
+     * 当前形状，就是{@link DropletAnimator#getShape()}
      */
-    private float eachDis = radius;
-    
+    private float[] mShape;
     /**
-     * 总共能分的份数
+     * 资源里读出的形变，半径为1，null表示用几何内核
      */
-    private float count = distance / radius;
-    
+    private MorphKeyframes mMorph;
+    /**
+     * 正在播放的预生成动画，见{@link #play(int)}，null表示按进度绘制
+     */
+    private AnimatedVectorDrawableCompat mPlayback;
     /**
-     * 每次滑动的距离
+     * 还没有应用的最新进度，一帧内多次更新只保留最后一次，在下一个vsync统一应用
      */
-    private float deltaDistance;
+    private float mPendingProgress;
+    private boolean mHasPendingProgress;
     
     /**
-     * 回弹距离
+     * 驱动动画的帧时钟
+     */
+    private FrameClock mClock;
+    /**
+     * 只重绘水滴覆盖的区域
      */
-    private int tan = 0;
+    private DirtyRectInvalidator mInvalidator;
     /**
-     * 是否开始回弹
+     * 性能统计，默认关闭
      */
-    private boolean flag = false;
+    private DropletMetrics mMetrics;
     
     public WaterAnim(Context context) {
         this(context, null);
@@ -113,41 +108,37 @@ public class WaterAnim extends View {
     private void init() {
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
-        initDataPoints();
-        initCtrlPoints();
-        initDistance();
-    }
-    
-    private void initDistance() {
-        if (count < 3) {
-            //保证最低4份
-            count = 3f;
-            eachDis = distance / count;
-        }
-    }
-    
-    private void initDataPoints() {
-        for (int i = 0; i < 4; i++) {
-            mData[i] = new PointF();
-        }
-        mData[0].set(radius, radius);
-        mData[1].set(2 * radius, 0);
-        mData[2].set(radius, -radius);
-        mData[3].set(0, 0);
-    }
-    
-    private void initCtrlPoints() {
-        for (int i = 0; i < 8; i++) {
-            mCtrl[i] = new PointF();
-        }
-        mCtrl[0].set(mData[0].x + mDelta, mData[0].y);
-        mCtrl[1].set(mData[1].x, mData[1].y + mDelta);
-        mCtrl[2].set(mData[1].x, mData[1].y - mDelta);
-        mCtrl[3].set(mData[2].x + mDelta, mData[2].y);
-        mCtrl[4].set(mData[2].x - mDelta, mData[2].y);
-        mCtrl[5].set(mData[3].x, mData[3].y - mDelta);
-        mCtrl[6].set(mData[3].x, mData[3].y + mDelta);
-        mCtrl[7].set(mData[0].x - mDelta, mData[0].y);
+        mStrokeWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, getResources().getDisplayMetrics());
+        mAnimator = new DropletAnimator(radius, distance);
+        mShape = mAnimator.getShape();
+        mInvalidator = new DirtyRectInvalidator(this);
+        mMetrics = new DropletMetrics(getContext());
+        mClock = new FrameClock(new FrameClock.Callback() {
+            @Override
+            public boolean onFrame(long frameTimeNanos, float deltaSeconds) {
+                mMetrics.onFrame(frameTimeNanos);
+                long start = mMetrics.begin();
+                DropletTrace.beginSection("WaterAnim.update");
+                applyPendingProgress();
+                boolean keepGoing = mAnimator.advance(deltaSeconds);
+                mInvalidator.invalidate(mShape, centerX, centerY);
+                DropletTrace.endSection();
+                mMetrics.onInvalidate();
+                mMetrics.endUpdate(start);
+                if (DropletTrace.isEnabled(frameTimeNanos)) {
+                    DropletTrace.counter("WaterAnim.status", mAnimator.getStatus());
+                    //进度放大到千分之一
+                    DropletTrace.counter("WaterAnim.progress", (int) (mAnimator.getProgress() * 1000));
+                    DropletTrace.counter("WaterAnim.invalidates", mInvalidator.getInvalidateCount());
+                }
+                int status = mAnimator.getStatus();
+                if (status == 0 || status == 7) {
+                    //回到原位或者回弹完成，一次动画结束
+                    mMetrics.endAnimation();
+                }
+                return keepGoing;
+            }
+        });
     }
     
     @Override
@@ -155,6 +146,7 @@ public class WaterAnim extends View {
         super.onSizeChanged(w, h, oldw, oldh);
         centerX = 0f;
         centerY = h / 2f;
+        mInvalidator.invalidateAll(mShape, centerX, centerY);
     }
     
     /**
@@ -164,252 +156,275 @@ public class WaterAnim extends View {
      * @param currentDistance 当前的位置
      */
     public void setDeltaDistance(float lastDistance, float currentDistance) {
-        if (STATUS == 7) {
+        if (mAnimator.getStatus() == 7) {
+            //回弹已经完成，等待reset
             return;
         }
-        if(currentDistance>0.99){
-            currentDistance=1;
+        stopPlayback();
+        //只记下最新的绝对进度，下一帧再计算形状，ViewPager一帧内多次回调也只算一次
+        mMetrics.onProgressUpdate();
+        mPendingProgress = currentDistance;
+        mHasPendingProgress = true;
+        mClock.start();
+    }
+    
+    /**
+     * 在帧回调里应用最新的进度
+     */
+    private void applyPendingProgress() {
+        if (!mHasPendingProgress) {
+            return;
         }
-        this.deltaDistance = distance * (currentDistance - lastDistance);
-        currentDistance *= distance;
-        if (currentDistance < eachDis) {
-            STATUS = 1;
-        } else if (currentDistance < eachDis * 2f) {
-            STATUS = 2;
-        } else if (currentDistance < distance) {
-            STATUS = 3;
-        } else if (currentDistance < distance + eachDis) {
-            STATUS = 4;
-        } else if (currentDistance < distance + 2 * eachDis) {
-            STATUS = 5;
-        } else/* if (currentDistance >= distance-1 + 2 * eachDis) */ {
-            STATUS = 6;
+        mHasPendingProgress = false;
+        mMetrics.onProgressApplied();
+        if (mAnimator.setProgress(mPendingProgress) && mAnimator.getStatus() != 0) {
+            mMetrics.startAnimation();
         }
-        postInvalidate();
     }
     
+    /**
+     * 回到初始状态
+     */
     public void reset() {
-        deltaDistance = 0;
-        tan = 0;
-        flag = false;
-        STATUS = 0;
+        stopPlayback();
+        mHasPendingProgress = false;
+        mClock.stop();
+        mAnimator.reset();
+        mInvalidator.invalidate(mShape, centerX, centerY);
+        mMetrics.onInvalidate();
+        mMetrics.endAnimation();
+    }
+    
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAnimator.prefetch();
+    }
+    
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mClock.stop();
+        stopPlayback();
+        mAnimator.release();
+    }
+    
+    /**
+     * 播放{@link com.example.tb.waterdrop.core.AvdGenerator}生成的AnimatedVectorDrawable，
+     * 比如R.drawable.droplet_hop。形状全部预先算好，API 25以上由RenderThread驱动，
+     * 主线程卡顿时动画也不掉帧；低版本由support库在主线程驱动。
+     * <p>
+     * drawable的宽高比按生成时的移动距离和半径确定，需要和当前的形变一致，
+     * 比如先用{@link #setMorph(MorphKeyframes)}加载同一份形变。
+     * 再次拖动或者{@link #reset()}会停止播放，回到按进度绘制。
+     */
+    public void play(@DrawableRes int resId) {
+        stopPlayback();
+        AnimatedVectorDrawableCompat drawable = AnimatedVectorDrawableCompat.create(getContext(), resId);
+        if (drawable == null) {
+            return;
+        }
+        mHasPendingProgress = false;
+        mClock.stop();
+        mAnimator.reset();
+        //和onDraw平移后的坐标一致，viewport的原点在初始圆的最左边、上边
+        drawable.setBounds(0, (int) -radius, (int) (distance + 2 * radius), (int) radius);
+        drawable.setCallback(this);
+        mPlayback = drawable;
+        drawable.start();
+        invalidate();
+    }
+    
+    /**
+     * 预生成的动画是否在播放
+     */
+    public boolean isPlaying() {
+        return mPlayback != null && mPlayback.isRunning();
+    }
+    
+    private void stopPlayback() {
+        if (mPlayback == null) {
+            return;
+        }
+        mPlayback.stop();
+        mPlayback.setCallback(null);
+        mPlayback = null;
+        invalidate();
+    }
+    
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mPlayback || super.verifyDrawable(who);
+    }
+    
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (drawable == mPlayback) {
+            //bounds是平移后的坐标，不能按bounds局部重绘
+            invalidate();
+        } else {
+            super.invalidateDrawable(drawable);
+        }
     }
     
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        long start = mMetrics.begin();
+        DropletTrace.beginSection("WaterAnim.draw");
         
         canvas.translate(centerX, centerY); // 将坐标系移动到画布中央
         
-        //绘制数据点和控制点
+        //绘制辅助线
         mPaint.setColor(Color.GRAY);
         mPaint.setStrokeWidth(1);
-        canvas.drawLine(distance + 2 * radius, -1000, distance + 2 * radius, 1000, mPaint);
-        canvas.drawLine(distance, -1000, distance, 1000, mPaint);
-        for (int i = 0; i < mData.length; i++) {
-//            canvas.drawPoint(mData[i].x, mData[i].y, mPaint);
-        }
-        for (int i = 0; i < mCtrl.length; i++) {
-//            canvas.drawPoint(mCtrl[i].x, mCtrl[i].y, mPaint);
-        }
+        //辅助线只画控件高度范围内，超出的部分本来就会被裁掉
+        canvas.drawLine(distance + 2 * radius, -centerY, distance + 2 * radius, getHeight() - centerY, mPaint);
+        canvas.drawLine(distance, -centerY, distance, getHeight() - centerY, mPaint);
         
-        // 绘制辅助线
-//        mPaint.setStrokeWidth(4);
-//        canvas.drawLine(mData[0].x, mData[0].y, mCtrl[0].x, mCtrl[0].y, mPaint);
-//        canvas.drawLine(mData[0].x, mData[0].y, mCtrl[7].x, mCtrl[7].y, mPaint);
-//
-//        canvas.drawLine(mData[1].x, mData[1].y, mCtrl[1].x, mCtrl[1].y, mPaint);
-//        canvas.drawLine(mData[1].x, mData[1].y, mCtrl[2].x, mCtrl[2].y, mPaint);
-//
-//        canvas.drawLine(mData[2].x, mData[2].y, mCtrl[3].x, mCtrl[3].y, mPaint);
-//        canvas.drawLine(mData[2].x, mData[2].y, mCtrl[4].x, mCtrl[4].y, mPaint);
-//
-//        canvas.drawLine(mData[3].x, mData[3].y, mCtrl[5].x, mCtrl[5].y, mPaint);
-//        canvas.drawLine(mData[3].x, mData[3].y, mCtrl[6].x, mCtrl[6].y, mPaint);
+        if (mPlayback != null) {
+            //预生成的动画自己绘制水滴
+            mPlayback.draw(canvas);
+            DropletTrace.endSection();
+            mMetrics.endDraw(start);
+            return;
+        }
         
         //绘制贝塞尔曲线
-        Path path = new Path();
-        path.moveTo(mData[0].x, mData[0].y);
-        path.cubicTo(mCtrl[0].x, mCtrl[0].y, mCtrl[1].x, mCtrl[1].y, mData[1].x, mData[1].y);
-        path.cubicTo(mCtrl[2].x, mCtrl[2].y, mCtrl[3].x, mCtrl[3].y, mData[2].x, mData[2].y);
-        path.cubicTo(mCtrl[4].x, mCtrl[4].y, mCtrl[5].x, mCtrl[5].y, mData[3].x, mData[3].y);
-        path.cubicTo(mCtrl[6].x, mCtrl[6].y, mCtrl[7].x, mCtrl[7].y, mData[0].x, mData[0].y);
+        DropletTrace.beginSection("WaterAnim.buildPath");
+        mPath.rewind();
+        DropletLod.buildPath(mShape, 0, mLodLevel, mPathSink);
+        DropletTrace.endSection();
         
         mPaint.setColor(Color.BLUE);
-        mPaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, getResources().getDisplayMetrics()));
+        mPaint.setStrokeWidth(mStrokeWidth);
         mPaint.setStyle(Paint.Style.FILL);
-        canvas.drawPath(path, mPaint);
-        
-        switch (STATUS) {
-            case 1:
-                //最右边的一个数据点和两个控制点同时右移
-                mData[1].x += deltaDistance;
-                mCtrl[1].x += deltaDistance;
-                mCtrl[2].x += deltaDistance;
-                //超过处理
-                if (mData[1].x > 2 * radius + eachDis) {
-                    mData[1].x = 2 * radius + eachDis;
-                    mCtrl[1].x = 2 * radius + eachDis;
-                    mCtrl[2].x = 2 * radius + eachDis;
-                }
-                break;
-            case 2:
-                //逐渐拉伸为椭圆状态
-                //mDelta的值不断增加但不超过半径的四分之三
-                if (mDelta < radius * 3f / 4f) {
-                    mDelta++;
-                    initCtrlPoints();
-                }
-                
-                //中间的两个数据点和4个控制点同时右移
-                mData[0].x += deltaDistance;
-                mData[2].x += deltaDistance;
-                
-                mCtrl[0].x += deltaDistance;
-                mCtrl[7].x += deltaDistance;
-                mCtrl[3].x += deltaDistance;
-                mCtrl[4].x += deltaDistance;
-                if (mData[0].x > 2 * radius) {
-                    mData[0].x = 2 * radius;
-                    mData[2].x = 2 * radius;
-                    
-                    mCtrl[0].x = 2 * radius;
-                    mCtrl[7].x = 2 * radius;
-                    mCtrl[3].x = 2 * radius;
-                    mCtrl[4].x = 2 * radius;
-                }
-                
-                //最右边的一个数据点和两个控制点同时右移
-                mData[1].x += deltaDistance;
-                mCtrl[1].x += deltaDistance;
-                mCtrl[2].x += deltaDistance;
-                if (mData[1].x > 2 * radius + 2 * eachDis) {
-                    mData[1].x = 2 * radius + 2 * eachDis;
-                    mCtrl[1].x = 2 * radius + 2 * eachDis;
-                    mCtrl[2].x = 2 * radius + 2 * eachDis;
-                }
-                break;
-            case 3:
-                //整体平移
-                mData[0].x += deltaDistance;
-                mData[1].x += deltaDistance;
-                mData[2].x += deltaDistance;
-                mData[3].x += deltaDistance;
-                
-                mCtrl[1].x += deltaDistance;
-                mCtrl[2].x += deltaDistance;
-                mCtrl[3].x += deltaDistance;
-                mCtrl[4].x += deltaDistance;
-                mCtrl[5].x += deltaDistance;
-                mCtrl[6].x += deltaDistance;
-                mCtrl[7].x += deltaDistance;
-                mCtrl[0].x += deltaDistance;
-                if (mData[1].x > 2 * radius + distance) {
-                    mData[1].x = 2 * radius + distance;
-                    mCtrl[1].x = 2 * radius + distance;
-                    mCtrl[2].x = 2 * radius + distance;
-                }
-                if (mData[0].x > distance) {
-                    mData[0].x = distance;
-                    mData[2].x = distance;
-                    
-                    mCtrl[0].x = distance;
-                    mCtrl[7].x = distance;
-                    mCtrl[3].x = distance;
-                    mCtrl[4].x = distance;
-                }
-                if (mData[3].x > distance - 2 * radius) {
-                    mData[3].x = distance - 2 * radius;
-                    mCtrl[5].x = distance - 2 * radius;
-                    mCtrl[6].x = distance - 2 * radius;
-                }
-                break;
-            case 4:
-                //逐渐恢复锥形
-                //mDelta的值不断减少直至恢复为初始值
-                if (mDelta > radius * C) {
-                    mDelta--;
-                    initCtrlPoints();
-                } else if (mDelta < radius * C) {
-                    mDelta = radius * C;
-                    initCtrlPoints();
-                }
-                
-                //最左边的一个数据点和两个控制点同时右移
-                mData[3].x += deltaDistance;
-                mCtrl[5].x += deltaDistance;
-                mCtrl[6].x += deltaDistance;
-                if (mData[3].x > distance - eachDis) {
-                    mData[3].x = distance - eachDis;
-                    mCtrl[5].x = distance - eachDis;
-                    mCtrl[6].x = distance - eachDis;
-                }
-                
-                //中间的两个数据点和4个控制点同时右移
-                mData[0].x += deltaDistance;
-                mData[2].x += deltaDistance;
-                
-                mCtrl[0].x += deltaDistance;
-                mCtrl[7].x += deltaDistance;
-                mCtrl[3].x += deltaDistance;
-                mCtrl[4].x += deltaDistance;
-                if (mData[0].x > distance + radius) {
-                    mData[0].x = distance + radius;
-                    mData[2].x = distance + radius;
-                    
-                    mCtrl[0].x = distance + radius;
-                    mCtrl[7].x = distance + radius;
-                    mCtrl[3].x = distance + radius;
-                    mCtrl[4].x = distance + radius;
-                }
-                break;
-            case 5:
-                //最左边的一个数据点右移直至变为圆形
-                mData[3].x += deltaDistance;
-                mCtrl[5].x += deltaDistance;
-                mCtrl[6].x += deltaDistance;
-                if (mData[3].x > distance) {
-                    mData[3].x = distance;
-                    mCtrl[5].x = distance;
-                    mCtrl[6].x = distance;
-                }
-                break;
-            case 6:
-                if (tan >= radius / 5f) {
-                    flag = true;
-                }
-                if (flag) {
-                    if (tan > 0) {
-                        mData[3].x -= tan;
-                        mCtrl[5].x -= tan;
-                        mCtrl[6].x -= tan;
-                        tan--;
-                    } else {
-                        //回弹完成
-                        reset();
-                        STATUS = 7;
-                        if (mData[3].x != distance) {
-                            mData[3].x = distance;
-                            mCtrl[5].x = distance;
-                            mCtrl[6].x = distance;
-                        }
-                    }
-                } else {
-                    mData[3].x += tan;
-                    mCtrl[5].x += tan;
-                    mCtrl[6].x += tan;
-                    tan++;
-                }
-                postInvalidate();
-                break;
-        }
+        canvas.drawPath(mPath, mPaint);
+        DropletTrace.endSection();
+        mMetrics.endDraw(start);
     }
     
     public void setRadius(float radius) {
         this.radius = radius;
+        if (mMorph != null) {
+            //形变按新的半径重新换算，移动距离跟着变
+            applyMorph();
+        } else {
+            mAnimator.configure(radius, distance);
+        }
+        updateLodLevel();
+        mInvalidator.invalidateAll(mShape, centerX, centerY);
+    }
+    
+    /**
+     * 用数据驱动的形变代替几何内核，移动距离由形变决定，比如{@link MorphAssets#load}读出的资源
+     *
+     * @param morph 半径为1的形变，null恢复几何内核
+     */
+    public void setMorph(MorphKeyframes morph) {
+        mMorph = morph;
+        if (morph != null) {
+            applyMorph();
+        } else {
+            mAnimator.setMorph(null);
+        }
+        mInvalidator.invalidateAll(mShape, centerX, centerY);
+    }
+    
+    private void applyMorph() {
+        MorphKeyframes scaled = mMorph.scale(radius);
+        distance = scaled.getDistance();
+        mAnimator.configure(radius, distance);
+        mAnimator.setMorph(scaled);
+    }
+    
+    /**
+     * 按半径和允许的误差自动选择输出的曲线段数，见{@link DropletLod#select(float, float)}
+     *
+     * @param tolerance 允许的最大误差（像素），0表示关闭
+     */
+    public void setLodTolerance(float tolerance) {
+        mLodTolerance = tolerance;
+        updateLodLevel();
+        invalidate();
+    }
+    
+    /**
+     * 当前使用的细节层次，取值见{@link DropletLod}
+     */
+    public int getLodLevel() {
+        return mLodLevel;
+    }
+    
+    private void updateLodLevel() {
+        mLodLevel = mLodTolerance > 0 ? DropletLod.select(radius, mLodTolerance) : DropletLod.CUBIC_4;
+    }
+    
+    /**
+     * 回弹弹簧的参数，见{@link DropletAnimator#setSpring(float, float)}
+     */
+    public void setSpring(float stiffness, float damping) {
+        mAnimator.setSpring(stiffness, damping);
     }
     
+    /**
+     * 弹簧静止的能量阈值，越大停得越早，见{@link DropletAnimator#setRestEnergy(float)}
+     */
+    public void setRestEnergy(float restEnergy) {
+        mAnimator.setRestEnergy(restEnergy);
+    }
+    
+    /**
+     * 设置移动距离，形变改回由几何内核计算
+     */
     public void setDistance(float distance) {
         this.distance = distance;
+        mMorph = null;
+        mAnimator.setMorph(null);
+        mAnimator.configure(radius, distance);
+        mInvalidator.invalidateAll(mShape, centerX, centerY);
+    }
+    
+    /**
+     * 性能统计，调用{@link DropletMetrics#setEnabled(boolean)}开启
+     */
+    public DropletMetrics getMetrics() {
+        return mMetrics;
+    }
+    
+    /**
+     * 最近一次重绘的像素个数。API 21起开启硬件加速时脏区不起作用，这里是整个控件的面积，
+     * 见{@link DirtyRectInvalidator#getLastInvalidatedPixels()}
+     */
+    public long getLastInvalidatedPixels() {
+        return mInvalidator.getLastInvalidatedPixels();
+    }
+    
+    /**
+     * 累计重绘的像素个数，硬件加速时同样按整个控件计算
+     */
+    public long getTotalInvalidatedPixels() {
+        return mInvalidator.getTotalInvalidatedPixels();
+    }
+    
+    /**
+     * 累计重绘的次数
+     */
+    public int getInvalidateCount() {
+        return mInvalidator.getInvalidateCount();
+    }
+    
+    /**
+     * 驱动形状更新的帧时钟，测试里直接调用{@link FrameClock#doFrame(long)}模拟vsync
+     */
+    FrameClock getFrameClock() {
+        return mClock;
+    }
+    
+    /**
+     * 当前形状，布局见{@link DropletGeometry}，只读
+     */
+    float[] getShape() {
+        return mShape;
     }
 }
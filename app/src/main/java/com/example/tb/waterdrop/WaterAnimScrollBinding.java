@@ -0,0 +1,140 @@
+package com.example.tb.waterdrop;
+
+import android.support.v4.view.ViewPager;
+import android.support.v7.widget.RecyclerView;
+
+import com.example.tb.waterdrop.core.PagerProgress;
+
+/**
+ * 用ViewPager或者按页滚动的RecyclerView驱动WaterAnim
+ * <p>
+ * 每次滚动回调都换算成绝对页码，由{@link PagerProgress}算出相对停靠页的进度直接交给WaterAnim，
+ * 往回拖时进度变负，滑过多页时每越过一页重新开始一跳。滚动停止时停靠到最近的一页，
+ * 再次开始滚动时让WaterAnim回到初始状态。滚动路径上不打日志、不装箱、不分配对象。
+ */
+public class WaterAnimScrollBinding {
+    private final WaterAnim mWaterAnim;
+    private final PagerProgress mProgress = new PagerProgress();
+    private boolean mIdle = true;
+    
+    private ViewPager mViewPager;
+    private ViewPager.OnPageChangeListener mPageListener;
+    private RecyclerView mRecyclerView;
+    private RecyclerView.OnScrollListener mScrollListener;
+    
+    private WaterAnimScrollBinding(WaterAnim waterAnim) {
+        mWaterAnim = waterAnim;
+    }
+    
+    /**
+     * 用ViewPager的position + positionOffset驱动
+     */
+    public static WaterAnimScrollBinding bind(ViewPager viewPager, WaterAnim waterAnim) {
+        final WaterAnimScrollBinding binding = new WaterAnimScrollBinding(waterAnim);
+        binding.mViewPager = viewPager;
+        binding.mProgress.setAnchor(viewPager.getCurrentItem());
+        binding.mPageListener = new ViewPager.OnPageChangeListener() {
+            @Override
+            public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+                binding.onPosition(position + positionOffset);
+            }
+            
+            @Override
+            public void onPageSelected(int position) {
+            
+            }
+            
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                binding.onScrollStateChanged(state == ViewPager.SCROLL_STATE_IDLE);
+            }
+        };
+        viewPager.addOnPageChangeListener(binding.mPageListener);
+        return binding;
+    }
+    
+    /**
+     * 用RecyclerView的滚动偏移驱动，每一项都和RecyclerView一样大（比如配合PagerSnapHelper），
+     * 横向和纵向的LayoutManager都可以
+     */
+    public static WaterAnimScrollBinding bind(RecyclerView recyclerView, WaterAnim waterAnim) {
+        final WaterAnimScrollBinding binding = new WaterAnimScrollBinding(waterAnim);
+        binding.mRecyclerView = recyclerView;
+        binding.mProgress.setAnchor(Math.round(pagePosition(recyclerView)));
+        binding.mScrollListener = new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                binding.onPosition(pagePosition(recyclerView));
+            }
+            
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                binding.onScrollStateChanged(newState == RecyclerView.SCROLL_STATE_IDLE);
+            }
+        };
+        recyclerView.addOnScrollListener(binding.mScrollListener);
+        return binding;
+    }
+    
+    /**
+     * 解除绑定，之后不再驱动WaterAnim
+     */
+    public void unbind() {
+        if (mViewPager != null) {
+            mViewPager.removeOnPageChangeListener(mPageListener);
+            mViewPager = null;
+        }
+        if (mRecyclerView != null) {
+            mRecyclerView.removeOnScrollListener(mScrollListener);
+            mRecyclerView = null;
+        }
+    }
+    
+    /**
+     * 当前停靠的页
+     */
+    public int getAnchor() {
+        return mProgress.getAnchor();
+    }
+    
+    private void onPosition(float position) {
+        float last = mProgress.getProgress();
+        if (mProgress.setPosition(position)) {
+            //越过了相邻页，上一跳到此结束，从新的停靠页重新开始
+            mWaterAnim.reset();
+            last = 0f;
+        }
+        mWaterAnim.setDeltaDistance(last, mProgress.getProgress());
+    }
+    
+    private void onScrollStateChanged(boolean idle) {
+        if (idle) {
+            //停在哪一页由最终位置决定，回弹继续播放完
+            mProgress.settle(currentPosition());
+        } else if (mIdle) {
+            //新一轮滚动从初始形状开始，包括不经过拖动的setCurrentItem
+            mWaterAnim.reset();
+        }
+        mIdle = idle;
+    }
+    
+    private float currentPosition() {
+        if (mRecyclerView != null) {
+            return pagePosition(mRecyclerView);
+        }
+        return mProgress.getAnchor() + mProgress.getProgress();
+    }
+    
+    /**
+     * RecyclerView当前的绝对页码：滚动偏移除以一页的长度
+     */
+    private static float pagePosition(RecyclerView recyclerView) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager != null && layoutManager.canScrollVertically()) {
+            int page = recyclerView.getHeight() - recyclerView.getPaddingTop() - recyclerView.getPaddingBottom();
+            return page > 0 ? recyclerView.computeVerticalScrollOffset() / (float) page : 0f;
+        }
+        int page = recyclerView.getWidth() - recyclerView.getPaddingLeft() - recyclerView.getPaddingRight();
+        return page > 0 ? recyclerView.computeHorizontalScrollOffset() / (float) page : 0f;
+    }
+}
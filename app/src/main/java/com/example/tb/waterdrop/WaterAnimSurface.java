@@ -0,0 +1,323 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在独立渲染线程里绘制的WaterAnim，主线程忙于布局、inflate时动画不受影响
+ * <p>
+ * 画在SurfaceView自己的Surface上，渲染线程提交的每一帧直接交给系统合成，不需要等主线程绘制控件树；
+ * TextureView做不到这一点，它的内容要随主线程的下一次绘制才能上屏。
+ * 对外的{@link #setDeltaDistance(float, float)}和{@link #reset()}与WaterAnim一致，在主线程调用，
+ * 只是把最新的进度交给渲染线程；渲染线程有自己的Looper和Choreographer，每个vsync应用一次最新的进度，推进动画并画进Surface。
+ * <p>
+ * 背景透明，Surface放在窗口之上，会盖住和它重叠的其他控件。
+ * 只支持几何内核的形变，始终按4段三阶曲线输出，没有WaterAnim的细节层次和{@code setMorph}。
+ */
+public class WaterAnimSurface extends SurfaceView implements SurfaceHolder.Callback {
+    private static final String TAG = "WaterAnimSurface";
+    
+    /**
+     * 圆的半径和控件整体移动的距离，主线程写、渲染线程读
+     */
+    private volatile float radius = 50f;
+    private volatile float distance = 600f;
+    /**
+     * 回弹弹簧的参数，主线程写、渲染线程读
+     */
+    private volatile float mStiffness = 300f;
+    private volatile float mDamping = 12f;
+    /**
+     * 主线程交给渲染线程的最新进度
+     */
+    private volatile float mPendingProgress;
+    /**
+     * 有还没应用的进度，渲染线程在下一个vsync读最新的进度，一帧内多次更新只应用一次
+     */
+    private volatile boolean mProgressDirty;
+    private volatile boolean mResetPending;
+    /**
+     * 进度任务是否已经投递还没执行，投递过就不再重复投递
+     */
+    private final AtomicBoolean mProgressPosted = new AtomicBoolean();
+    /**
+     * 画布的大小，主线程写、渲染线程读
+     */
+    private volatile int mSurfaceWidth, mSurfaceHeight;
+    
+    private HandlerThread mRenderThread;
+    private Handler mRenderHandler;
+    
+    //以下字段只在渲染线程访问
+    private DropletAnimator mAnimator;
+    private FrameClock mClock;
+    /**
+     * Surface可以绘制，surfaceDestroyed返回之前由渲染线程清掉
+     */
+    private boolean mSurfaceReady;
+    private Paint mPaint;
+    private final Path mPath = new Path();
+    private final AndroidPathSink mPathSink = new AndroidPathSink(mPath);
+    private float mStrokeWidth;
+    
+    /**
+     * 投递给渲染线程的任务，提前创建好，投递时不再分配
+     */
+    private final Runnable mProgressTask = new Runnable() {
+        @Override
+        public void run() {
+            mProgressPosted.set(false);
+            if (mResetPending) {
+                mResetPending = false;
+                mClock.stop();
+                mAnimator.reset();
+                drawFrame();
+            }
+            //reset之后又来了新的进度，继续出帧应用它
+            if (mProgressDirty) {
+                mClock.start();
+            }
+        }
+    };
+    
+    private final Runnable mConfigTask = new Runnable() {
+        @Override
+        public void run() {
+            mAnimator.configure(radius, distance);
+            mAnimator.setSpring(mStiffness, mDamping);
+            drawFrame();
+        }
+    };
+    
+    private final Runnable mSurfaceTask = new Runnable() {
+        @Override
+        public void run() {
+            mSurfaceReady = true;
+            drawFrame();
+        }
+    };
+    
+    public WaterAnimSurface(Context context) {
+        this(context, null);
+    }
+    
+    public WaterAnimSurface(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+    
+    public WaterAnimSurface(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+    
+    private void init() {
+        //透明的Surface要放在窗口之上，放在下面会在窗口上挖出一块黑色
+        setZOrderOnTop(true);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mStrokeWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, getResources().getDisplayMetrics());
+    }
+    
+    /**
+     * 设置当前移动的距离，在主线程调用
+     *
+     * @param lastDistance    上一次的位置
+     * @param currentDistance 当前的位置
+     */
+    public void setDeltaDistance(float lastDistance, float currentDistance) {
+        mPendingProgress = currentDistance;
+        mProgressDirty = true;
+        postProgress();
+    }
+    
+    /**
+     * 回到初始状态，在主线程调用
+     */
+    public void reset() {
+        //在这里清掉旧的进度，reset之后到任务执行之前的进度更新不会被丢掉
+        mProgressDirty = false;
+        mPendingProgress = 0f;
+        mResetPending = true;
+        postProgress();
+    }
+    
+    /**
+     * 投递进度任务，已经有一个在排队时只更新进度，不再投递
+     */
+    private void postProgress() {
+        if (mRenderHandler != null && mProgressPosted.compareAndSet(false, true)) {
+            postToRenderThread(mProgressTask);
+        }
+    }
+    
+    public void setRadius(float radius) {
+        this.radius = radius;
+        postToRenderThread(mConfigTask);
+    }
+    
+    public void setDistance(float distance) {
+        this.distance = distance;
+        postToRenderThread(mConfigTask);
+    }
+    
+    /**
+     * 回弹弹簧的参数，见{@link DropletAnimator#setSpring(float, float)}
+     */
+    public void setSpring(float stiffness, float damping) {
+        mStiffness = stiffness;
+        mDamping = damping;
+        postToRenderThread(mConfigTask);
+    }
+    
+    /**
+     * 投递到渲染线程，渲染线程还没启动时丢弃，启动时会按最新的参数重新画一帧
+     */
+    private void postToRenderThread(Runnable task) {
+        Handler handler = mRenderHandler;
+        if (handler != null) {
+            handler.post(task);
+        }
+    }
+    
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        startRenderThread();
+    }
+    
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        mSurfaceWidth = width;
+        mSurfaceHeight = height;
+        postToRenderThread(mSurfaceTask);
+    }
+    
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        //返回之后Surface就不能再用了，必须等渲染线程停下
+        stopRenderThread();
+    }
+    
+    private void startRenderThread() {
+        if (mRenderThread != null) {
+            return;
+        }
+        mRenderThread = new HandlerThread(TAG);
+        mRenderThread.start();
+        mRenderHandler = new Handler(mRenderThread.getLooper());
+        mRenderHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                //Choreographer按线程区分，必须在渲染线程里创建帧时钟
+                mAnimator = new DropletAnimator(radius, distance);
+                mAnimator.setSpring(mStiffness, mDamping);
+                //新建的动画本来就在初始状态，线程启动前的reset和进度直接在这里应用
+                mResetPending = false;
+                mProgressDirty = false;
+                mAnimator.setProgress(mPendingProgress);
+                boolean rebounding = mAnimator.advance(0f);
+                mAnimator.prefetch();
+                mClock = new FrameClock(new FrameClock.Callback() {
+                    @Override
+                    public boolean onFrame(long frameTimeNanos, float deltaSeconds) {
+                        if (mProgressDirty) {
+                            mProgressDirty = false;
+                            mAnimator.setProgress(mPendingProgress);
+                        }
+                        boolean keepGoing = mAnimator.advance(deltaSeconds);
+                        drawFrame();
+                        return keepGoing;
+                    }
+                });
+                //启动前的进度已经到了回弹，继续出帧把回弹播完
+                if (rebounding) {
+                    mClock.start();
+                }
+            }
+        });
+    }
+    
+    /**
+     * 停止渲染线程，等它不再使用Surface之后才返回
+     */
+    private void stopRenderThread() {
+        if (mRenderThread == null) {
+            return;
+        }
+        final CountDownLatch released = new CountDownLatch(1);
+        mRenderHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mSurfaceReady = false;
+                mClock.stop();
+                mAnimator.release();
+                released.countDown();
+            }
+        });
+        try {
+            released.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mRenderThread.quit();
+        mRenderThread = null;
+        mRenderHandler = null;
+        //排队中的任务随线程一起丢掉了
+        mProgressPosted.set(false);
+    }
+    
+    /**
+     * 在渲染线程里画一帧，Surface每帧都要整体重画
+     */
+    private void drawFrame() {
+        if (!mSurfaceReady) {
+            return;
+        }
+        SurfaceHolder holder = getHolder();
+        Canvas canvas = holder.lockCanvas();
+        if (canvas == null) {
+            return;
+        }
+        try {
+            canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            float centerY = mSurfaceHeight / 2f;
+            canvas.translate(0, centerY);
+            
+            //绘制辅助线
+            mPaint.setColor(Color.GRAY);
+            mPaint.setStrokeWidth(1);
+            float r = radius;
+            float d = distance;
+            canvas.drawLine(d + 2 * r, -centerY, d + 2 * r, mSurfaceHeight - centerY, mPaint);
+            canvas.drawLine(d, -centerY, d, mSurfaceHeight - centerY, mPaint);
+            
+            //绘制贝塞尔曲线
+            mPath.rewind();
+            DropletGeometry.buildPath(mAnimator.getShape(), 0, mPathSink);
+            mPaint.setColor(Color.BLUE);
+            mPaint.setStrokeWidth(mStrokeWidth);
+            mPaint.setStyle(Paint.Style.FILL);
+            canvas.drawPath(mPath, mPaint);
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.tb.waterdrop;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewPager;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletLod;
+
+/**
+ * 多页的水滴指示器：一个控件画出所有页面的圆点和移动中的水滴，所有图形合并成一条路径一次画完
+ * <p>
+ * 水滴的形状只由ViewPager的绝对位置（position + positionOffset）决定：
+ * 位置在停靠页右边就从左往右变形，在左边就镜像，一次跨越多页时逐页依次变形，不需要为每页重新初始化。
+ */
+public class WaterIndicator extends View implements ViewPager.OnPageChangeListener {
+    private static final String TAG = "WaterIndicator";
+    /**
+     * 水滴的半径
+     */
+    private float radius = 30f;
+    /**
+     * 圆点的半径
+     */
+    private float dotRadius = 12f;
+    /**
+     * 相邻两个圆点圆心的距离，也就是水滴每一跳移动的距离
+     */
+    private float spacing = 120f;
+    /**
+     * 页数
+     */
+    private int mPageCount;
+    /**
+     * 当前的绝对位置，0～mPageCount-1
+     */
+    private float mPosition;
+    /**
+     * 上一次停靠的页面，水滴的移动方向相对它来判断
+     */
+    private int mAnchor;
+    
+    private Paint mPaint;
+    /**
+     * 所有圆点和水滴合并后的路径
+     */
+    private final Path mPath = new Path();
+    private final AndroidPathSink mPathSink = new AndroidPathSink(mPath);
+    /**
+     * 细节层次允许的误差（像素），0表示关闭，始终按原来的4段三阶曲线输出
+     */
+    private float mLodTolerance;
+    private int mLodLevel = DropletLod.CUBIC_4;
+    /**
+     * 水滴形变的几何内核，每一跳都是从一个圆点移动到相邻的圆点
+     */
+    private DropletGeometry mGeometry;
+    /**
+     * 共享的关键帧表，同样参数的指示器共用一份
+     */
+    private KeyframeShapes mShapes;
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    
+    public WaterIndicator(Context context) {
+        this(context, null);
+    }
+    
+    public WaterIndicator(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+    
+    public WaterIndicator(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+    
+    private void init() {
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mPaint.setColor(Color.BLUE);
+        mPaint.setStyle(Paint.Style.FILL);
+        mGeometry = new DropletGeometry(radius, spacing);
+        mShapes = new KeyframeShapes(mGeometry);
+    }
+    
+    public void setPageCount(int pageCount) {
+        mPageCount = Math.max(pageCount, 0);
+        mAnchor = Math.min(mAnchor, Math.max(mPageCount - 1, 0));
+        mPosition = Math.min(mPosition, Math.max(mPageCount - 1, 0));
+        requestLayout();
+        invalidate();
+    }
+    
+    public int getPageCount() {
+        return mPageCount;
+    }
+    
+    /**
+     * 直接停靠到某一页，不做动画
+     */
+    public void setCurrentPage(int page) {
+        mAnchor = clampPage(page);
+        mPosition = mAnchor;
+        invalidate();
+    }
+    
+    /**
+     * 设置绝对位置，比如ViewPager的position + positionOffset
+     */
+    public void setPosition(float position) {
+        mPosition = Math.max(0f, Math.min(position, Math.max(mPageCount - 1, 0)));
+        invalidate();
+    }
+    
+    public void setRadius(float radius) {
+        this.radius = radius;
+        mGeometry.set(radius, spacing);
+        mShapes.prefetch();
+        updateLodLevel();
+        requestLayout();
+        invalidate();
+    }
+    
+    /**
+     * 按半径和允许的误差自动选择输出的曲线段数，见{@link DropletLod#select(float, float)}
+     *
+     * @param tolerance 允许的最大误差（像素），0表示关闭
+     */
+    public void setLodTolerance(float tolerance) {
+        mLodTolerance = tolerance;
+        updateLodLevel();
+        invalidate();
+    }
+    
+    /**
+     * 当前使用的细节层次，取值见{@link DropletLod}
+     */
+    public int getLodLevel() {
+        return mLodLevel;
+    }
+    
+    private void updateLodLevel() {
+        mLodLevel = mLodTolerance > 0 ? DropletLod.select(radius, mLodTolerance) : DropletLod.CUBIC_4;
+    }
+    
+    public void setDotRadius(float dotRadius) {
+        this.dotRadius = dotRadius;
+        invalidate();
+    }
+    
+    public void setSpacing(float spacing) {
+        this.spacing = spacing;
+        mGeometry.set(radius, spacing);
+        mShapes.prefetch();
+        requestLayout();
+        invalidate();
+    }
+    
+    public void setColor(int color) {
+        mPaint.setColor(color);
+        invalidate();
+    }
+    
+    @Override
+    public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        setPosition(position + positionOffset);
+    }
+    
+    @Override
+    public void onPageSelected(int position) {
+    
+    }
+    
+    @Override
+    public void onPageScrollStateChanged(int state) {
+        if (state == ViewPager.SCROLL_STATE_IDLE) {
+            mAnchor = clampPage(Math.round(mPosition));
+        }
+    }
+    
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mShapes.prefetch();
+    }
+    
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mShapes.release();
+    }
+    
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = (int) Math.ceil(getPaddingLeft() + getPaddingRight()
+                + Math.max(mPageCount - 1, 0) * spacing + 2 * radius);
+        int height = (int) Math.ceil(getPaddingTop() + getPaddingBottom() + 2 * radius);
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+    
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mPageCount == 0) {
+            return;
+        }
+        //第一个圆点的圆心作为原点
+        canvas.translate(getPaddingLeft() + radius, getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2f);
+        
+        //非零环绕规则下，重叠部分方向相反会被挖空，圆点要和水滴保持同一个方向：
+        //水滴向右时数据点按下、右、上、左的顺序是逆时针，向左镜像后变为顺时针
+        float progress = computeDroplet();
+        Path.Direction direction = progress < 0 ? Path.Direction.CW : Path.Direction.CCW;
+        mPath.rewind();
+        for (int i = 0; i < mPageCount; i++) {
+            mPath.addCircle(i * spacing, 0, dotRadius, direction);
+        }
+        DropletLod.buildPath(mShape, 0, mLodLevel, mPathSink);
+        canvas.drawPath(mPath, mPaint);
+    }
+    
+    /**
+     * 根据绝对位置和停靠页算出当前这一跳的形状，写进mShape
+     *
+     * @return 这一跳的进度，负数表示向左
+     */
+    private float computeDroplet() {
+        int from;
+        float progress;
+        if (mPageCount == 1) {
+            from = 0;
+            progress = 0f;
+        } else if (mPosition >= mAnchor) {
+            //向右：从左边的圆点跳向右边的圆点
+            from = Math.min((int) Math.floor(mPosition), mPageCount - 2);
+            progress = mPosition - from;
+        } else {
+            //向左：从右边的圆点跳向左边的圆点，几何内核用负进度镜像
+            from = Math.max((int) Math.ceil(mPosition), 1);
+            progress = mPosition - from;
+        }
+        mShapes.shapeAt(progress, 0f, mShape, 0);
+        //几何内核的原点在起始圆的最左边，平移到起始圆点
+        float dx = from * spacing - radius;
+        for (int i = 0; i < DropletGeometry.SIZE; i += 2) {
+            mShape[i] += dx;
+        }
+        return progress;
+    }
+    
+    private int clampPage(int page) {
+        return Math.max(0, Math.min(page, Math.max(mPageCount - 1, 0)));
+    }
+}
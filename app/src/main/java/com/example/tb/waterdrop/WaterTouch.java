@@ -5,13 +5,17 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PointF;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletLod;
+import com.example.tb.waterdrop.core.DropletHitTester;
+import com.example.tb.waterdrop.core.TouchPredictor;
+
 /**
  * Created by : tb on 2017/9/1 上午11:00.
  * Description :三阶贝塞尔曲线实现的水滴效果（触摸实现）
@@ -27,25 +31,43 @@ public class WaterTouch extends View {
      */
     private float centerX, centerY;
     /**
-     * 一个常量，用来计算绘制圆形贝塞尔曲线控制点的位置
+     * 绘制圆的画笔
      */
-    private static final float C = 0.551915024494f;
+    private Paint mPaint;
     /**
-     * 圆形的控制点与数据点的差值
+     * 水滴的路径，每帧rewind后复用，不再重新分配
      */
-    private float mDelta = radius * C;
+    private final Path mPath = new Path();
+    private final AndroidPathSink mPathSink = new AndroidPathSink(mPath);
     /**
-     * 绘制圆的画笔
+     * 细节层次允许的误差（像素），0表示关闭，始终按原来的4段三阶曲线输出
      */
-    private Paint mPaint;
+    private float mLodTolerance;
+    private int mLodLevel = DropletLod.CUBIC_4;
+    /**
+     * 画笔宽度，只在初始化时换算一次
+     */
+    private float mStrokeWidth;
+    /**
+     * 水滴形变的几何内核，整体移动距离为半径的三倍
+     */
+    private DropletGeometry mGeometry;
+    /**
+     * 共享的关键帧表，就绪后每帧查表
+     */
+    private KeyframeShapes mShapes;
+    /**
+     * 当前形状：逆时针4个数据点和8个控制点，布局见{@link DropletGeometry}
+     */
+    private final float[] mShape = new float[DropletGeometry.SIZE];
     /**
-     * 逆时针记录绘制圆形的四个数据点
+     * 只重绘水滴覆盖的区域
      */
-    private PointF[] mData = new PointF[4];
+    private DirtyRectInvalidator mInvalidator;
     /**
-     * 逆时针记录绘制圆形的八个控制点
+     * 性能统计，默认关闭
      */
-    private PointF[] mCtrl = new PointF[8];
+    private DropletMetrics mMetrics;
     
     public WaterTouch(Context context) {
         this(context, null);
@@ -63,32 +85,38 @@ public class WaterTouch extends View {
     private void init() {
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
-        initDataPoints();
-        initCtrlPoints();
-    }
-    
-    private void initDataPoints() {
-        for (int i = 0; i < 4; i++) {
-            mData[i] = new PointF();
-        }
-        mData[0].set(0, radius);
-        mData[1].set(radius, 0);
-        mData[2].set(0, -radius);
-        mData[3].set(-radius, 0);
-    }
-    
-    private void initCtrlPoints() {
-        for (int i = 0; i < 8; i++) {
-            mCtrl[i] = new PointF();
-        }
-        mCtrl[0].set(mData[0].x + mDelta, mData[0].y);
-        mCtrl[1].set(mData[1].x, mData[1].y + mDelta);
-        mCtrl[2].set(mData[1].x, mData[1].y - mDelta);
-        mCtrl[3].set(mData[2].x + mDelta, mData[2].y);
-        mCtrl[4].set(mData[2].x - mDelta, mData[2].y);
-        mCtrl[5].set(mData[3].x, mData[3].y - mDelta);
-        mCtrl[6].set(mData[3].x, mData[3].y + mDelta);
-        mCtrl[7].set(mData[0].x - mDelta, mData[0].y);
+        mStrokeWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, getResources().getDisplayMetrics());
+        mGeometry = new DropletGeometry(radius, 3 * radius);
+        mGeometry.shapeAt(0f, mShape);
+        mShapes = new KeyframeShapes(mGeometry);
+        mInvalidator = new DirtyRectInvalidator(this);
+        mMetrics = new DropletMetrics(getContext());
+        mClock = new FrameClock(new FrameClock.Callback() {
+            @Override
+            public boolean onFrame(long frameTimeNanos, float deltaSeconds) {
+                mMetrics.onFrame(frameTimeNanos);
+                long start = mMetrics.begin();
+                DropletTrace.beginSection("WaterTouch.update");
+                //一帧只按最新的采样计算一次形状，开启预测时画在预测的位置，新的真实采样到来后自动修正；
+                //抬起后不再预测，最后一帧落回抬起的位置，下一次按下也从这里继续
+                float x = mPredictionEnabled && !mTouchUp ? mPredictor.predict() : mTouchX;
+                float progress = progressAt(x);
+                mShapes.shapeAt(progress, 0f, mShape, 0);
+                mProgress = Math.max(-1f, Math.min(progress, 1f));
+                STATUS = mGeometry.statusAt(progress);
+                mInvalidator.invalidate(mShape, centerX - radius, centerY);
+                DropletTrace.endSection();
+                mMetrics.onInvalidate();
+                mMetrics.endUpdate(start);
+                if (DropletTrace.isEnabled(frameTimeNanos)) {
+                    DropletTrace.counter("WaterTouch.status", STATUS);
+                    //进度放大到千分之一
+                    DropletTrace.counter("WaterTouch.progress", (int) (progress * 1000));
+                    DropletTrace.counter("WaterTouch.invalidates", mInvalidator.getInvalidateCount());
+                }
+                return false;
+            }
+        });
     }
     
     @Override
@@ -96,160 +124,220 @@ public class WaterTouch extends View {
         super.onSizeChanged(w, h, oldw, oldh);
         centerX = radius;
         centerY = h / 2f;
+        mInvalidator.invalidateAll(mShape, centerX - radius, centerY);
     }
     
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        long start = mMetrics.begin();
+        DropletTrace.beginSection("WaterTouch.draw");
         
-        canvas.translate(centerX, centerY); // 将坐标系移动到画布中央
-        
-        //绘制数据点和控制点
-        mPaint.setColor(Color.GRAY);
-        mPaint.setStrokeWidth(20);
-        for (int i = 0; i < mData.length; i++) {
-//            canvas.drawPoint(mData[i].x, mData[i].y, mPaint);
-        }
-        for (int i = 0; i < mCtrl.length; i++) {
-//            canvas.drawPoint(mCtrl[i].x, mCtrl[i].y, mPaint);
-        }
-        
-        // 绘制辅助线
-        mPaint.setStrokeWidth(4);
-//        canvas.drawLine(mData[0].x, mData[0].y, mCtrl[0].x, mCtrl[0].y, mPaint);
-//        canvas.drawLine(mData[0].x, mData[0].y, mCtrl[7].x, mCtrl[7].y, mPaint);
-//
-//        canvas.drawLine(mData[1].x, mData[1].y, mCtrl[1].x, mCtrl[1].y, mPaint);
-//        canvas.drawLine(mData[1].x, mData[1].y, mCtrl[2].x, mCtrl[2].y, mPaint);
-//
-//        canvas.drawLine(mData[2].x, mData[2].y, mCtrl[3].x, mCtrl[3].y, mPaint);
-//        canvas.drawLine(mData[2].x, mData[2].y, mCtrl[4].x, mCtrl[4].y, mPaint);
-//
-//        canvas.drawLine(mData[3].x, mData[3].y, mCtrl[5].x, mCtrl[5].y, mPaint);
-//        canvas.drawLine(mData[3].x, mData[3].y, mCtrl[6].x, mCtrl[6].y, mPaint);
+        //几何内核的原点在圆的最左边，这里让圆心落在(centerX, centerY)
+        canvas.translate(centerX - radius, centerY);
         
         //绘制贝塞尔曲线
-        Path path = new Path();
-        path.moveTo(mData[0].x, mData[0].y);
-        path.cubicTo(mCtrl[0].x, mCtrl[0].y, mCtrl[1].x, mCtrl[1].y, mData[1].x, mData[1].y);
-        path.cubicTo(mCtrl[2].x, mCtrl[2].y, mCtrl[3].x, mCtrl[3].y, mData[2].x, mData[2].y);
-        path.cubicTo(mCtrl[4].x, mCtrl[4].y, mCtrl[5].x, mCtrl[5].y, mData[3].x, mData[3].y);
-        path.cubicTo(mCtrl[6].x, mCtrl[6].y, mCtrl[7].x, mCtrl[7].y, mData[0].x, mData[0].y);
+        DropletTrace.beginSection("WaterTouch.buildPath");
+        mPath.rewind();
+        DropletLod.buildPath(mShape, 0, mLodLevel, mPathSink);
+        DropletTrace.endSection();
         
         mPaint.setColor(Color.BLUE);
-        mPaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, getResources().getDisplayMetrics()));
+        mPaint.setStrokeWidth(mStrokeWidth);
         mPaint.setStyle(Paint.Style.FILL);
-        canvas.drawPath(path, mPaint);
+        canvas.drawPath(mPath, mPaint);
+        DropletTrace.endSection();
+        mMetrics.endDraw(start);
     }
     
-    private float mLastX;
     private float mFirstX;
     /**
-     * 注释仅代表向右，左边相反即可（0-5，1-4，2-3状态都是对应的）
-     * 0:初始状态
-     * 1:右半部分向右拉伸
-     * 2:逐渐变为椭圆状态
-     * 3:逐渐变为圆形状态，同时整体右移
-     * 4:左半部分向右缩减
-     * 5:恢复初始状态
+     * 当前画出的形状对应的进度，[-1, 1]，新的按下从这里继续形变
+     */
+    private float mProgress;
+    /**
+     * 最新一个触摸采样的x坐标
+     */
+    private float mTouchX;
+    /**
+     * 当前所处的形变阶段，取值见{@link DropletGeometry}的STATUS_*常量
      */
     private int STATUS = 0;
+    /**
+     * 把同一帧内的所有触摸采样合并成一次形状计算和重绘
+     */
+    private FrameClock mClock;
+    /**
+     * 手指位置预测，减小水滴落后于手指的感觉
+     */
+    private final TouchPredictor mPredictor = new TouchPredictor();
+    private boolean mPredictionEnabled;
+    /**
+     * 手指已经抬起，之后的帧画在最后一个真实采样的位置
+     */
+    private boolean mTouchUp;
+    /**
+     * 判断按下的点是否落在水滴上
+     */
+    private final DropletHitTester mHitTester = new DropletHitTester();
     
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
-                STATUS = 0;
-                mLastX = event.getX();
-                mFirstX = event.getX();
+                //只响应落在水滴上的按下，其余的交给下层的控件；形状没变时不会重新拆分曲线
+                mHitTester.setShape(mShape, 0);
+                if (!mHitTester.contains(event.getX() - (centerX - radius), event.getY() - centerY)) {
+                    return false;
+                }
+                STATUS = mGeometry.statusAt(mProgress);
+                //起点往回推，让按下的位置对应当前的进度，水滴从上一次拖动停下的形状继续变化
+                mTouchX = event.getX();
+                mFirstX = mTouchX - mProgress * 4 * radius;
+                mTouchUp = false;
+                mPredictor.reset();
+                mPredictor.addSample(event.getEventTime(), mTouchX);
+                mMetrics.startAnimation();
                 break;
             case MotionEvent.ACTION_MOVE:
-                //总体移动距离为半径的三倍
-                float deltaX = event.getX() - mLastX;
-                mLastX = event.getX();
-                
-                if (event.getX() - mFirstX <= radius) {
-                    STATUS = 1;
-                } else if (event.getX() - mFirstX <= 2 * radius) {
-                    STATUS = 2;
-                } else if (event.getX() - mFirstX <= 3 * radius) {
-                    STATUS = 3;
-                } else if (event.getX() - mFirstX <= 4 * radius) {
-                    STATUS = 4;
-                } else {
-                    STATUS = 5;
-                }
-                if (STATUS == 1) {
-                    //最右边的一个数据点和两个控制点同时右移
-                    mData[1].x += deltaX;
-                    mCtrl[1].x += deltaX;
-                    mCtrl[2].x += deltaX;
-                }
-                if (STATUS == 2) {
-                    //逐渐拉伸为椭圆状态
-                    //mDelta的值不断增加但不超过半径的四分之三
-                    if (mDelta < radius * 3f / 4f) {
-                        mDelta += deltaX / 5f;
-                        initCtrlPoints();
-                    }
-                    
-                    //中间的两个数据点和4个控制点同时右移
-                    mData[0].x += deltaX;
-                    mData[2].x += deltaX;
-                    
-                    mCtrl[0].x += deltaX;
-                    mCtrl[7].x += deltaX;
-                    mCtrl[3].x += deltaX;
-                    mCtrl[4].x += deltaX;
-                    
-                    //最右边的一个数据点和两个控制点同时右移
-                    mData[1].x += deltaX;
-                    mCtrl[1].x += deltaX;
-                    mCtrl[2].x += deltaX;
+                //高采样率的触摸屏会把多个采样打包在一个事件里，按时间顺序把历史采样喂给预测器，
+                //形状只取决于最后一个采样，在下一帧统一计算
+                final int historySize = event.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    onTouchSample(event.getHistoricalEventTime(h), event.getHistoricalX(h));
                 }
-                if (STATUS == 3) {
-                    //逐渐恢复圆形
-                    //mDelta的值不断减少直至恢复为初始值
-                    if (mDelta > radius * C) {
-                        mDelta -= deltaX / 5f;
-                        initCtrlPoints();
-                    } else if (mDelta < radius * C) {
-                        mDelta = radius * C;
-                        initCtrlPoints();
-                    }
-                    
-                    //最左边的一个数据点和两个控制点同时2倍速度右移
-                    mData[3].x += 2 * deltaX;
-                    mCtrl[5].x += 2 * deltaX;
-                    mCtrl[6].x += 2 * deltaX;
-                    
-                    //中间的两个数据点和4个控制点同时2倍速度右移
-                    mData[0].x += 2 * deltaX;
-                    mData[2].x += 2 * deltaX;
-                    
-                    mCtrl[0].x += 2 * deltaX;
-                    mCtrl[7].x += 2 * deltaX;
-                    mCtrl[3].x += 2 * deltaX;
-                    mCtrl[4].x += 2 * deltaX;
-                    
-                    //最右边的一个数据点和两个控制点同时右移
-                    mData[1].x += deltaX;
-                    mCtrl[1].x += deltaX;
-                    mCtrl[2].x += deltaX;
-                }
-                if (STATUS == 4) {
-                    //最左边的一个数据点和两个控制点同时右移
-                    mData[3].x += deltaX;
-                    mCtrl[5].x += deltaX;
-                    mCtrl[6].x += deltaX;
-                }
-                postInvalidate();
+                onTouchSample(event.getEventTime(), event.getX());
+                //已经请求了下一帧就不会重复请求，一帧最多重绘一次
+                mClock.start();
                 break;
             case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                //抬起的采样同样要修正预测，否则水滴停在预测冲过头的位置
+                onTouchSample(event.getEventTime(), event.getX());
+                mTouchUp = true;
+                mClock.start();
+                mMetrics.endAnimation();
+                break;
             default:
                 break;
         }
         return true;
     }
     
+    private void onTouchSample(long time, float x) {
+        mTouchX = x;
+        mPredictor.addSample(time, x);
+    }
+    
+    /**
+     * 手指移动半径的四倍完成整个形变，和原先的触摸阈值一致
+     */
+    private float progressAt(float x) {
+        return (x - mFirstX) / (4 * radius);
+    }
+    
+    /**
+     * 按半径和允许的误差自动选择输出的曲线段数，见{@link DropletLod#select(float, float)}
+     *
+     * @param tolerance 允许的最大误差（像素），0表示关闭
+     */
+    public void setLodTolerance(float tolerance) {
+        mLodTolerance = tolerance;
+        updateLodLevel();
+        invalidate();
+    }
+    
+    /**
+     * 当前使用的细节层次，取值见{@link DropletLod}
+     */
+    public int getLodLevel() {
+        return mLodLevel;
+    }
+    
+    private void updateLodLevel() {
+        mLodLevel = mLodTolerance > 0 ? DropletLod.select(radius, mLodTolerance) : DropletLod.CUBIC_4;
+    }
+    
+    /**
+     * 是否按预测的手指位置绘制，默认关闭
+     */
+    public void setPredictionEnabled(boolean enabled) {
+        mPredictionEnabled = enabled;
+    }
+    
+    /**
+     * 预测的时间提前量，一般取一帧加上输入管线的延迟
+     *
+     * @param millis 毫秒
+     */
+    public void setPredictionHorizon(float millis) {
+        mPredictor.setHorizonMillis(millis);
+    }
+    
+    /**
+     * 平均预测误差（像素），用于按机型调整提前量
+     */
+    public float getAveragePredictionError() {
+        return mPredictor.getAverageError();
+    }
+    
+    public void resetPredictionError() {
+        mPredictor.resetError();
+    }
+    
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mShapes.prefetch();
+    }
+    
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mClock.stop();
+        mShapes.release();
+    }
+    
+    /**
+     * 性能统计，调用{@link DropletMetrics#setEnabled(boolean)}开启
+     */
+    public DropletMetrics getMetrics() {
+        return mMetrics;
+    }
+    
+    /**
+     * 最近一次重绘的像素个数。API 21起开启硬件加速时脏区不起作用，这里是整个控件的面积，
+     * 见{@link DirtyRectInvalidator#getLastInvalidatedPixels()}
+     */
+    public long getLastInvalidatedPixels() {
+        return mInvalidator.getLastInvalidatedPixels();
+    }
+    
+    /**
+     * 累计重绘的像素个数，硬件加速时同样按整个控件计算
+     */
+    public long getTotalInvalidatedPixels() {
+        return mInvalidator.getTotalInvalidatedPixels();
+    }
+    
+    /**
+     * 累计重绘的次数
+     */
+    public int getInvalidateCount() {
+        return mInvalidator.getInvalidateCount();
+    }
+    
+    /**
+     * 驱动形状更新的帧时钟，测试里直接调用{@link FrameClock#doFrame(long)}模拟vsync
+     */
+    FrameClock getFrameClock() {
+        return mClock;
+    }
+    
+    /**
+     * 当前形状，布局见{@link DropletGeometry}，只读
+     */
+    float[] getShape() {
+        return mShape;
+    }
 }
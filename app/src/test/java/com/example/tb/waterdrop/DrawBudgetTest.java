@@ -0,0 +1,258 @@
+package com.example.tb.waterdrop;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按脚本驱动四个控件，每帧检查绘制预算：最多一次drawPath、路径段数固定、稳定后不再创建Path
+ * <p>
+ * 内存分配分两部分检查：onDraw用ThreadMXBean统计线程实际分配的字节数，和同样次数的空帧比较，必须完全相同；
+ * 触摸和帧回调这一段只统计Path的创建。Robolectric的Choreographer每投递一次帧回调都会在调度器里分配对象，
+ * 这一段的字节数没法和应用自己的分配分开，真机上的完整检查见androidTest的DrawAllocationTest
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25, shadows = {ShadowCountingPath.class})
+public class DrawBudgetTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    private static final long FRAME_MILLIS = 16;
+    /**
+     * 统计分配时的帧数，之前先画同样多帧预热，反射调用onDraw在第一次生成访问器时会分配
+     */
+    private static final int ALLOCATION_FRAMES = 50;
+    
+    private static final Method ON_DRAW;
+    
+    static {
+        try {
+            ON_DRAW = View.class.getDeclaredMethod("onDraw", Canvas.class);
+            ON_DRAW.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+    
+    private Activity mActivity;
+    private final RecordingCanvas mCanvas = new RecordingCanvas();
+    /**
+     * 反射调用onDraw的参数，提前创建好，调用时不再分配
+     */
+    private final Object[] mDrawArgs = {mCanvas};
+    
+    @Before
+    public void setUp() throws Exception {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        //帧回调默认在投递时立即执行，改成等一个vsync，一帧内的多次更新才会合并
+        ShadowChoreographer.setPostFrameCallbackDelay((int) FRAME_MILLIS);
+    }
+    
+    @Test
+    public void quadToDrawsOneQuad() throws Exception {
+        QuadTo view = layout(new QuadTo(mActivity));
+        int created = ShadowCountingPath.sCreated;
+        for (int i = 0; i < 20; i++) {
+            view.onTouchEvent(motion(MotionEvent.ACTION_MOVE, 100 + 40 * i, 50 + 10 * i));
+            draw(view);
+            assertEquals(1, mCanvas.drawPathCount);
+            assertEquals(1, mCanvas.pathQuads);
+            //moveTo + quadTo
+            assertEquals(2, mCanvas.pathSegments);
+            assertEquals(2, mCanvas.drawLineCount);
+            assertEquals(3, mCanvas.drawPointCount);
+        }
+        assertNoNewPath(created);
+        assertDrawDoesNotAllocate(view);
+    }
+    
+    @Test
+    public void cubicToDrawsOneCubic() throws Exception {
+        CubicTo view = layout(new CubicTo(mActivity));
+        int created = ShadowCountingPath.sCreated;
+        for (int i = 0; i < 20; i++) {
+            view.onTouchEvent(motion(MotionEvent.ACTION_MOVE, 100 + 40 * i, 50 + 10 * i));
+            draw(view);
+            assertEquals(1, mCanvas.drawPathCount);
+            assertEquals(1, mCanvas.pathCubics);
+            //moveTo + cubicTo
+            assertEquals(2, mCanvas.pathSegments);
+            assertEquals(3, mCanvas.drawLineCount);
+            assertEquals(4, mCanvas.drawPointCount);
+        }
+        assertNoNewPath(created);
+        assertDrawDoesNotAllocate(view);
+    }
+    
+    @Test
+    public void waterTouchDrawsOneDroplet() throws Exception {
+        WaterTouch view = layout(new WaterTouch(mActivity));
+        int created = ShadowCountingPath.sCreated;
+        //按在水滴中心，向右拖过整个形变
+        assertTrue(view.onTouchEvent(motion(MotionEvent.ACTION_DOWN, 200, HEIGHT / 2)));
+        for (int i = 1; i <= 60; i++) {
+            view.onTouchEvent(motion(MotionEvent.ACTION_MOVE, 200 + 14 * i, HEIGHT / 2));
+            frame();
+            draw(view);
+            assertDroplet(0);
+        }
+        assertDrawDoesNotAllocate(view);
+        view.onTouchEvent(motion(MotionEvent.ACTION_UP, 200 + 14 * 60, HEIGHT / 2));
+        assertNoNewPath(created);
+    }
+    
+    @Test
+    public void waterTouchIgnoresDownOutsideDroplet() throws Exception {
+        WaterTouch view = layout(new WaterTouch(mActivity));
+        int invalidates = view.getInvalidateCount();
+        assertFalse(view.onTouchEvent(motion(MotionEvent.ACTION_DOWN, WIDTH - 10, 10)));
+        frame();
+        assertEquals(invalidates, view.getInvalidateCount());
+    }
+    
+    @Test
+    public void waterAnimDrawsOneDropletWhileScrolling() throws Exception {
+        WaterAnim view = layout(new WaterAnim(mActivity));
+        int created = ShadowCountingPath.sCreated;
+        for (int i = 1; i <= 50; i++) {
+            view.setDeltaDistance(0, i / 50f);
+            frame();
+            draw(view);
+            //两条辅助线加水滴
+            assertDroplet(2);
+        }
+        assertNoNewPath(created);
+        assertDrawDoesNotAllocate(view);
+    }
+    
+    @Test
+    public void waterAnimMergesUpdatesWithinAFrame() throws Exception {
+        WaterAnim view = layout(new WaterAnim(mActivity));
+        view.getMetrics().setEnabled(true);
+        for (int i = 0; i < 10; i++) {
+            //ViewPager一帧内回调多次
+            view.setDeltaDistance(0, i / 20f);
+            view.setDeltaDistance(0, i / 20f + 0.01f);
+            view.setDeltaDistance(0, i / 20f + 0.02f);
+            frame();
+        }
+        DropletMetrics metrics = view.getMetrics();
+        assertEquals(30, metrics.getProgressUpdates());
+        assertEquals(10, metrics.getAppliedUpdates());
+        assertEquals(20, metrics.getMergedUpdates());
+    }
+    
+    @Test
+    public void waterAnimStopsFramesAtRest() throws Exception {
+        WaterAnim view = layout(new WaterAnim(mActivity));
+        int created = ShadowCountingPath.sCreated;
+        view.setDeltaDistance(0, 1f);
+        //回弹直到弹簧静止，不再请求新帧
+        int frames = 0;
+        int invalidates = -1;
+        while (invalidates != view.getInvalidateCount()) {
+            invalidates = view.getInvalidateCount();
+            frame();
+            draw(view);
+            assertDroplet(2);
+            assertTrue("rebound never settled", ++frames < 600);
+        }
+        //静止之后再过一秒也没有任何重绘
+        for (int i = 0; i < 60; i++) {
+            frame();
+        }
+        assertEquals(invalidates, view.getInvalidateCount());
+        assertNoNewPath(created);
+        assertDrawDoesNotAllocate(view);
+    }
+    
+    /**
+     * 只说明没有再创建Path，其他对象的分配不在这里统计
+     */
+    private static void assertNoNewPath(int created) {
+        assertEquals("Path allocations", created, ShadowCountingPath.sCreated);
+    }
+    
+    /**
+     * 连续画{@link #ALLOCATION_FRAMES}帧，线程分配的字节数必须和同样次数的空帧相同
+     */
+    private void assertDrawDoesNotAllocate(View view) {
+        for (int i = 0; i < ALLOCATION_FRAMES; i++) {
+            draw(view);
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ALLOCATION_FRAMES; i++) {
+            mCanvas.clear();
+        }
+        long empty = threads.getThreadAllocatedBytes(thread) - start;
+        start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ALLOCATION_FRAMES; i++) {
+            draw(view);
+        }
+        long drawn = threads.getThreadAllocatedBytes(thread) - start;
+        assertEquals(view.getClass().getSimpleName() + ".onDraw allocated bytes", empty, drawn);
+    }
+    
+    private void assertDroplet(int lines) {
+        assertEquals(1, mCanvas.drawPathCount);
+        //moveTo + 4段cubicTo + close
+        assertEquals(4, mCanvas.pathCubics);
+        assertEquals(6, mCanvas.pathSegments);
+        assertEquals(lines, mCanvas.drawLineCount);
+        assertEquals(1 + lines, mCanvas.getOpCount());
+    }
+    
+    private <T extends View> T layout(T view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        //第一帧用来创建所有复用的对象
+        draw(view);
+        return view;
+    }
+    
+    /**
+     * Robolectric的ShadowView.draw只画背景，不会调用onDraw，这里直接调用onDraw
+     */
+    private void draw(View view) {
+        mCanvas.clear();
+        try {
+            ON_DRAW.invoke(view, mDrawArgs);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+    
+    /**
+     * 推进一个vsync，执行Choreographer的帧回调
+     */
+    private void frame() {
+        Robolectric.getForegroundThreadScheduler().advanceBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    private static MotionEvent motion(int action, float x, float y) {
+        long now = SystemClock.uptimeMillis();
+        return MotionEvent.obtain(now, now, action, x, y, 0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.tb.waterdrop;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import org.robolectric.shadow.api.Shadow;
+
+/**
+ * 只记录绘制操作的Canvas：按类型计数，drawPath时记下路径的段数，用来检查每帧的绘制预算
+ */
+public class RecordingCanvas extends Canvas {
+    int drawPathCount;
+    int drawLineCount;
+    int drawPointCount;
+    /**
+     * 其余的绘制操作：圆、矩形、位图、填充颜色
+     */
+    int otherCount;
+    /**
+     * 所有drawPath的路径段数之和
+     */
+    int pathSegments;
+    int pathCubics;
+    int pathQuads;
+    
+    public RecordingCanvas() {
+        super(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+    }
+    
+    /**
+     * 每帧绘制之前清零
+     */
+    void clear() {
+        drawPathCount = 0;
+        drawLineCount = 0;
+        drawPointCount = 0;
+        otherCount = 0;
+        pathSegments = 0;
+        pathCubics = 0;
+        pathQuads = 0;
+    }
+    
+    /**
+     * 本帧所有的绘制操作数
+     */
+    int getOpCount() {
+        return drawPathCount + drawLineCount + drawPointCount + otherCount;
+    }
+    
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        drawPathCount++;
+        ShadowCountingPath shadow = Shadow.extract(path);
+        pathSegments += shadow.getSegmentCount();
+        pathCubics += shadow.cubics;
+        pathQuads += shadow.quads;
+    }
+    
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        drawLineCount++;
+    }
+    
+    @Override
+    public void drawPoint(float x, float y, Paint paint) {
+        drawPointCount++;
+    }
+    
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        otherCount++;
+    }
+    
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        otherCount++;
+    }
+    
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        otherCount++;
+    }
+    
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+        otherCount++;
+    }
+    
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        otherCount++;
+    }
+    
+    @Override
+    public void drawColor(int color) {
+        otherCount++;
+    }
+    
+    @Override
+    public void drawColor(int color, PorterDuff.Mode mode) {
+        otherCount++;
+    }
+}
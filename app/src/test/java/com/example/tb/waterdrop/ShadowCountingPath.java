@@ -0,0 +1,92 @@
+package com.example.tb.waterdrop;
+
+import android.graphics.Path;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadow.api.Shadow;
+
+/**
+ * 只计数的Path影子：统计每条路径的各种段数和全局创建的Path个数，本身不分配内存
+ */
+@Implements(Path.class)
+public class ShadowCountingPath {
+    /**
+     * 进程内累计创建的Path个数，不会清零，用例比较前后的差值
+     */
+    static int sCreated;
+    
+    int moves;
+    int lines;
+    int quads;
+    int cubics;
+    int closes;
+    
+    @Implementation
+    public void __constructor__() {
+        sCreated++;
+    }
+    
+    @Implementation
+    public void __constructor__(Path src) {
+        sCreated++;
+        if (src != null) {
+            ShadowCountingPath other = Shadow.extract(src);
+            moves = other.moves;
+            lines = other.lines;
+            quads = other.quads;
+            cubics = other.cubics;
+            closes = other.closes;
+        }
+    }
+    
+    @Implementation
+    public void reset() {
+        clear();
+    }
+    
+    @Implementation
+    public void rewind() {
+        clear();
+    }
+    
+    @Implementation
+    public void moveTo(float x, float y) {
+        moves++;
+    }
+    
+    @Implementation
+    public void lineTo(float x, float y) {
+        lines++;
+    }
+    
+    @Implementation
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        quads++;
+    }
+    
+    @Implementation
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        cubics++;
+    }
+    
+    @Implementation
+    public void close() {
+        closes++;
+    }
+    
+    /**
+     * 所有段数之和，moveTo和close也算
+     */
+    int getSegmentCount() {
+        return moves + lines + quads + cubics + closes;
+    }
+    
+    private void clear() {
+        moves = 0;
+        lines = 0;
+        quads = 0;
+        cubics = 0;
+        closes = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.BezierFlattener;
+import com.example.tb.waterdrop.core.DropletGeometry;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应细分和前向差分两种拆分方式在不同容差下的耗时和段数
+ * <p>
+ * 三阶曲线取WaterAnim形变到一半时水滴的4段曲线，二阶曲线取QuadTo里起点、控制点、终点的典型位置。
+ * 结果里的segments就是拆出来的段数（每次调用都一样，直接覆盖）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BezierFlattenerBenchmark {
+    
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Segments {
+        public int segments;
+    }
+    
+    @Param({"0.05", "0.25", "1"})
+    public float tolerance;
+    
+    @Param({"50", "200"})
+    public float radius;
+    
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    private final float[] mQuad = new float[6];
+    /**
+     * 4段曲线的结果依次存放
+     */
+    private final float[] mOut = new float[4 * 2 * BezierFlattener.MAX_SEGMENTS];
+    
+    @Setup
+    public void setup() {
+        new DropletGeometry(radius, 3 * radius).shapeAt(0.5f, mShape);
+        //QuadTo：起点和终点相距4倍半径，控制点拉到一侧
+        mQuad[0] = 0;
+        mQuad[1] = 0;
+        mQuad[2] = 2 * radius;
+        mQuad[3] = -3 * radius;
+        mQuad[4] = 4 * radius;
+        mQuad[5] = 0;
+    }
+    
+    /**
+     * 水滴的4段三阶曲线，自适应细分
+     */
+    @Benchmark
+    public float[] dropletAdaptive(Segments counter) {
+        float[] s = mShape;
+        int n = 0;
+        int o = 0;
+        for (int i = 0; i < 4; i++) {
+            int d0 = DropletGeometry.DATA_OFFSET + 2 * i;
+            int d1 = DropletGeometry.DATA_OFFSET + 2 * ((i + 1) % 4);
+            int c = DropletGeometry.CTRL_OFFSET + 4 * i;
+            int count = BezierFlattener.adaptiveCubic(s[d0], s[d0 + 1], s[c], s[c + 1], s[c + 2], s[c + 3],
+                    s[d1], s[d1 + 1], tolerance, mOut, o);
+            n += count;
+            o += 2 * count;
+        }
+        counter.segments = n;
+        return mOut;
+    }
+    
+    /**
+     * 水滴的4段三阶曲线，按Wang公式算段数后前向差分
+     */
+    @Benchmark
+    public float[] dropletForward(Segments counter) {
+        float[] s = mShape;
+        int n = 0;
+        int o = 0;
+        for (int i = 0; i < 4; i++) {
+            int d0 = DropletGeometry.DATA_OFFSET + 2 * i;
+            int d1 = DropletGeometry.DATA_OFFSET + 2 * ((i + 1) % 4);
+            int c = DropletGeometry.CTRL_OFFSET + 4 * i;
+            int count = BezierFlattener.cubicSegmentCount(s[d0], s[d0 + 1], s[c], s[c + 1], s[c + 2], s[c + 3],
+                    s[d1], s[d1 + 1], tolerance);
+            BezierFlattener.forwardCubic(s[d0], s[d0 + 1], s[c], s[c + 1], s[c + 2], s[c + 3],
+                    s[d1], s[d1 + 1], count, mOut, o);
+            n += count;
+            o += 2 * count;
+        }
+        counter.segments = n;
+        return mOut;
+    }
+    
+    @Benchmark
+    public float[] quadAdaptive(Segments counter) {
+        float[] q = mQuad;
+        counter.segments = BezierFlattener.adaptiveQuad(q[0], q[1], q[2], q[3], q[4], q[5], tolerance, mOut, 0);
+        return mOut;
+    }
+    
+    @Benchmark
+    public float[] quadForward(Segments counter) {
+        float[] q = mQuad;
+        int count = BezierFlattener.quadSegmentCount(q[0], q[1], q[2], q[3], q[4], q[5], tolerance);
+        counter.segments = BezierFlattener.forwardQuad(q[0], q[1], q[2], q[3], q[4], q[5], count, mOut, 0);
+        return mOut;
+    }
+}
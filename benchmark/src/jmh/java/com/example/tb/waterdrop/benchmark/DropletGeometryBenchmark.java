@@ -0,0 +1,161 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletKeyframes;
+import com.example.tb.waterdrop.core.PathBuffer;
+import com.example.tb.waterdrop.core.TouchPredictor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 水滴几何计算和路径构建的耗时，每次调用相当于一帧
+ * <p>
+ * 屏幕固定按{@link #FRAME_HZ}出帧，一次翻页动画固定{@link #ANIMATION_SECONDS}秒。
+ * 输入频率只影响触摸：{@link Input#hz}的采样按到达时间折进各帧，一帧先逐个处理本帧的采样，再统一算一次形状，和WaterTouch一致。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DropletGeometryBenchmark {
+    /**
+     * 一次完整形变持续的时间
+     */
+    private static final float ANIMATION_SECONDS = 0.3f;
+    /**
+     * 屏幕的刷新率
+     */
+    private static final int FRAME_HZ = 60;
+    
+    /**
+     * 触摸输入：按hz产生采样，每帧收到hz / FRAME_HZ个，除不尽时各帧轮流多收一个
+     */
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"60", "90", "120"})
+        public int hz;
+        
+        final TouchPredictor predictor = new TouchPredictor();
+        /**
+         * 采样之间推进的进度
+         */
+        float step;
+        /**
+         * 还没送达的采样个数，带小数部分
+         */
+        float owed;
+        double timeMillis;
+        float progress;
+        
+        @Setup
+        public void setup() {
+            step = 1f / (hz * ANIMATION_SECONDS);
+            owed = 0f;
+            timeMillis = 0;
+            progress = 0f;
+            predictor.reset();
+        }
+    }
+    
+    @Param({"25", "50", "200"})
+    public float radius;
+    
+    @Param({"150", "600", "1800"})
+    public float distance;
+    
+    private DropletGeometry mGeometry;
+    private DropletKeyframes mKeyframes;
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    private final PathBuffer mPath = new PathBuffer();
+    private float mStep;
+    private float mProgress;
+    
+    @Setup
+    public void setup() {
+        mGeometry = new DropletGeometry(radius, distance);
+        mKeyframes = DropletKeyframes.sample(mGeometry);
+        mStep = 1f / (FRAME_HZ * ANIMATION_SECONDS);
+        mProgress = 0f;
+    }
+    
+    /**
+     * 翻页时WaterAnim每帧的几何计算：阶段判断和12个点
+     */
+    @Benchmark
+    public float[] animFrameShape() {
+        float progress = nextProgress();
+        mGeometry.statusAt(progress);
+        return mGeometry.shapeAt(progress, mShape);
+    }
+    
+    /**
+     * 关键帧表就绪后每帧的几何计算：查表插值
+     */
+    @Benchmark
+    public float[] animFrameKeyframes() {
+        return mKeyframes.shapeAt(nextProgress(), 0f, mShape, 0);
+    }
+    
+    /**
+     * 翻页时WaterAnim每帧的全部工作：几何计算加上4段三阶贝塞尔曲线的路径
+     */
+    @Benchmark
+    public PathBuffer animFrameShapeAndPath() {
+        float progress = nextProgress();
+        mGeometry.statusAt(progress);
+        mGeometry.shapeAt(progress, mShape);
+        mPath.reset();
+        DropletGeometry.buildPath(mShape, 0, mPath);
+        return mPath;
+    }
+    
+    /**
+     * 只构建路径
+     */
+    @Benchmark
+    public PathBuffer buildPath() {
+        mPath.reset();
+        DropletGeometry.buildPath(mShape, 0, mPath);
+        return mPath;
+    }
+    
+    /**
+     * WaterTouch开启预测时一帧的工作：本帧到达的每个采样喂给预测器，再按预测的位置算一次形状和路径，手指来回拖动
+     */
+    @Benchmark
+    public PathBuffer touchFrame(Input input) {
+        input.owed += input.hz / (float) FRAME_HZ;
+        while (input.owed >= 1f) {
+            input.owed -= 1f;
+            input.progress += input.step;
+            if (input.progress > 1f) {
+                input.progress = -1f;
+                input.predictor.reset();
+            }
+            input.timeMillis += 1000.0 / input.hz;
+            input.predictor.addSample((long) input.timeMillis, input.progress * 4 * radius);
+        }
+        float progress = input.predictor.predict() / (4 * radius);
+        mGeometry.statusAt(progress);
+        mGeometry.shapeAt(progress, mShape);
+        mPath.reset();
+        DropletGeometry.buildPath(mShape, 0, mPath);
+        return mPath;
+    }
+    
+    private float nextProgress() {
+        mProgress += mStep;
+        if (mProgress > 1f) {
+            mProgress = 0f;
+        }
+        return mProgress;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletLod;
+import com.example.tb.waterdrop.core.PathSink;
+import com.example.tb.waterdrop.core.ScanlineRasterizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各细节层次输出一帧路径和填充一帧的耗时，层次取值见{@link DropletLod}
+ * <p>
+ * 填充用{@link ScanlineRasterizer}，缓冲区刚好容纳整个形变，只清空不影响结果
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DropletLodBenchmark {
+    /**
+     * 一次形变取的帧数
+     */
+    private static final int FRAMES = 32;
+    
+    @Param({"0", "1", "2", "3"})
+    public int level;
+    
+    @Param({"4", "50", "400"})
+    public float radius;
+    
+    private final ScanlineRasterizer mRasterizer = new ScanlineRasterizer();
+    /**
+     * 只累加收到的坐标，避免被优化掉
+     */
+    private final CountingSink mSink = new CountingSink();
+    private final float[] mFrames = new float[FRAMES * DropletGeometry.SIZE];
+    private int mFrame;
+    
+    @Setup
+    public void setup() {
+        int width = (int) Math.ceil(8 * radius) + 4;
+        int height = (int) Math.ceil(2 * radius) + 4;
+        mRasterizer.setTarget(new int[width * height], width, height);
+        DropletGeometry geometry = new DropletGeometry(radius, 3 * radius);
+        for (int i = 0; i < FRAMES; i++) {
+            int offset = i * DropletGeometry.SIZE;
+            geometry.shapeAt((float) i / (FRAMES - 1), 0f, mFrames, offset);
+            for (int j = offset; j < offset + DropletGeometry.SIZE; j += 2) {
+                mFrames[j] += 2;
+                mFrames[j + 1] += height / 2;
+            }
+        }
+    }
+    
+    /**
+     * 只输出路径，相当于每帧rewind后重建Path
+     */
+    @Benchmark
+    public float buildPath() {
+        mFrame = (mFrame + 1) % FRAMES;
+        DropletLod.buildPath(mFrames, mFrame * DropletGeometry.SIZE, level, mSink);
+        return mSink.mSum;
+    }
+    
+    /**
+     * 输出路径并填充
+     */
+    @Benchmark
+    public int fill() {
+        mFrame = (mFrame + 1) % FRAMES;
+        mRasterizer.reset();
+        DropletLod.buildPath(mFrames, mFrame * DropletGeometry.SIZE, level, mRasterizer);
+        mRasterizer.fill(0xff0000ff);
+        return mRasterizer.getEdgeCount();
+    }
+    
+    private static class CountingSink implements PathSink {
+        float mSum;
+        
+        @Override
+        public void moveTo(float x, float y) {
+            mSum += x + y;
+        }
+        
+        @Override
+        public void lineTo(float x, float y) {
+            mSum += x + y;
+        }
+        
+        @Override
+        public void quadTo(float x1, float y1, float x2, float y2) {
+            mSum += x1 + y1 + x2 + y2;
+        }
+        
+        @Override
+        public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+            mSum += x1 + y1 + x2 + y2 + x3 + y3;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.DropletHitTester;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WaterTouch按下时命中测试的耗时，目标是远低于1微秒
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitTestBenchmark {
+    /**
+     * 测试点的个数，一半落在包围盒里
+     */
+    private static final int POINTS = 256;
+    
+    @Param({"50", "200"})
+    public float radius;
+    
+    @Param({"0", "0.5"})
+    public float progress;
+    
+    private final DropletHitTester mTester = new DropletHitTester();
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    private final float[] mPoints = new float[POINTS * 2];
+    private int mIndex;
+    
+    @Setup
+    public void setup() {
+        new DropletGeometry(radius, 3 * radius).shapeAt(progress, mShape);
+        mTester.setShape(mShape, 0);
+        float[] bounds = DropletGeometry.bounds(mShape, 0, new float[4]);
+        float width = bounds[2] - bounds[0];
+        float height = bounds[3] - bounds[1];
+        //固定种子的伪随机点，覆盖包围盒两倍大小的区域
+        long seed = 42;
+        for (int i = 0; i < POINTS * 2; i += 2) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            mPoints[i] = bounds[0] - width / 2 + ((seed >>> 40) / (float) (1 << 24)) * 2 * width;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            mPoints[i + 1] = bounds[1] - height / 2 + ((seed >>> 40) / (float) (1 << 24)) * 2 * height;
+        }
+    }
+    
+    /**
+     * 形状不变时的一次判断
+     */
+    @Benchmark
+    public boolean contains() {
+        int i = mIndex;
+        mIndex = (i + 2) % (POINTS * 2);
+        return mTester.contains(mPoints[i], mPoints[i + 1]);
+    }
+    
+    /**
+     * 每次都带着形状更新，形状相同不会重新拆分
+     */
+    @Benchmark
+    public boolean setShapeAndContains() {
+        int i = mIndex;
+        mIndex = (i + 2) % (POINTS * 2);
+        mTester.setShape(mShape, 0);
+        return mTester.contains(mPoints[i], mPoints[i + 1]);
+    }
+}
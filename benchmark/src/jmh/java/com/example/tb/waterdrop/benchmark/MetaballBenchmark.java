@@ -0,0 +1,67 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.MetaballRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 元球渲染一帧的耗时随核数的变化：parallelism依次取1、2、4、8，对比同一画面的耗时就是加速比
+ * <p>
+ * 画面是一排正在两两合并的水滴，和多页指示器翻页时的样子相同
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MetaballBenchmark {
+    
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+    
+    @Param({"2", "8"})
+    public int balls;
+    
+    @Param({"512", "1024"})
+    public int width;
+    
+    private ForkJoinPool mPool;
+    private MetaballRenderer mRenderer;
+    private int[] mPixels;
+    
+    @Setup
+    public void setup() {
+        int height = width / 2;
+        mPool = new ForkJoinPool(parallelism);
+        mPixels = new int[width * height];
+        mRenderer = new MetaballRenderer(mPool);
+        mRenderer.setTarget(mPixels, width, height);
+        float spacing = (float) width / balls;
+        float radius = spacing * 0.3f;
+        for (int i = 0; i < balls; i++) {
+            //每两个一组，组内的两个正在合并
+            float offset = i % 2 == 0 ? radius * 0.6f : -radius * 0.6f;
+            mRenderer.addBall(spacing * (i + 0.5f) + offset, height / 2f, radius);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        mPool.shutdown();
+    }
+    
+    @Benchmark
+    public int[] render() {
+        mRenderer.render(0xff0000ff);
+        return mPixels;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.PointGridIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CurveEditor选点和拖点的耗时，点数增加一百倍时应该基本不变
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PointGridIndexBenchmark {
+    /**
+     * 触摸半径，约等于24dp
+     */
+    private static final float TOUCH_RADIUS = 64f;
+    private static final int QUERIES = 256;
+    
+    /**
+     * 曲线段数，点数是它的三倍
+     */
+    @Param({"100", "10000"})
+    public int segments;
+    
+    private PointGridIndex mIndex;
+    private final float[] mQueries = new float[QUERIES * 2];
+    private int mQuery;
+    private float mWidth;
+    
+    @Setup
+    public void setup() {
+        mIndex = new PointGridIndex(TOUCH_RADIUS);
+        //和CurveEditor一样排成波浪线，每段宽度和触摸半径相当
+        mWidth = segments * TOUCH_RADIUS;
+        int points = 3 * segments + 1;
+        for (int i = 0; i < points; i++) {
+            int phase = i % 3;
+            mIndex.add(i * mWidth / (points - 1), phase == 0 ? 0 : (phase == 1 ? -200 : 200));
+        }
+        long seed = 42;
+        for (int i = 0; i < QUERIES * 2; i += 2) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            mQueries[i] = ((seed >>> 40) / (float) (1 << 24)) * mWidth;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            mQueries[i + 1] = ((seed >>> 40) / (float) (1 << 24)) * 500 - 250;
+        }
+    }
+    
+    /**
+     * 按下时找最近的点
+     */
+    @Benchmark
+    public int nearest() {
+        int i = mQuery;
+        mQuery = (i + 2) % (QUERIES * 2);
+        return mIndex.nearest(mQueries[i], mQueries[i + 1], TOUCH_RADIUS);
+    }
+    
+    /**
+     * 拖动一个点，跨格子时要换桶
+     */
+    @Benchmark
+    public void move() {
+        int i = mQuery;
+        mQuery = (i + 2) % (QUERIES * 2);
+        mIndex.move(1, mQueries[i], mQueries[i + 1]);
+    }
+}
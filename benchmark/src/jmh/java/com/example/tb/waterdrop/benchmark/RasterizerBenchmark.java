@@ -0,0 +1,94 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.DropletGeometry;
+import com.example.tb.waterdrop.core.ScanlineRasterizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 纯Java光栅化的吞吐量：每次调用把一帧水滴画进{@link #WIDTH}x{@link #HEIGHT}的缓冲区
+ * <p>
+ * 每次调用按缓冲区的像素数计操作数，结果的ops/us就是每秒处理的百万像素数（MP/s）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RasterizerBenchmark {
+    private static final int WIDTH = 512;
+    private static final int HEIGHT = 256;
+    private static final int PIXELS = WIDTH * HEIGHT;
+    /**
+     * 一次形变取的帧数
+     */
+    private static final int FRAMES = 32;
+    
+    @Param({"25", "50", "100"})
+    public float radius;
+    
+    /**
+     * 曲线拆成折线的容差，决定边数
+     */
+    @Param({"0.1", "0.25", "1"})
+    public float tolerance;
+    
+    private final int[] mPixels = new int[PIXELS];
+    private final ScanlineRasterizer mRasterizer = new ScanlineRasterizer();
+    /**
+     * 预先算好的每帧形状，只测光栅化
+     */
+    private final float[] mFrames = new float[FRAMES * DropletGeometry.SIZE];
+    private int mFrame;
+    
+    @Setup
+    public void setup() {
+        mRasterizer.setTarget(mPixels, WIDTH, HEIGHT);
+        mRasterizer.setTolerance(tolerance);
+        DropletGeometry geometry = new DropletGeometry(radius, WIDTH - 2 * radius - 40);
+        for (int i = 0; i < FRAMES; i++) {
+            int offset = i * DropletGeometry.SIZE;
+            geometry.shapeAt((float) i / (FRAMES - 1), 0f, mFrames, offset);
+            for (int j = offset; j < offset + DropletGeometry.SIZE; j += 2) {
+                mFrames[j] += 20;
+                mFrames[j + 1] += HEIGHT / 2;
+            }
+        }
+    }
+    
+    /**
+     * 清屏加填充一帧水滴，也就是离屏渲染一帧的全部工作
+     */
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public int[] clearAndFill() {
+        Arrays.fill(mPixels, 0);
+        return fillFrame();
+    }
+    
+    /**
+     * 只填充，不清屏
+     */
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public int[] fill() {
+        return fillFrame();
+    }
+    
+    private int[] fillFrame() {
+        mFrame = (mFrame + 1) % FRAMES;
+        mRasterizer.reset();
+        DropletGeometry.buildPath(mFrames, mFrame * DropletGeometry.SIZE, mRasterizer);
+        mRasterizer.fill(0xff0000ff);
+        return mPixels;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.tb.waterdrop.benchmark;
+
+import com.example.tb.waterdrop.core.SegmentedPath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CurveEditor拖动一个点和按屏幕裁剪的耗时，段数增加一百倍时只应按log n增长
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SegmentedPathBenchmark {
+    /**
+     * 每段的宽度
+     */
+    private static final float SEGMENT_WIDTH = 60f;
+    
+    @Param({"100", "10000"})
+    public int segments;
+    
+    private final SegmentedPath mPath = new SegmentedPath(0.5f);
+    private int[] mVisible;
+    private float mWidth;
+    private int mStep;
+    
+    @Setup
+    public void setup() {
+        int count = 3 * segments + 1;
+        float[] points = new float[2 * count];
+        for (int i = 0; i < count; i++) {
+            int phase = i % 3;
+            points[2 * i] = i * SEGMENT_WIDTH / 3;
+            points[2 * i + 1] = phase == 0 ? 0 : (phase == 1 ? -200 : 200);
+        }
+        mPath.setPoints(points, count);
+        mVisible = new int[segments];
+        mWidth = segments * SEGMENT_WIDTH;
+    }
+    
+    /**
+     * 拖动中间的一个数据点，重新拆分前后两段并更新包围盒
+     */
+    @Benchmark
+    public void moveDataPoint() {
+        int point = 3 * (segments / 2);
+        mPath.movePoint(point, point * SEGMENT_WIDTH / 3, (mStep++ & 63) - 32);
+    }
+    
+    /**
+     * 一屏宽（1080像素）的裁剪
+     */
+    @Benchmark
+    public int queryScreen() {
+        float left = (mStep++ * 97) % mWidth;
+        return mPath.query(left, -400, left + 1080, 400, mVisible);
+    }
+    
+    /**
+     * 按在曲线附近的命中测试
+     */
+    @Benchmark
+    public int hitSegment() {
+        float x = (mStep++ * 97) % mWidth;
+        return mPath.hitSegment(x, 0, 64);
+    }
+}
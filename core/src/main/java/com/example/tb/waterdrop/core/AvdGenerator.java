@@ -0,0 +1,230 @@
+package com.example.tb.waterdrop.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 把水滴的形变导出成AnimatedVectorDrawable，整个动作预先算好，播放时不再经过onDraw
+ * <p>
+ * 每个关键帧区间对应一个pathData的objectAnimator，按顺序播放，区间的缓动换成对应的系统插值器；
+ * 回弹按{@link SpringIntegrator}每{@link #REBOUND_FRAME_MILLIS}毫秒取一帧，帧间线性插值。
+ * 所有帧都由{@link DropletGeometry#buildPath}写出，命令序列完全相同，满足路径变形的要求。
+ * <p>
+ * 坐标以半径为单位，viewport的原点在初始圆的最左边、上边，宽为移动距离加直径，高为直径，
+ * 超出这个范围的部分会被裁掉。构建:app时由generateMorphAvd任务在compileMorph之后调用，命令行用法：
+ * <pre>
+ * java -cp core.jar com.example.tb.waterdrop.core.AvdGenerator droplet_default.wdmf res/drawable
+ * </pre>
+ */
+public class AvdGenerator {
+    /**
+     * 回弹取帧的间隔
+     */
+    public static final int REBOUND_FRAME_MILLIS = 33;
+    /**
+     * 最多取的回弹帧数，弹簧参数不合理时也不会生成过大的文件
+     */
+    private static final int MAX_REBOUND_FRAMES = 90;
+    /**
+     * 半径为50时弹簧静止的能量阈值
+     */
+    private static final float REST_ENERGY = 0.5f;
+    private static final String[] INTERPOLATORS = {
+            "@android:anim/linear_interpolator",
+            "@android:anim/accelerate_interpolator",
+            "@android:anim/decelerate_interpolator",
+            "@android:anim/accelerate_decelerate_interpolator"
+    };
+    
+    private final DropletKeyframes mMorph;
+    private final SpringIntegrator mSpring = new SpringIntegrator();
+    /**
+     * 回弹的幅度和弹簧的静止阈值都按像素计算，需要知道实际的半径
+     */
+    private float mRadiusPx = 50f;
+    private float mDpPerRadius = 25f;
+    private String mFillColor = "#FF0000FF";
+    
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    private final PathDataSink mSink = new PathDataSink(0f, 1f);
+    
+    public AvdGenerator(DropletKeyframes morph) {
+        mMorph = morph;
+    }
+    
+    /**
+     * 播放时的半径（像素），决定回弹的幅度，和WaterAnim一致
+     */
+    public void setRadiusPx(float radiusPx) {
+        mRadiusPx = radiusPx;
+    }
+    
+    /**
+     * 半径对应的dp，决定drawable的固有大小，实际大小由setBounds决定
+     */
+    public void setDpPerRadius(float dpPerRadius) {
+        mDpPerRadius = dpPerRadius;
+    }
+    
+    /**
+     * 填充色，#AARRGGBB
+     */
+    public void setFillColor(String fillColor) {
+        mFillColor = fillColor;
+    }
+    
+    /**
+     * 回弹弹簧的参数，见{@link SpringIntegrator}
+     */
+    public void setSpring(float stiffness, float damping) {
+        mSpring.setStiffness(stiffness);
+        mSpring.setDamping(damping);
+    }
+    
+    /**
+     * 完整的一跳：从圆形出发到达终点，再回弹到静止
+     *
+     * @param durationMillis 不含回弹的时长
+     */
+    public String hop(long durationMillis) {
+        StringBuilder animators = new StringBuilder();
+        String from = pathAt(0f, 0f);
+        for (int k = 0; k < mMorph.getKeyframeCount() - 1; k++) {
+            long duration = Math.round((mMorph.getTime(k + 1) - mMorph.getTime(k)) * durationMillis);
+            if (duration <= 0) {
+                continue;
+            }
+            String to = pathAt(mMorph.getTime(k + 1), 0f);
+            int easing = mMorph instanceof MorphKeyframes ? ((MorphKeyframes) mMorph).getEasing(k)
+                    : MorphKeyframes.EASE_LINEAR;
+            appendAnimator(animators, duration, INTERPOLATORS[easing], from, to);
+            from = to;
+        }
+        appendRebound(animators, from);
+        return document(pathAt(0f, 0f), animators);
+    }
+    
+    /**
+     * 只有到达终点后的回弹（状态6）
+     */
+    public String rebound() {
+        StringBuilder animators = new StringBuilder();
+        String start = pathAt(1f, 0f);
+        appendRebound(animators, start);
+        return document(start, animators);
+    }
+    
+    /**
+     * 回弹的帧：和DropletAnimator一样带着初速度从原位冲出去，弹簧静止后回到原位
+     */
+    private void appendRebound(StringBuilder animators, String from) {
+        float amplitude = mRadiusPx * mRadiusPx / 50f;
+        //静止阈值按幅度的平方缩放，和DropletAnimator一致
+        float scale = amplitude / 50f;
+        mSpring.setRestEnergy(REST_ENERGY * scale * scale);
+        mSpring.start(0f, amplitude * (float) Math.sqrt(mSpring.getStiffness()));
+        float dt = REBOUND_FRAME_MILLIS / 1000f;
+        int frames = 0;
+        boolean moving = true;
+        while (moving && frames < MAX_REBOUND_FRAMES) {
+            moving = mSpring.advance(dt);
+            float rebound = moving ? mSpring.getPosition() : 0f;
+            //像素换算成关键帧表的坐标
+            String to = pathAt(1f, rebound / mRadiusPx * mMorph.getRadius());
+            appendAnimator(animators, REBOUND_FRAME_MILLIS, INTERPOLATORS[MorphKeyframes.EASE_LINEAR], from, to);
+            from = to;
+            frames++;
+        }
+    }
+    
+    /**
+     * 某一帧的pathData，坐标换算成以半径为单位，y整体下移一个半径
+     */
+    String pathAt(float progress, float rebound) {
+        mMorph.shapeAt(progress, rebound, mShape, 0);
+        float scale = 1f / mMorph.getRadius();
+        for (int i = 0; i < DropletGeometry.SIZE; i++) {
+            mShape[i] *= scale;
+        }
+        mSink.reset();
+        DropletGeometry.buildPath(mShape, 0, mSink);
+        return mSink.toString();
+    }
+    
+    private static void appendAnimator(StringBuilder out, long duration, String interpolator, String from, String to) {
+        out.append("                <objectAnimator\n")
+                .append("                    android:duration=\"").append(duration).append("\"\n")
+                .append("                    android:interpolator=\"").append(interpolator).append("\"\n")
+                .append("                    android:propertyName=\"pathData\"\n")
+                .append("                    android:valueFrom=\"").append(from).append("\"\n")
+                .append("                    android:valueTo=\"").append(to).append("\"\n")
+                .append("                    android:valueType=\"pathType\"/>\n");
+    }
+    
+    private String document(String initialPath, StringBuilder animators) {
+        float viewportWidth = mMorph.getDistance() / mMorph.getRadius() + 2;
+        float viewportHeight = 2;
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<!-- 由AvdGenerator生成，不要手动修改 -->\n"
+                + "<animated-vector xmlns:android=\"http://schemas.android.com/apk/res/android\"\n"
+                + "    xmlns:aapt=\"http://schemas.android.com/aapt\">\n"
+                + "    <aapt:attr name=\"android:drawable\">\n"
+                + "        <vector\n"
+                + "            android:width=\"" + PathDataSink.format(viewportWidth * mDpPerRadius) + "dp\"\n"
+                + "            android:height=\"" + PathDataSink.format(viewportHeight * mDpPerRadius) + "dp\"\n"
+                + "            android:viewportWidth=\"" + PathDataSink.format(viewportWidth) + "\"\n"
+                + "            android:viewportHeight=\"" + PathDataSink.format(viewportHeight) + "\">\n"
+                + "            <path\n"
+                + "                android:name=\"droplet\"\n"
+                + "                android:fillColor=\"" + mFillColor + "\"\n"
+                + "                android:pathData=\"" + initialPath + "\"/>\n"
+                + "        </vector>\n"
+                + "    </aapt:attr>\n"
+                + "    <target android:name=\"droplet\">\n"
+                + "        <aapt:attr name=\"android:animation\">\n"
+                + "            <set android:ordering=\"sequentially\">\n"
+                + animators
+                + "            </set>\n"
+                + "        </aapt:attr>\n"
+                + "    </target>\n"
+                + "</animated-vector>\n";
+    }
+    
+    /**
+     * 读.wdmf，在输出目录生成droplet_hop.xml和droplet_rebound.xml
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: AvdGenerator <input.wdmf> <drawable dir> [hop millis]");
+            System.exit(1);
+        }
+        MorphKeyframes morph;
+        FileInputStream in = new FileInputStream(args[0]);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            morph = MorphFormat.read(buffer);
+        } finally {
+            in.close();
+        }
+        long duration = args.length > 2 ? Long.parseLong(args[2]) : 500;
+        AvdGenerator generator = new AvdGenerator(morph);
+        write(new File(args[1], "droplet_hop.xml"), generator.hop(duration));
+        write(new File(args[1], "droplet_rebound.xml"), generator.rebound());
+    }
+    
+    private static void write(File file, String content) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 贝塞尔曲线拆成折线：二阶（QuadTo）和三阶（CubicTo、水滴）曲线，结果写进调用方提供的float数组
+ * <p>
+ * 两种方式：
+ * <ul>
+ * <li>自适应细分：按容差在t=0.5处递归二分，平直的地方少拆、弯的地方多拆，点数最少，用于命中测试、包围盒</li>
+ * <li>前向差分：均匀拆成固定段数，每个点只要几次加法，用于批量求值和光栅化，段数可以用
+ * {@link #cubicSegmentCount}按容差估出来</li>
+ * </ul>
+ * 输出都不包含起点，依次写入每段的终点(x, y)，返回写入的点数（也就是线段数）。不分配内存。
+ */
+public final class BezierFlattener {
+    /**
+     * 自适应细分的最大深度，单条曲线最多拆成{@link #MAX_SEGMENTS}段
+     */
+    public static final int MAX_DEPTH = 10;
+    /**
+     * 单条曲线最多的线段数，输出数组至少要有2 * MAX_SEGMENTS个float才能容纳任意容差的结果
+     */
+    public static final int MAX_SEGMENTS = 1 << MAX_DEPTH;
+    
+    private BezierFlattener() {
+    }
+    
+    /**
+     * 三阶曲线均匀拆分需要的段数（Wang公式）：偏差不超过3/4 * max|p[i] - 2p[i+1] + p[i+2]| / n²
+     */
+    public static int cubicSegmentCount(float x0, float y0, float x1, float y1,
+                                        float x2, float y2, float x3, float y3, float tolerance) {
+        float ddx0 = x0 - 2 * x1 + x2;
+        float ddy0 = y0 - 2 * y1 + y2;
+        float ddx1 = x1 - 2 * x2 + x3;
+        float ddy1 = y1 - 2 * y2 + y3;
+        float dd = (float) Math.sqrt(Math.max(ddx0 * ddx0 + ddy0 * ddy0, ddx1 * ddx1 + ddy1 * ddy1));
+        return clampCount(Math.sqrt(0.75f * dd / tolerance));
+    }
+    
+    /**
+     * 二阶曲线均匀拆分需要的段数：偏差不超过|p0 - 2p1 + p2| / (4n²)
+     */
+    public static int quadSegmentCount(float x0, float y0, float x1, float y1, float x2, float y2, float tolerance) {
+        float ddx = x0 - 2 * x1 + x2;
+        float ddy = y0 - 2 * y1 + y2;
+        float dd = (float) Math.sqrt(ddx * ddx + ddy * ddy);
+        return clampCount(Math.sqrt(0.25f * dd / tolerance));
+    }
+    
+    private static int clampCount(double n) {
+        return Math.max(1, Math.min((int) Math.ceil(n), MAX_SEGMENTS));
+    }
+    
+    /**
+     * 三阶曲线前向差分，均匀拆成segments段
+     *
+     * @return 写入的点数，等于segments
+     */
+    public static int forwardCubic(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                                   int segments, float[] out, int offset) {
+        float h = 1f / segments;
+        float h2 = h * h;
+        float h3 = h2 * h;
+        //B(t) = a t³ + b t² + c t + p0
+        float ax = x3 - x0 + 3 * (x1 - x2);
+        float ay = y3 - y0 + 3 * (y1 - y2);
+        float bx = 3 * (x0 - 2 * x1 + x2);
+        float by = 3 * (y0 - 2 * y1 + y2);
+        float cx = 3 * (x1 - x0);
+        float cy = 3 * (y1 - y0);
+        //一阶、二阶、三阶差分
+        float dx = ax * h3 + bx * h2 + cx * h;
+        float dy = ay * h3 + by * h2 + cy * h;
+        float ddx = 6 * ax * h3 + 2 * bx * h2;
+        float ddy = 6 * ay * h3 + 2 * by * h2;
+        float dddx = 6 * ax * h3;
+        float dddy = 6 * ay * h3;
+        float x = x0;
+        float y = y0;
+        int o = offset;
+        for (int i = 1; i < segments; i++) {
+            x += dx;
+            y += dy;
+            dx += ddx;
+            dy += ddy;
+            ddx += dddx;
+            ddy += dddy;
+            out[o++] = x;
+            out[o++] = y;
+        }
+        //终点直接用精确值，不累积误差
+        out[o++] = x3;
+        out[o] = y3;
+        return segments;
+    }
+    
+    /**
+     * 二阶曲线前向差分，均匀拆成segments段
+     *
+     * @return 写入的点数，等于segments
+     */
+    public static int forwardQuad(float x0, float y0, float x1, float y1, float x2, float y2,
+                                  int segments, float[] out, int offset) {
+        float h = 1f / segments;
+        float h2 = h * h;
+        //B(t) = a t² + b t + p0
+        float ax = x0 - 2 * x1 + x2;
+        float ay = y0 - 2 * y1 + y2;
+        float bx = 2 * (x1 - x0);
+        float by = 2 * (y1 - y0);
+        float dx = ax * h2 + bx * h;
+        float dy = ay * h2 + by * h;
+        float ddx = 2 * ax * h2;
+        float ddy = 2 * ay * h2;
+        float x = x0;
+        float y = y0;
+        int o = offset;
+        for (int i = 1; i < segments; i++) {
+            x += dx;
+            y += dy;
+            dx += ddx;
+            dy += ddy;
+            out[o++] = x;
+            out[o++] = y;
+        }
+        out[o++] = x2;
+        out[o] = y2;
+        return segments;
+    }
+    
+    /**
+     * 三阶曲线自适应细分，直到每段和弦的偏差不超过tolerance
+     *
+     * @return 写入的点数
+     */
+    public static int adaptiveCubic(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                                    float tolerance, float[] out, int offset) {
+        //平直度判断用16倍偏差的平方，省掉开方和除法
+        float limit = 16 * tolerance * tolerance;
+        return (subdivideCubic(x0, y0, x1, y1, x2, y2, x3, y3, limit, 0, out, offset) - offset) / 2;
+    }
+    
+    /**
+     * 二阶曲线自适应细分，直到每段和弦的偏差不超过tolerance
+     *
+     * @return 写入的点数
+     */
+    public static int adaptiveQuad(float x0, float y0, float x1, float y1, float x2, float y2,
+                                   float tolerance, float[] out, int offset) {
+        //二阶曲线到弦的最大距离是|p0 - 2p1 + p2| / 4，用16倍的平方比较
+        float limit = 16 * tolerance * tolerance;
+        return (subdivideQuad(x0, y0, x1, y1, x2, y2, limit, 0, out, offset) - offset) / 2;
+    }
+    
+    /**
+     * @return 写完之后的下一个位置
+     */
+    private static int subdivideCubic(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                                      float limit, int depth, float[] out, int o) {
+        //控制点偏离三等分点的程度，16倍的平方上界了曲线到弦的距离
+        float ux = 3 * x1 - 2 * x0 - x3;
+        float uy = 3 * y1 - 2 * y0 - y3;
+        float vx = 3 * x2 - x0 - 2 * x3;
+        float vy = 3 * y2 - y0 - 2 * y3;
+        float flatness = Math.max(ux * ux, vx * vx) + Math.max(uy * uy, vy * vy);
+        if (flatness <= limit || depth >= MAX_DEPTH) {
+            out[o] = x3;
+            out[o + 1] = y3;
+            return o + 2;
+        }
+        //de Casteljau在t=0.5处二分
+        float x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+        float x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+        float x23 = (x2 + x3) / 2, y23 = (y2 + y3) / 2;
+        float x012 = (x01 + x12) / 2, y012 = (y01 + y12) / 2;
+        float x123 = (x12 + x23) / 2, y123 = (y12 + y23) / 2;
+        float mx = (x012 + x123) / 2, my = (y012 + y123) / 2;
+        o = subdivideCubic(x0, y0, x01, y01, x012, y012, mx, my, limit, depth + 1, out, o);
+        return subdivideCubic(mx, my, x123, y123, x23, y23, x3, y3, limit, depth + 1, out, o);
+    }
+    
+    private static int subdivideQuad(float x0, float y0, float x1, float y1, float x2, float y2,
+                                     float limit, int depth, float[] out, int o) {
+        float ddx = x0 - 2 * x1 + x2;
+        float ddy = y0 - 2 * y1 + y2;
+        if (ddx * ddx + ddy * ddy <= limit || depth >= MAX_DEPTH) {
+            out[o] = x2;
+            out[o + 1] = y2;
+            return o + 2;
+        }
+        float x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+        float x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+        float mx = (x01 + x12) / 2, my = (y01 + y12) / 2;
+        o = subdivideQuad(x0, y0, x01, y01, mx, my, limit, depth + 1, out, o);
+        return subdivideQuad(mx, my, x12, y12, x2, y2, limit, depth + 1, out, o);
+    }
+}
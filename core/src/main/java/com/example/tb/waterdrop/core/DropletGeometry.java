@@ -0,0 +1,262 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 水滴形变的几何内核（纯Java，不依赖Android）
+ * <p>
+ * 给定半径、移动距离和进度，直接算出4个数据点和8个控制点，O(1)且不分配内存，
+ * 不再依赖一帧一帧累加的差值，所以任意进度都可以直接跳转（seek）。
+ * <p>
+ * 局部坐标系：初始圆的最左边数据点在原点，圆心在(radius, 0)，向右为正。
+ * 进度为负表示向左移动，结果以初始圆心为轴镜像。
+ * <p>
+ * 输出数组布局（共{@link #SIZE}个float）：
+ * [0, 8)  逆时针4个数据点 x0,y0 ... x3,y3（下、右、上、左）
+ * [8, 24) 逆时针8个控制点 x0,y0 ... x7,y7
+ */
+public class DropletGeometry {
+    /**
+     * 一个常量，用来计算绘制圆形贝塞尔曲线控制点的位置
+     */
+    public static final float C = 0.551915024494f;
+    /**
+     * 数据点在输出数组中的起始位置
+     */
+    public static final int DATA_OFFSET = 0;
+    /**
+     * 控制点在输出数组中的起始位置
+     */
+    public static final int CTRL_OFFSET = 8;
+    /**
+     * 一个形状占用的float个数
+     */
+    public static final int SIZE = 24;
+    
+    /**
+     * 注释仅代表向右，左边相反即可（与WaterAnim的STATUS一一对应）
+     * 0:初始状态
+     * 1:右半部分向右拉伸从圆形变为锥形
+     * 2:逐渐变为椭圆状态(最左边保持不动)
+     * 3:椭圆状态维持一段时间，整体右移
+     * 4:逐渐变为锥形状态(最右边到达，同时保持不动)
+     * 5:左半部分向右缩减直至变为圆形
+     * 6:到达终点，回弹
+     */
+    public static final int STATUS_IDLE = 0;
+    public static final int STATUS_STRETCH = 1;
+    public static final int STATUS_ELLIPSE = 2;
+    public static final int STATUS_TRANSLATE = 3;
+    public static final int STATUS_CONTRACT = 4;
+    public static final int STATUS_SHRINK = 5;
+    public static final int STATUS_REBOUND = 6;
+    
+    /**
+     * 圆的半径
+     */
+    private float radius;
+    /**
+     * 整体移动的距离
+     */
+    private float distance;
+    /**
+     * 每一份的长度，移动的总距离根据半径分为若干份，最少分为3份
+     */
+    private float eachDis;
+    /**
+     * 进度从0到1对应的总行程：前端走完distance后，后端还要再收缩两份
+     */
+    private float travel;
+    
+    public DropletGeometry(float radius, float distance) {
+        set(radius, distance);
+    }
+    
+    /**
+     * 修改半径和移动距离
+     */
+    public void set(float radius, float distance) {
+        if (radius <= 0 || distance <= 0) {
+            throw new IllegalArgumentException("radius and distance must be positive: " + radius + ", " + distance);
+        }
+        this.radius = radius;
+        this.distance = distance;
+        if (distance / radius < 3) {
+            //保证最低3份
+            eachDis = distance / 3f;
+        } else {
+            eachDis = radius;
+        }
+        travel = distance + 2 * eachDis;
+    }
+    
+    public float getRadius() {
+        return radius;
+    }
+    
+    public float getDistance() {
+        return distance;
+    }
+    
+    public float getEachDis() {
+        return eachDis;
+    }
+    
+    public float getTravel() {
+        return travel;
+    }
+    
+    /**
+     * 进度对应的形变阶段
+     *
+     * @param progress 进度，[-1, 1]，超出范围按边界处理
+     */
+    public int statusAt(float progress) {
+        float x = Math.min(Math.abs(progress), 1f) * travel;
+        if (x == 0) {
+            return STATUS_IDLE;
+        } else if (x < eachDis) {
+            return STATUS_STRETCH;
+        } else if (x < eachDis * 2f) {
+            return STATUS_ELLIPSE;
+        } else if (x < distance) {
+            return STATUS_TRANSLATE;
+        } else if (x < distance + eachDis) {
+            return STATUS_CONTRACT;
+        } else if (x < travel) {
+            return STATUS_SHRINK;
+        } else {
+            return STATUS_REBOUND;
+        }
+    }
+    
+    /**
+     * @see #shapeAt(float, float, float[], int)
+     */
+    public float[] shapeAt(float progress, float[] out) {
+        return shapeAt(progress, 0f, out, 0);
+    }
+    
+    /**
+     * 计算指定进度的形状
+     *
+     * @param progress 进度，[-1, 1]，负数表示向左，超出范围按边界处理
+     * @param rebound  最左边（向左时为最右边）数据点额外前冲的距离，用于终点回弹
+     * @param out      输出数组，从offset开始写入{@link #SIZE}个float
+     * @param offset   写入的起始位置
+     * @return out
+     */
+    public float[] shapeAt(float progress, float rebound, float[] out, int offset) {
+        float p = Math.min(Math.abs(progress), 1f);
+        float x = p * travel;
+        float r = radius;
+        
+        //最右边的数据点：从一开始就跟随移动，走完distance后停住
+        float right = 2 * r + Math.min(x, distance);
+        //中间的两个数据点：第二份开始移动
+        float middle = r + Math.min(Math.max(0f, x - eachDis), distance);
+        //最左边的数据点：第三份开始移动
+        float left = Math.min(Math.max(0f, x - 2 * eachDis), distance) + rebound;
+        
+        //圆形的控制点与数据点的差值：第二份拉伸为椭圆，最后两份之前恢复
+        float delta;
+        float circle = r * C;
+        float ellipse = r * 3f / 4f;
+        if (x < eachDis) {
+            delta = circle;
+        } else if (x < 2 * eachDis) {
+            delta = circle + (ellipse - circle) * (x - eachDis) / eachDis;
+        } else if (x < distance) {
+            delta = ellipse;
+        } else if (x < distance + eachDis) {
+            delta = ellipse + (circle - ellipse) * (x - distance) / eachDis;
+        } else {
+            delta = circle;
+        }
+        
+        int d = offset + DATA_OFFSET;
+        out[d] = middle;
+        out[d + 1] = r;
+        out[d + 2] = right;
+        out[d + 3] = 0;
+        out[d + 4] = middle;
+        out[d + 5] = -r;
+        out[d + 6] = left;
+        out[d + 7] = 0;
+        
+        int c = offset + CTRL_OFFSET;
+        out[c] = middle + delta;
+        out[c + 1] = r;
+        out[c + 2] = right;
+        out[c + 3] = delta;
+        out[c + 4] = right;
+        out[c + 5] = -delta;
+        out[c + 6] = middle + delta;
+        out[c + 7] = -r;
+        out[c + 8] = middle - delta;
+        out[c + 9] = -r;
+        out[c + 10] = left;
+        out[c + 11] = -delta;
+        out[c + 12] = left;
+        out[c + 13] = delta;
+        out[c + 14] = middle - delta;
+        out[c + 15] = r;
+        
+        if (progress < 0) {
+            //向左：以初始圆心为轴镜像
+            for (int i = offset; i < offset + SIZE; i += 2) {
+                out[i] = 2 * r - out[i];
+            }
+        }
+        return out;
+    }
+    
+    /**
+     * 形状的保守包围盒：贝塞尔曲线一定落在数据点和控制点的凸包内，取12个点的最值即可
+     *
+     * @param shape  {@link #shapeAt}的输出
+     * @param offset 形状在数组中的起始位置
+     * @param out    输出left, top, right, bottom
+     * @return out
+     */
+    public static float[] bounds(float[] shape, int offset, float[] out) {
+        float left = shape[offset];
+        float right = left;
+        float top = shape[offset + 1];
+        float bottom = top;
+        for (int i = offset + 2; i < offset + SIZE; i += 2) {
+            float x = shape[i];
+            float y = shape[i + 1];
+            if (x < left) {
+                left = x;
+            } else if (x > right) {
+                right = x;
+            }
+            if (y < top) {
+                top = y;
+            } else if (y > bottom) {
+                bottom = y;
+            }
+        }
+        out[0] = left;
+        out[1] = top;
+        out[2] = right;
+        out[3] = bottom;
+        return out;
+    }
+    
+    /**
+     * 把形状按4段三阶贝塞尔曲线输出到路径
+     *
+     * @param shape  {@link #shapeAt}的输出
+     * @param offset 形状在数组中的起始位置
+     */
+    public static void buildPath(float[] shape, int offset, PathSink sink) {
+        int d = offset + DATA_OFFSET;
+        int c = offset + CTRL_OFFSET;
+        sink.moveTo(shape[d], shape[d + 1]);
+        sink.cubicTo(shape[c], shape[c + 1], shape[c + 2], shape[c + 3], shape[d + 2], shape[d + 3]);
+        sink.cubicTo(shape[c + 4], shape[c + 5], shape[c + 6], shape[c + 7], shape[d + 4], shape[d + 5]);
+        sink.cubicTo(shape[c + 8], shape[c + 9], shape[c + 10], shape[c + 11], shape[d + 6], shape[d + 7]);
+        sink.cubicTo(shape[c + 12], shape[c + 13], shape[c + 14], shape[c + 15], shape[d], shape[d + 1]);
+        sink.close();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 判断一个点是否落在水滴内
+ * <p>
+ * 先和包围盒比较，绝大多数落在外面的点到这里就结束了；在包围盒内的点再和4段曲线拆成的多边形按非零环绕规则判断。
+ * 多边形缓存起来，只有形状真的变化时才重新拆分，判断本身只是一遍边的遍历，不分配内存。
+ */
+public class DropletHitTester {
+    /**
+     * 拆分曲线的默认容差（像素），手指的精度远低于这个值
+     */
+    public static final float DEFAULT_TOLERANCE = 0.5f;
+    
+    private final float[] mShape = new float[DropletGeometry.SIZE];
+    private boolean mHasShape;
+    private boolean mDirty;
+    private float mTolerance = DEFAULT_TOLERANCE;
+    
+    /**
+     * 多边形的顶点，首尾不重复
+     */
+    private final float[] mPolygon = new float[4 * 2 * BezierFlattener.MAX_SEGMENTS];
+    private int mPointCount;
+    private final float[] mBounds = new float[4];
+    private int mRebuildCount;
+    
+    public void setTolerance(float tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be > 0");
+        }
+        if (tolerance != mTolerance) {
+            mTolerance = tolerance;
+            mDirty = true;
+        }
+    }
+    
+    /**
+     * 更新形状，和上一次相同时什么都不做
+     *
+     * @param shape {@link DropletGeometry#shapeAt}的输出
+     */
+    public void setShape(float[] shape, int offset) {
+        if (mHasShape) {
+            boolean same = true;
+            for (int i = 0; i < DropletGeometry.SIZE; i++) {
+                if (mShape[i] != shape[offset + i]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return;
+            }
+        }
+        System.arraycopy(shape, offset, mShape, 0, DropletGeometry.SIZE);
+        mHasShape = true;
+        mDirty = true;
+    }
+    
+    /**
+     * 点(x, y)是否在水滴内，坐标系和形状相同
+     */
+    public boolean contains(float x, float y) {
+        if (!mHasShape) {
+            return false;
+        }
+        if (mDirty) {
+            rebuild();
+        }
+        if (x < mBounds[0] || y < mBounds[1] || x > mBounds[2] || y > mBounds[3]) {
+            return false;
+        }
+        //非零环绕：向右的射线穿过向上的边+1，向下的边-1
+        float[] p = mPolygon;
+        int winding = 0;
+        int last = (mPointCount - 1) * 2;
+        float x0 = p[last];
+        float y0 = p[last + 1];
+        for (int i = 0; i < mPointCount * 2; i += 2) {
+            float x1 = p[i];
+            float y1 = p[i + 1];
+            if (y0 <= y) {
+                if (y1 > y && cross(x0, y0, x1, y1, x, y) > 0) {
+                    winding++;
+                }
+            } else if (y1 <= y && cross(x0, y0, x1, y1, x, y) < 0) {
+                winding--;
+            }
+            x0 = x1;
+            y0 = y1;
+        }
+        return winding != 0;
+    }
+    
+    /**
+     * 点在有向线段(x0, y0)→(x1, y1)左侧为正
+     */
+    private static float cross(float x0, float y0, float x1, float y1, float x, float y) {
+        return (x1 - x0) * (y - y0) - (x - x0) * (y1 - y0);
+    }
+    
+    private void rebuild() {
+        float[] s = mShape;
+        int o = 0;
+        for (int i = 0; i < 4; i++) {
+            int d0 = DropletGeometry.DATA_OFFSET + 2 * i;
+            int d1 = DropletGeometry.DATA_OFFSET + 2 * ((i + 1) % 4);
+            int c = DropletGeometry.CTRL_OFFSET + 4 * i;
+            o += 2 * BezierFlattener.adaptiveCubic(s[d0], s[d0 + 1], s[c], s[c + 1], s[c + 2], s[c + 3],
+                    s[d1], s[d1 + 1], mTolerance, mPolygon, o);
+        }
+        mPointCount = o / 2;
+        float left = mPolygon[0];
+        float top = mPolygon[1];
+        float right = left;
+        float bottom = top;
+        for (int i = 2; i < o; i += 2) {
+            left = Math.min(left, mPolygon[i]);
+            right = Math.max(right, mPolygon[i]);
+            top = Math.min(top, mPolygon[i + 1]);
+            bottom = Math.max(bottom, mPolygon[i + 1]);
+        }
+        mBounds[0] = left;
+        mBounds[1] = top;
+        mBounds[2] = right;
+        mBounds[3] = bottom;
+        mDirty = false;
+        mRebuildCount++;
+    }
+    
+    /**
+     * 多边形的顶点数
+     */
+    public int getPointCount() {
+        if (mDirty) {
+            rebuild();
+        }
+        return mPointCount;
+    }
+    
+    /**
+     * 多边形重新生成的次数
+     */
+    public int getRebuildCount() {
+        return mRebuildCount;
+    }
+}
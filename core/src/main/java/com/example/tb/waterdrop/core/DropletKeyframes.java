@@ -0,0 +1,155 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 水滴形状的关键帧表：若干个进度上的12个点，中间按线性插值
+ * <p>
+ * {@link DropletGeometry}里每个点的坐标对进度都是分段线性的，分段点就是各个阶段的分界，
+ * 所以只要在这几个分界上各取一帧，插值结果和几何内核完全一致，一份表只有几百字节。
+ */
+public class DropletKeyframes {
+    /**
+     * 最左边数据点和它两个控制点x坐标的下标，回弹只移动这三个值
+     */
+    private static final int LEFT_DATA_X = DropletGeometry.DATA_OFFSET + 6;
+    private static final int LEFT_CTRL_X1 = DropletGeometry.CTRL_OFFSET + 10;
+    private static final int LEFT_CTRL_X2 = DropletGeometry.CTRL_OFFSET + 12;
+    
+    private final float mRadius;
+    private final float mDistance;
+    /**
+     * 关键帧的进度，升序，从0到1
+     */
+    private final float[] mTimes;
+    /**
+     * 每个关键帧{@link DropletGeometry#SIZE}个float，紧密排列
+     */
+    private final float[] mValues;
+    
+    /**
+     * @param radius   半径，向左镜像时以(radius, 0)为轴
+     * @param distance 移动距离，只用来标识这份表
+     * @param times    关键帧的进度，升序，第一个为0，最后一个为1
+     * @param values   每帧{@link DropletGeometry#SIZE}个float
+     */
+    public DropletKeyframes(float radius, float distance, float[] times, float[] values) {
+        if (times.length < 2 || values.length != times.length * DropletGeometry.SIZE) {
+            throw new IllegalArgumentException("need at least 2 keyframes of " + DropletGeometry.SIZE + " floats");
+        }
+        mRadius = radius;
+        mDistance = distance;
+        mTimes = times;
+        mValues = values;
+    }
+    
+    /**
+     * 在几何内核的每个阶段分界上取一帧
+     */
+    public static DropletKeyframes sample(DropletGeometry geometry) {
+        float travel = geometry.getTravel();
+        float each = geometry.getEachDis();
+        float distance = geometry.getDistance();
+        float[] times = {
+                0f, each / travel, 2 * each / travel, distance / travel, (distance + each) / travel, 1f
+        };
+        float[] values = new float[times.length * DropletGeometry.SIZE];
+        for (int i = 0; i < times.length; i++) {
+            geometry.shapeAt(times[i], 0f, values, i * DropletGeometry.SIZE);
+        }
+        return new DropletKeyframes(geometry.getRadius(), distance, times, values);
+    }
+    
+    public float getRadius() {
+        return mRadius;
+    }
+    
+    public float getDistance() {
+        return mDistance;
+    }
+    
+    public int getKeyframeCount() {
+        return mTimes.length;
+    }
+    
+    public float getTime(int index) {
+        return mTimes[index];
+    }
+    
+    /**
+     * 第index帧的形状在{@link #getValues()}中的起始位置
+     */
+    public int getOffset(int index) {
+        return index * DropletGeometry.SIZE;
+    }
+    
+    /**
+     * 所有关键帧的形状，不要修改
+     */
+    public float[] getValues() {
+        return mValues;
+    }
+    
+    /**
+     * 这份表占用的字节数
+     */
+    public int getByteSize() {
+        return (mTimes.length + mValues.length) * 4;
+    }
+    
+    /**
+     * 是否是按这组参数生成的
+     */
+    public boolean matches(float radius, float distance) {
+        return mRadius == radius && mDistance == distance;
+    }
+    
+    /**
+     * 找到进度所在的区间，返回区间起点的下标
+     */
+    protected int segmentAt(float p) {
+        int k = 0;
+        int last = mTimes.length - 2;
+        while (k < last && p > mTimes[k + 1]) {
+            k++;
+        }
+        return k;
+    }
+    
+    /**
+     * 进度在区间内的插值系数，子类可以改成缓动
+     *
+     * @param segment 区间起点的下标
+     * @param t       线性的区间内进度，0～1
+     */
+    protected float interpolate(int segment, float t) {
+        return t;
+    }
+    
+    /**
+     * 和{@link DropletGeometry#shapeAt(float, float, float[], int)}参数、输出完全一致
+     */
+    public float[] shapeAt(float progress, float rebound, float[] out, int offset) {
+        float p = Math.min(Math.abs(progress), 1f);
+        int k = segmentAt(p);
+        float t0 = mTimes[k];
+        float span = mTimes[k + 1] - t0;
+        float t = span > 0 ? Math.max(0f, Math.min((p - t0) / span, 1f)) : 1f;
+        t = interpolate(k, t);
+        int a = k * DropletGeometry.SIZE;
+        int b = a + DropletGeometry.SIZE;
+        float[] v = mValues;
+        for (int i = 0; i < DropletGeometry.SIZE; i++) {
+            out[offset + i] = v[a + i] + (v[b + i] - v[a + i]) * t;
+        }
+        out[offset + LEFT_DATA_X] += rebound;
+        out[offset + LEFT_CTRL_X1] += rebound;
+        out[offset + LEFT_CTRL_X2] += rebound;
+        if (progress < 0) {
+            //向左：以初始圆心为轴镜像
+            float axis = 2 * mRadius;
+            for (int i = offset; i < offset + DropletGeometry.SIZE; i += 2) {
+                out[i] = axis - out[i];
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 水滴的细节层次：按屏幕上的半径和允许的误差，用4段二阶、4段、8段或16段三阶曲线输出同一个形状
+ * <p>
+ * 形变仍由{@link DropletGeometry}的4段曲线决定，这里只改变输出的方式，所以每个阶段在各个层次下都一致：
+ * <ul>
+ * <li>{@link #QUAD}：每段按中点降阶换成一条二阶曲线，最便宜，适合很小的指示器</li>
+ * <li>{@link #CUBIC_4}：原样输出，等同于{@link DropletGeometry#buildPath}</li>
+ * <li>{@link #CUBIC_8}、{@link #CUBIC_16}：每段按de Casteljau均分成2段或4段，再加上一组固定的修正量</li>
+ * </ul>
+ * 以两端切线的交点为角，每段曲线可以拆成两部分：单位四分之一圆的三阶曲线经过仿射变换，加上手柄偏离圆弧比例的那部分三阶曲线。
+ * 把前一部分的点沿半径推到圆上（再做同样的仿射变换），就是各层次共同逼近的参考形状：圆和椭圆阶段是真正的椭圆弧，
+ * 锥形阶段在4段三阶曲线的基础上只沿单位空间的半径方向挪动，不改变参数的对应关系。
+ * 修正量在单位空间里算好：每一小段的端点落在参考形状上，手柄沿参考形状的切线，长度让小段的中点也落在参考形状上；
+ * 手柄偏离的那部分本身就是三阶曲线，均分后不产生误差。所以修正对所有阶段都是完整的，没有渐变或截断。
+ * <p>
+ * 4段三阶曲线离参考形状最多约半径的0.035%（圆上0.02%），8段和16段依次降到0.009%和0.002%。
+ * 允许误差0.25px时，{@link #select}在半径超过约710px才会选8段，超过约2800px才会选16段，手机上基本只用到二阶和4段；
+ * 二阶近似在圆上偏差约半径的1%，拉长的锥形上约7%，只适合半径只有几个像素的时候。
+ */
+public final class DropletLod {
+    public static final int QUAD = 0;
+    public static final int CUBIC_4 = 1;
+    public static final int CUBIC_8 = 2;
+    public static final int CUBIC_16 = 3;
+    public static final int LEVEL_COUNT = 4;
+    
+    /**
+     * 每个层次把一段曲线拆成几段
+     */
+    private static final int[] SPLITS = {1, 1, 2, 4};
+    /**
+     * 到切线交点的距离超过弦长的这个倍数时（两端切线接近平行）不再修正，只做均分。
+     * 水滴的切线总是互相垂直，到交点的距离不超过弦长，用不到这个限制
+     */
+    private static final float LEG_LIMIT = 4f;
+    /**
+     * 每个层次在单位空间里的修正量：每一小段的控制点1、控制点2、终点，各一对x、y
+     */
+    private static final float[][] CORRECTIONS = new float[LEVEL_COUNT][];
+    /**
+     * 每个层次离参考形状的最大距离与半径之比。移动距离取半径的1～24倍，回弹取0～半径的一半，
+     * 扫过全部进度测得，DropletLodTest里重新测量并核对
+     */
+    private static final float[] ERRORS = {0.075f, 3.5e-4f, 9e-5f, 2e-5f};
+    
+    static {
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            CORRECTIONS[level] = level == QUAD ? new float[0] : computeCorrections(SPLITS[level]);
+        }
+    }
+    
+    private DropletLod() {
+    }
+    
+    /**
+     * 整个水滴的曲线段数
+     */
+    public static int segmentCount(int level) {
+        return 4 * SPLITS[level];
+    }
+    
+    /**
+     * 最大误差与半径之比，误差是到参考形状的距离，见类的说明
+     */
+    public static float errorFactor(int level) {
+        return ERRORS[level];
+    }
+    
+    /**
+     * 选出误差不超过tolerance的最便宜的层次，都不满足时返回{@link #CUBIC_16}
+     *
+     * @param radius    屏幕上的半径（像素）
+     * @param tolerance 允许的最大误差（像素）
+     */
+    public static int select(float radius, float tolerance) {
+        for (int level = QUAD; level < CUBIC_16; level++) {
+            if (ERRORS[level] * radius <= tolerance) {
+                return level;
+            }
+        }
+        return CUBIC_16;
+    }
+    
+    /**
+     * 按指定层次输出形状
+     *
+     * @param shape {@link DropletGeometry#shapeAt}的输出
+     */
+    public static void buildPath(float[] shape, int offset, int level, PathSink sink) {
+        if (level == CUBIC_4) {
+            DropletGeometry.buildPath(shape, offset, sink);
+            return;
+        }
+        int d = offset + DropletGeometry.DATA_OFFSET;
+        sink.moveTo(shape[d], shape[d + 1]);
+        for (int i = 0; i < 4; i++) {
+            int d0 = d + 2 * i;
+            int d1 = d + 2 * ((i + 1) % 4);
+            int c = offset + DropletGeometry.CTRL_OFFSET + 4 * i;
+            if (level == QUAD) {
+                quad(shape[d0], shape[d0 + 1], shape[c], shape[c + 1], shape[c + 2], shape[c + 3],
+                        shape[d1], shape[d1 + 1], sink);
+            } else {
+                cubic(shape[d0], shape[d0 + 1], shape[c], shape[c + 1], shape[c + 2], shape[c + 3],
+                        shape[d1], shape[d1 + 1], SPLITS[level], CORRECTIONS[level], sink);
+            }
+        }
+        sink.close();
+    }
+    
+    /**
+     * 一段三阶曲线换成一条二阶曲线：按中点降阶，控制点(3 * (P1 + P2) - P0 - P3) / 4，
+     * 二阶曲线的中点和切线方向在t = 0.5处与原曲线一致，端点处的切线会有轻微的折角
+     */
+    private static void quad(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                             PathSink sink) {
+        sink.quadTo((3 * (x1 + x2) - x0 - x3) / 4, (3 * (y1 + y2) - y0 - y3) / 4, x3, y3);
+    }
+    
+    /**
+     * 一段三阶曲线均分成n段，每段加上单位空间修正量的仿射映射
+     */
+    private static void cubic(float x0, float y0, float x1, float y1, float x2, float y2, float x3, float y3,
+                              int n, float[] corrections, PathSink sink) {
+        //仿射变换：单位空间的(u, v)映射到O + u * (P3 - O) + v * (P0 - O)，O = P0 + P3 - 切线交点
+        float ux = 0f;
+        float uy = 0f;
+        float vx = 0f;
+        float vy = 0f;
+        float tx0 = x1 - x0;
+        float ty0 = y1 - y0;
+        float tx1 = x2 - x3;
+        float ty1 = y2 - y3;
+        float cross = tx0 * ty1 - ty0 * tx1;
+        float scale = (tx0 * tx0 + ty0 * ty0) * (tx1 * tx1 + ty1 * ty1);
+        if (cross * cross > 1e-6f * scale) {
+            float s = ((x3 - x0) * ty1 - (y3 - y0) * tx1) / cross;
+            float cornerX = x0 + s * tx0;
+            float cornerY = y0 + s * ty0;
+            //P3 - O = corner - P0，P0 - O = corner - P3
+            ux = cornerX - x0;
+            uy = cornerY - y0;
+            vx = cornerX - x3;
+            vy = cornerY - y3;
+            float chord = (x3 - x0) * (x3 - x0) + (y3 - y0) * (y3 - y0);
+            float limit = LEG_LIMIT * LEG_LIMIT * chord;
+            if (ux * ux + uy * uy > limit || vx * vx + vy * vy > limit) {
+                ux = 0f;
+                uy = 0f;
+                vx = 0f;
+                vy = 0f;
+            }
+        }
+        //切线平行或接近平行时没有对应的圆弧，修正量为0，只做de Casteljau均分
+        //B(t) = a t³ + b t² + c t + p0，逐段取出子曲线
+        float ax = x3 - x0 + 3 * (x1 - x2);
+        float ay = y3 - y0 + 3 * (y1 - y2);
+        float bx = 3 * (x0 - 2 * x1 + x2);
+        float by = 3 * (y0 - 2 * y1 + y2);
+        float cx = 3 * (x1 - x0);
+        float cy = 3 * (y1 - y0);
+        float h = 1f / n;
+        float sx = x0;
+        float sy = y0;
+        for (int j = 0; j < n; j++) {
+            float t0 = j * h;
+            float t1 = t0 + h;
+            float ex = j == n - 1 ? x3 : ((ax * t1 + bx) * t1 + cx) * t1 + x0;
+            float ey = j == n - 1 ? y3 : ((ay * t1 + by) * t1 + cy) * t1 + y0;
+            //子曲线的控制点：端点加上导数的h / 3倍
+            float dx0 = (3 * ax * t0 + 2 * bx) * t0 + cx;
+            float dy0 = (3 * ay * t0 + 2 * by) * t0 + cy;
+            float dx1 = (3 * ax * t1 + 2 * bx) * t1 + cx;
+            float dy1 = (3 * ay * t1 + 2 * by) * t1 + cy;
+            int k = 6 * j;
+            float c1x = sx + dx0 * h / 3 + corrections[k] * ux + corrections[k + 1] * vx;
+            float c1y = sy + dy0 * h / 3 + corrections[k] * uy + corrections[k + 1] * vy;
+            float c2x = ex - dx1 * h / 3 + corrections[k + 2] * ux + corrections[k + 3] * vx;
+            float c2y = ey - dy1 * h / 3 + corrections[k + 2] * uy + corrections[k + 3] * vy;
+            ex += corrections[k + 4] * ux + corrections[k + 5] * vx;
+            ey += corrections[k + 4] * uy + corrections[k + 5] * vy;
+            sink.cubicTo(c1x, c1y, c2x, c2y, ex, ey);
+            sx = ex;
+            sy = ey;
+        }
+    }
+    
+    /**
+     * 单位四分之一圆的三阶曲线（从(0, 1)到(1, 0)，控制点(C, 1)、(1, C)）均分成n段后，
+     * 每段和参考形状小段的差：分点沿半径方向推到圆上，手柄沿圆的切线，长度让小段在中间参数的点也沿半径落在圆上。
+     * 只依赖单位空间里的参数对应关系，和手柄偏离的那部分无关
+     */
+    private static float[] computeCorrections(int n) {
+        float[] corrections = new float[6 * n];
+        double[] p0 = new double[2];
+        double[] p1 = new double[2];
+        double[] middle = new double[2];
+        double[] d0 = new double[2];
+        double[] d1 = new double[2];
+        double h = 1.0 / n;
+        for (int j = 0; j < n; j++) {
+            double t0 = j * h;
+            double t1 = t0 + h;
+            unitArc(t0, p0, d0);
+            unitArc(t1, p1, d1);
+            unitArc(t0 + h / 2, middle, null);
+            //de Casteljau得到的子曲线
+            double c1x = p0[0] + d0[0] * h / 3;
+            double c1y = p0[1] + d0[1] * h / 3;
+            double c2x = p1[0] - d1[0] * h / 3;
+            double c2y = p1[1] - d1[1] * h / 3;
+            //推到圆上的端点和中点，沿顺时针（从(0, 1)向(1, 0)）方向的切线是(y, -x)
+            double l0 = Math.hypot(p0[0], p0[1]);
+            double l1 = Math.hypot(p1[0], p1[1]);
+            double lm = Math.hypot(middle[0], middle[1]);
+            double qx0 = p0[0] / l0;
+            double qy0 = p0[1] / l0;
+            double qx1 = p1[0] / l1;
+            double qy1 = p1[1] / l1;
+            //三阶曲线的中点(Q0 + 3 * H0 + 3 * H1 + Q1) / 8，H0 = Q0 + a * T0，H1 = Q1 - b * T1，解出a、b
+            double rx = (middle[0] / lm - (qx0 + qx1) / 2) * 8 / 3;
+            double ry = (middle[1] / lm - (qy0 + qy1) / 2) * 8 / 3;
+            double det = qx0 * qy1 - qy0 * qx1;
+            double a = (-rx * qx1 - ry * qy1) / det;
+            double b = (-qy0 * ry - qx0 * rx) / det;
+            int o = 6 * j;
+            //子曲线从上一段修正后的终点出发，起点已经偏移了(q0 - p)，控制点1只需再补上剩下的部分
+            corrections[o] = (float) (qx0 + a * qy0 - c1x - (qx0 - p0[0]));
+            corrections[o + 1] = (float) (qy0 - a * qx0 - c1y - (qy0 - p0[1]));
+            corrections[o + 2] = (float) (qx1 - b * qy1 - c2x);
+            corrections[o + 3] = (float) (qy1 + b * qx1 - c2y);
+            corrections[o + 4] = (float) (qx1 - p1[0]);
+            corrections[o + 5] = (float) (qy1 - p1[1]);
+        }
+        return corrections;
+    }
+    
+    /**
+     * 单位四分之一圆的三阶曲线在t处的点和导数
+     *
+     * @param derivative 不需要导数时传null
+     */
+    private static void unitArc(double t, double[] point, double[] derivative) {
+        double c = DropletGeometry.C;
+        double mt = 1 - t;
+        point[0] = 3 * mt * mt * t * c + 3 * mt * t * t + t * t * t;
+        point[1] = mt * mt * mt + 3 * mt * mt * t + 3 * mt * t * t * c;
+        if (derivative != null) {
+            derivative[0] = 3 * mt * mt * c + 6 * mt * t * (1 - c);
+            derivative[1] = 6 * mt * t * (c - 1) - 3 * t * t * c;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 定长等宽分桶的直方图，用来统计耗时之类的非负整数，记录时不分配内存
+ * <p>
+ * 第i个桶统计[i * width, (i + 1) * width)，超出范围的都记在最后一个桶里，分位数按桶的上界给出。
+ */
+public class Histogram {
+    private final long mBucketWidth;
+    private final long[] mBuckets;
+    
+    private long mCount;
+    private long mSum;
+    private long mMin;
+    private long mMax;
+    
+    /**
+     * @param bucketWidth 每个桶的宽度
+     * @param bucketCount 桶的个数，最后一个桶同时收纳所有超出范围的值
+     */
+    public Histogram(long bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("bucketWidth and bucketCount must be > 0");
+        }
+        mBucketWidth = bucketWidth;
+        mBuckets = new long[bucketCount];
+        reset();
+    }
+    
+    /**
+     * 记录一个值，负数按0处理
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        long index = value / mBucketWidth;
+        mBuckets[index >= mBuckets.length ? mBuckets.length - 1 : (int) index]++;
+        mCount++;
+        mSum += value;
+        if (value < mMin) {
+            mMin = value;
+        }
+        if (value > mMax) {
+            mMax = value;
+        }
+    }
+    
+    public long getCount() {
+        return mCount;
+    }
+    
+    public long getSum() {
+        return mSum;
+    }
+    
+    public double getMean() {
+        return mCount == 0 ? 0 : (double) mSum / mCount;
+    }
+    
+    /**
+     * @return 没有记录时为0
+     */
+    public long getMin() {
+        return mCount == 0 ? 0 : mMin;
+    }
+    
+    public long getMax() {
+        return mMax;
+    }
+    
+    public long getBucketWidth() {
+        return mBucketWidth;
+    }
+    
+    public int getBucketCount() {
+        return mBuckets.length;
+    }
+    
+    /**
+     * 第index个桶里的记录数
+     */
+    public long getBucket(int index) {
+        return mBuckets[index];
+    }
+    
+    /**
+     * 分位数
+     *
+     * @param fraction 0～1，比如0.9表示P90
+     * @return 所在桶的上界，不超过记录过的最大值；没有记录时为0
+     */
+    public long getPercentile(double fraction) {
+        if (mCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.max(0, Math.min(fraction, 1)) * mCount);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < mBuckets.length; i++) {
+            seen += mBuckets[i];
+            if (seen >= rank) {
+                return Math.min((i + 1) * mBucketWidth, mMax);
+            }
+        }
+        return mMax;
+    }
+    
+    /**
+     * 把另一个同样分桶的直方图并进来
+     */
+    public void add(Histogram other) {
+        if (other.mBucketWidth != mBucketWidth || other.mBuckets.length != mBuckets.length) {
+            throw new IllegalArgumentException("bucket layout mismatch");
+        }
+        if (other.mCount == 0) {
+            return;
+        }
+        for (int i = 0; i < mBuckets.length; i++) {
+            mBuckets[i] += other.mBuckets[i];
+        }
+        mCount += other.mCount;
+        mSum += other.mSum;
+        mMin = Math.min(mMin, other.mMin);
+        mMax = Math.max(mMax, other.mMax);
+    }
+    
+    public void reset() {
+        for (int i = 0; i < mBuckets.length; i++) {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+}
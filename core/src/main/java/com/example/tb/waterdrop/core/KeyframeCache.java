@@ -0,0 +1,197 @@
+package com.example.tb.waterdrop.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 进程内共享的关键帧表缓存，按(半径, 移动距离)区分，超过内存预算时按LRU淘汰
+ * <p>
+ * 同一组参数的表只生成一次，屏幕上几十个相同的指示器共用一份。生成放在调用方提供的后台线程里，
+ * 生成完成之前控件直接用几何内核计算，不会等待。
+ */
+public class KeyframeCache {
+    
+    public interface Listener {
+        /**
+         * 表已经可用，可能在调用线程，也可能在后台线程回调
+         */
+        void onKeyframesReady(DropletKeyframes keyframes);
+    }
+    
+    /**
+     * 默认的内存预算
+     */
+    public static final int DEFAULT_BUDGET_BYTES = 256 * 1024;
+    
+    private static final KeyframeCache sInstance = new KeyframeCache(DEFAULT_BUDGET_BYTES);
+    
+    private final LinkedHashMap<Long, DropletKeyframes> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * 正在生成的表，以及等它生成完成的监听
+     */
+    private final Map<Long, List<Listener>> mPending = new HashMap<>();
+    private int mBudgetBytes;
+    private int mSizeBytes;
+    
+    private long mHits;
+    private long mMisses;
+    private long mEvictions;
+    
+    public KeyframeCache(int budgetBytes) {
+        mBudgetBytes = budgetBytes;
+    }
+    
+    /**
+     * 进程内共享的实例
+     */
+    public static KeyframeCache getInstance() {
+        return sInstance;
+    }
+    
+    /**
+     * 获取一份表，缓存里没有时在executor上生成，生成完成后回调所有在等的监听
+     *
+     * @throws RejectedExecutionException executor拒绝执行，这次生成取消，在等的监听都不会回调，下次调用会重新生成
+     */
+    public void acquire(final float radius, final float distance, Executor executor, Listener listener) {
+        final Long key = key(radius, distance);
+        DropletKeyframes keyframes;
+        synchronized (this) {
+            keyframes = mEntries.get(key);
+            if (keyframes != null) {
+                mHits++;
+            } else {
+                List<Listener> waiting = mPending.get(key);
+                if (waiting != null) {
+                    //已经在生成了，排队等待，和别人共用同一次生成，算作命中
+                    mHits++;
+                    waiting.add(listener);
+                    return;
+                }
+                mMisses++;
+                waiting = new ArrayList<>();
+                waiting.add(listener);
+                mPending.put(key, waiting);
+            }
+        }
+        if (keyframes != null) {
+            listener.onKeyframesReady(keyframes);
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    DropletKeyframes built = DropletKeyframes.sample(new DropletGeometry(radius, distance));
+                    List<Listener> waiting;
+                    synchronized (KeyframeCache.this) {
+                        put(key, built);
+                        waiting = mPending.remove(key);
+                    }
+                    for (int i = 0; i < waiting.size(); i++) {
+                        waiting.get(i).onKeyframesReady(built);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //不移除的话后来的调用会一直等一次永远不会执行的生成
+            synchronized (this) {
+                mPending.remove(key);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 同步获取一份表，缓存里没有就在当前线程生成
+     */
+    public DropletKeyframes getOrBuild(float radius, float distance) {
+        Long key = key(radius, distance);
+        synchronized (this) {
+            DropletKeyframes keyframes = mEntries.get(key);
+            if (keyframes != null) {
+                mHits++;
+                return keyframes;
+            }
+            mMisses++;
+        }
+        DropletKeyframes built = DropletKeyframes.sample(new DropletGeometry(radius, distance));
+        synchronized (this) {
+            put(key, built);
+        }
+        return built;
+    }
+    
+    private void put(Long key, DropletKeyframes keyframes) {
+        DropletKeyframes old = mEntries.put(key, keyframes);
+        if (old != null) {
+            mSizeBytes -= old.getByteSize();
+        }
+        mSizeBytes += keyframes.getByteSize();
+        trimToBudget();
+    }
+    
+    private void trimToBudget() {
+        Iterator<DropletKeyframes> iterator = mEntries.values().iterator();
+        //至少保留最近使用的一份
+        while (mSizeBytes > mBudgetBytes && mEntries.size() > 1 && iterator.hasNext()) {
+            DropletKeyframes eldest = iterator.next();
+            iterator.remove();
+            mSizeBytes -= eldest.getByteSize();
+            mEvictions++;
+        }
+    }
+    
+    public synchronized void setBudgetBytes(int budgetBytes) {
+        mBudgetBytes = budgetBytes;
+        trimToBudget();
+    }
+    
+    public synchronized int getBudgetBytes() {
+        return mBudgetBytes;
+    }
+    
+    public synchronized int getSizeBytes() {
+        return mSizeBytes;
+    }
+    
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+    
+    public synchronized long getHitCount() {
+        return mHits;
+    }
+    
+    /**
+     * 实际生成表的次数，等待正在生成的表算作命中
+     */
+    public synchronized long getMissCount() {
+        return mMisses;
+    }
+    
+    public synchronized long getEvictionCount() {
+        return mEvictions;
+    }
+    
+    /**
+     * 清空缓存和统计
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mSizeBytes = 0;
+        mHits = 0;
+        mMisses = 0;
+        mEvictions = 0;
+    }
+    
+    private static Long key(float radius, float distance) {
+        return ((long) Float.floatToIntBits(radius) << 32) | (Float.floatToIntBits(distance) & 0xffffffffL);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.tb.waterdrop.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 元球（隐式曲面）渲染：每个水滴贡献一个场 r² / d²，场的总和超过阈值的地方就是水面，两个水滴靠近时自然地连成一片
+ * <p>
+ * 画布切成{@link #TILE_SIZE}大小的块，用ForkJoinPool并行计算。每个块先估算场在块内的上界，
+ * 够不到阈值的块直接清空，不逐像素计算。边缘按场的梯度估算到水面的距离做抗锯齿。
+ * 像素缓冲区由调用方提供并复用，格式同{@link ScanlineRasterizer}：非预乘ARGB。
+ * ForkJoinPool在Android上需要API 21，这个类主要给JVM上的测试、基准和预览图生成使用。
+ */
+public class MetaballRenderer {
+    /**
+     * 块的边长（像素）
+     */
+    public static final int TILE_SIZE = 32;
+    /**
+     * 一个子任务至少处理的块数，再小拆分的开销就超过计算本身了
+     */
+    private static final int MIN_TILES_PER_TASK = 4;
+    
+    private final ForkJoinPool mPool;
+    
+    private int[] mPixels;
+    private int mWidth;
+    private int mHeight;
+    private int mTilesX;
+    private int mTileCount;
+    
+    private float mThreshold = 1f;
+    private int mColor;
+    
+    private float[] mBalls = new float[3 * 8];
+    private int mBallCount;
+    
+    private final AtomicInteger mRenderedTiles = new AtomicInteger();
+    private final AtomicInteger mSkippedTiles = new AtomicInteger();
+    
+    /**
+     * @param pool 计算用的线程池，由调用方创建和关闭，parallelism决定用几个核
+     */
+    public MetaballRenderer(ForkJoinPool pool) {
+        mPool = pool;
+    }
+    
+    public void setTarget(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("pixels too small for " + width + "x" + height);
+        }
+        mPixels = pixels;
+        mWidth = width;
+        mHeight = height;
+        mTilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        mTileCount = mTilesX * ((height + TILE_SIZE - 1) / TILE_SIZE);
+    }
+    
+    /**
+     * 场的阈值，默认1，单个水滴的水面正好是半径为r的圆
+     */
+    public void setThreshold(float threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be > 0");
+        }
+        mThreshold = threshold;
+    }
+    
+    public void clearBalls() {
+        mBallCount = 0;
+    }
+    
+    public void addBall(float x, float y, float radius) {
+        if (mBalls.length < (mBallCount + 1) * 3) {
+            float[] balls = new float[mBalls.length * 2];
+            System.arraycopy(mBalls, 0, balls, 0, mBallCount * 3);
+            mBalls = balls;
+        }
+        int b = mBallCount * 3;
+        mBalls[b] = x;
+        mBalls[b + 1] = y;
+        //只存r²，求场时不再平方
+        mBalls[b + 2] = radius * radius;
+        mBallCount++;
+    }
+    
+    public int getBallCount() {
+        return mBallCount;
+    }
+    
+    /**
+     * 渲染整个画布，覆盖原有内容，水面以外是全透明
+     *
+     * @param color 非预乘ARGB
+     */
+    public void render(int color) {
+        if (mPixels == null) {
+            throw new IllegalStateException("call setTarget first");
+        }
+        mColor = color;
+        mRenderedTiles.set(0);
+        mSkippedTiles.set(0);
+        mPool.invoke(new TileTask(0, mTileCount));
+    }
+    
+    /**
+     * 上一次渲染中逐像素计算的块数
+     */
+    public int getRenderedTileCount() {
+        return mRenderedTiles.get();
+    }
+    
+    /**
+     * 上一次渲染中因为场够不到阈值而跳过的块数
+     */
+    public int getSkippedTileCount() {
+        return mSkippedTiles.get();
+    }
+    
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int mFrom;
+        private final int mTo;
+        
+        TileTask(int from, int to) {
+            mFrom = from;
+            mTo = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= MIN_TILES_PER_TASK) {
+                for (int tile = mFrom; tile < mTo; tile++) {
+                    renderTile(tile);
+                }
+                return;
+            }
+            int mid = (mFrom + mTo) >>> 1;
+            invokeAll(new TileTask(mFrom, mid), new TileTask(mid, mTo));
+        }
+    }
+    
+    private void renderTile(int tile) {
+        int left = (tile % mTilesX) * TILE_SIZE;
+        int top = (tile / mTilesX) * TILE_SIZE;
+        int right = Math.min(left + TILE_SIZE, mWidth);
+        int bottom = Math.min(top + TILE_SIZE, mHeight);
+        if (fieldUpperBound(left, top, right, bottom) < mThreshold) {
+            for (int y = top; y < bottom; y++) {
+                int row = y * mWidth;
+                for (int x = left; x < right; x++) {
+                    mPixels[row + x] = 0;
+                }
+            }
+            mSkippedTiles.incrementAndGet();
+            return;
+        }
+        float[] balls = mBalls;
+        int count = mBallCount * 3;
+        float threshold = mThreshold;
+        float surface = 1f / (float) Math.sqrt(threshold);
+        int rgb = mColor & 0xffffff;
+        int srcAlpha = mColor >>> 24;
+        for (int y = top; y < bottom; y++) {
+            int row = y * mWidth;
+            float py = y + 0.5f;
+            for (int x = left; x < right; x++) {
+                float px = x + 0.5f;
+                float field = 0f;
+                float gx = 0f;
+                float gy = 0f;
+                for (int b = 0; b < count; b += 3) {
+                    float dx = px - balls[b];
+                    float dy = py - balls[b + 1];
+                    float d2 = dx * dx + dy * dy + 1e-6f;
+                    float f = balls[b + 2] / d2;
+                    field += f;
+                    //∇(r²/d²) = -2 r² (p - c) / d⁴
+                    float k = -2f * f / d2;
+                    gx += k * dx;
+                    gy += k * dy;
+                }
+                //q = 1 / √field对单个水滴就是d / r，和距离成正比，用它的梯度估算到水面的有向距离，
+                //跨过水面前后各半个像素时覆盖率从0过渡到1
+                float root = (float) Math.sqrt(field);
+                float q = 1f / root;
+                float gradient = 0.5f * (float) Math.sqrt(gx * gx + gy * gy) / (field * root);
+                float coverage = gradient > 0 ? 0.5f + (surface - q) / gradient : (field >= threshold ? 1f : 0f);
+                if (coverage <= 0f) {
+                    mPixels[row + x] = 0;
+                } else {
+                    int alpha = coverage >= 1f ? srcAlpha : (int) (coverage * srcAlpha + 0.5f);
+                    mPixels[row + x] = (alpha << 24) | rgb;
+                }
+            }
+        }
+        mRenderedTiles.incrementAndGet();
+    }
+    
+    /**
+     * 场在块内（向外扩一个像素，覆盖抗锯齿的过渡带）的上界：每个水滴取块内离它最近的点
+     */
+    private float fieldUpperBound(int left, int top, int right, int bottom) {
+        float l = left - 1;
+        float t = top - 1;
+        float r = right + 1;
+        float b = bottom + 1;
+        float bound = 0f;
+        for (int i = 0; i < mBallCount * 3; i += 3) {
+            float cx = mBalls[i];
+            float cy = mBalls[i + 1];
+            float dx = cx < l ? l - cx : (cx > r ? cx - r : 0f);
+            float dy = cy < t ? t - cy : (cy > b ? cy - b : 0f);
+            float d2 = dx * dx + dy * dy;
+            if (d2 == 0f) {
+                return Float.MAX_VALUE;
+            }
+            bound += mBalls[i + 2] / d2;
+        }
+        return bound;
+    }
+}
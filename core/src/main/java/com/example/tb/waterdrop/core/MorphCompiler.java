@@ -0,0 +1,171 @@
+package com.example.tb.waterdrop.core;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把设计给的文本形变描述编译成{@link MorphFormat}的二进制资源，只在构建时运行，由:app的compileMorph任务在preBuild之前调用
+ * <p>
+ * 文本以空白分隔，#到行尾是注释，坐标以半径为单位：
+ * <pre>
+ * distance 3
+ * keyframe 0    ease-out  x0 y0 ... x11 y11
+ * keyframe 0.25 linear    ...
+ * keyframe 1    -         ...
+ * </pre>
+ * 每个关键帧依次是进度、到下一帧的缓动（linear、ease-in、ease-out、ease-in-out，最后一帧写-）
+ * 和24个坐标，布局同{@link DropletGeometry}。命令行用法：
+ * <pre>
+ * java -cp core.jar com.example.tb.waterdrop.core.MorphCompiler droplet.morph droplet.wdmf
+ * </pre>
+ */
+public final class MorphCompiler {
+    private static final String[] EASING_NAMES = {"linear", "ease-in", "ease-out", "ease-in-out"};
+    
+    private MorphCompiler() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: MorphCompiler <input.morph> <output.wdmf>");
+            System.exit(1);
+        }
+        MorphKeyframes keyframes;
+        Reader in = new InputStreamReader(new FileInputStream(args[0]), "UTF-8");
+        try {
+            keyframes = parse(in);
+        } finally {
+            in.close();
+        }
+        OutputStream out = new FileOutputStream(args[1]);
+        try {
+            MorphFormat.write(keyframes, out);
+        } finally {
+            out.close();
+        }
+    }
+    
+    /**
+     * 解析文本描述，得到半径为1的关键帧表
+     *
+     * @throws IOException 语法错误时带上行号
+     */
+    public static MorphKeyframes parse(Reader reader) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            for (String token : line.trim().split("\\s+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                    lines.add(lineNumber);
+                }
+            }
+        }
+        float distance = Float.NaN;
+        List<float[]> frames = new ArrayList<>();
+        List<Byte> easings = new ArrayList<>();
+        int i = 0;
+        while (i < tokens.size()) {
+            String keyword = tokens.get(i++);
+            if ("distance".equals(keyword)) {
+                distance = number(tokens, lines, i++);
+            } else if ("keyframe".equals(keyword)) {
+                //进度，再跟24个坐标
+                float[] frame = new float[1 + DropletGeometry.SIZE];
+                frame[0] = number(tokens, lines, i++);
+                easings.add(easing(tokens, lines, i++));
+                for (int j = 1; j < frame.length; j++) {
+                    frame[j] = number(tokens, lines, i++);
+                }
+                frames.add(frame);
+            } else {
+                throw error(lines, i - 1, "unknown keyword " + keyword);
+            }
+        }
+        if (Float.isNaN(distance)) {
+            throw new IOException("missing distance");
+        }
+        int count = frames.size();
+        if (count < 2) {
+            throw new IOException("need at least 2 keyframes, got " + count);
+        }
+        float[] times = new float[count];
+        float[] values = new float[count * DropletGeometry.SIZE];
+        byte[] easingArray = new byte[count - 1];
+        for (int k = 0; k < count; k++) {
+            float[] frame = frames.get(k);
+            times[k] = frame[0];
+            System.arraycopy(frame, 1, values, k * DropletGeometry.SIZE, DropletGeometry.SIZE);
+            if (k < count - 1) {
+                easingArray[k] = easings.get(k);
+            }
+        }
+        return new MorphKeyframes(1f, distance, times, values, easingArray);
+    }
+    
+    /**
+     * 把关键帧表写回文本描述，用于从几何内核生成默认形变
+     */
+    public static String format(MorphKeyframes keyframes) {
+        float radius = keyframes.getRadius();
+        StringBuilder out = new StringBuilder();
+        out.append("distance ").append(keyframes.getDistance() / radius).append('\n');
+        float[] values = keyframes.getValues();
+        int count = keyframes.getKeyframeCount();
+        for (int k = 0; k < count; k++) {
+            out.append("keyframe ").append(keyframes.getTime(k)).append(' ')
+                    .append(k < count - 1 ? EASING_NAMES[keyframes.getEasing(k)] : "-").append('\n');
+            for (int j = 0; j < DropletGeometry.SIZE; j += 2) {
+                int o = keyframes.getOffset(k) + j;
+                out.append("    ").append(values[o] / radius).append(' ').append(values[o + 1] / radius).append('\n');
+            }
+        }
+        return out.toString();
+    }
+    
+    private static float number(List<String> tokens, List<Integer> lines, int index) throws IOException {
+        if (index >= tokens.size()) {
+            throw new IOException("unexpected end of input");
+        }
+        try {
+            return Float.parseFloat(tokens.get(index));
+        } catch (NumberFormatException e) {
+            throw error(lines, index, "bad number " + tokens.get(index));
+        }
+    }
+    
+    private static byte easing(List<String> tokens, List<Integer> lines, int index) throws IOException {
+        if (index >= tokens.size()) {
+            throw new IOException("unexpected end of input");
+        }
+        String name = tokens.get(index);
+        if ("-".equals(name)) {
+            return MorphKeyframes.EASE_LINEAR;
+        }
+        for (int i = 0; i < EASING_NAMES.length; i++) {
+            if (EASING_NAMES[i].equals(name)) {
+                return (byte) i;
+            }
+        }
+        throw error(lines, index, "unknown easing " + name);
+    }
+    
+    private static IOException error(List<Integer> lines, int index, String message) {
+        return new IOException("line " + lines.get(index) + ": " + message);
+    }
+}
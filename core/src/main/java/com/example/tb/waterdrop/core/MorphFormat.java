@@ -0,0 +1,118 @@
+package com.example.tb.waterdrop.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 形变关键帧的二进制格式（.wdmf），大端，一次顺序读完，可以直接读内存映射的资源文件
+ * <p>
+ * <pre>
+ * int32   魔数 'WDMF'
+ * uint16  版本，目前为1
+ * uint16  关键帧个数n，至少2
+ * float32 移动距离，以半径为单位
+ * float32 n个关键帧的进度，升序，从0到1
+ * float32 n * 24个坐标，以半径为单位，每帧的布局同{@link DropletGeometry}
+ * uint8   n - 1个区间的缓动，取值见{@link MorphKeyframes}的EASE_*常量
+ * </pre>
+ * 默认形变的文件不到700字节，读的时候没有任何文本解析，坐标按块整体拷贝。
+ */
+public final class MorphFormat {
+    /**
+     * 'W' 'D' 'M' 'F'
+     */
+    public static final int MAGIC = 0x57444D46;
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    
+    private MorphFormat() {
+    }
+    
+    /**
+     * 读出半径为1的关键帧表，用{@link MorphKeyframes#scale(float)}换算到实际半径
+     *
+     * @param buffer 从当前位置开始读，读完后位置在文件末尾
+     * @throws IOException 魔数、版本或内容不对
+     */
+    public static MorphKeyframes read(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a droplet morph file");
+            }
+            int version = buffer.getShort() & 0xffff;
+            if (version != VERSION) {
+                throw new IOException("unsupported morph version " + version);
+            }
+            int count = buffer.getShort() & 0xffff;
+            if (count < 2) {
+                throw new IOException("need at least 2 keyframes, got " + count);
+            }
+            float distance = buffer.getFloat();
+            float[] times = new float[count];
+            float[] values = new float[count * DropletGeometry.SIZE];
+            byte[] easings = new byte[count - 1];
+            if (buffer.remaining() < byteSize(count) - HEADER_BYTES) {
+                throw new IOException("truncated morph file");
+            }
+            //按块拷贝，不逐个解码
+            buffer.asFloatBuffer().get(times).get(values);
+            buffer.position(buffer.position() + 4 * (times.length + values.length));
+            buffer.get(easings);
+            checkTimes(times);
+            try {
+                return new MorphKeyframes(1f, distance, times, values, easings);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated morph file");
+        }
+    }
+    
+    /**
+     * 写成资源文件，坐标换算成以半径为单位
+     */
+    public static void write(MorphKeyframes keyframes, OutputStream out) throws IOException {
+        int count = keyframes.getKeyframeCount();
+        float radius = keyframes.getRadius();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(count);
+        data.writeFloat(keyframes.getDistance() / radius);
+        for (int i = 0; i < count; i++) {
+            data.writeFloat(keyframes.getTime(i));
+        }
+        float[] values = keyframes.getValues();
+        for (int i = 0; i < count * DropletGeometry.SIZE; i++) {
+            data.writeFloat(values[i] / radius);
+        }
+        for (int i = 0; i < count - 1; i++) {
+            data.writeByte(keyframes.getEasing(i));
+        }
+        data.flush();
+    }
+    
+    /**
+     * n个关键帧的文件大小
+     */
+    public static int byteSize(int count) {
+        return HEADER_BYTES + 4 * count * (1 + DropletGeometry.SIZE) + count - 1;
+    }
+    
+    private static void checkTimes(float[] times) throws IOException {
+        if (times[0] != 0f || times[times.length - 1] != 1f) {
+            throw new IOException("keyframe times must start at 0 and end at 1");
+        }
+        for (int i = 1; i < times.length; i++) {
+            if (!(times[i] >= times[i - 1])) {
+                throw new IOException("keyframe times must be ascending");
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 数据驱动的形变：关键帧表加上每个区间各自的缓动，从{@link MorphFormat}的资源文件读出
+ * <p>
+ * 资源里的坐标以半径为单位（半径为1），用{@link #scale(float)}换算到实际的半径。
+ * 全部区间都是{@link #EASE_LINEAR}时和{@link DropletKeyframes#sample(DropletGeometry)}完全一致。
+ */
+public class MorphKeyframes extends DropletKeyframes {
+    public static final int EASE_LINEAR = 0;
+    public static final int EASE_IN = 1;
+    public static final int EASE_OUT = 2;
+    public static final int EASE_IN_OUT = 3;
+    public static final int EASE_COUNT = 4;
+    
+    /**
+     * 每个区间的缓动，比关键帧少一个
+     */
+    private final byte[] mEasings;
+    
+    /**
+     * @param easings 每个区间的缓动，个数比关键帧少一个
+     */
+    public MorphKeyframes(float radius, float distance, float[] times, float[] values, byte[] easings) {
+        super(radius, distance, times, values);
+        if (easings.length != times.length - 1) {
+            throw new IllegalArgumentException("need " + (times.length - 1) + " easings, got " + easings.length);
+        }
+        for (byte easing : easings) {
+            if (easing < 0 || easing >= EASE_COUNT) {
+                throw new IllegalArgumentException("unknown easing " + easing);
+            }
+        }
+        mEasings = easings;
+    }
+    
+    /**
+     * 第segment个区间（第segment帧到下一帧）的缓动
+     */
+    public int getEasing(int segment) {
+        return mEasings[segment];
+    }
+    
+    /**
+     * 换算到另一个半径，移动距离按同样的比例缩放
+     */
+    public MorphKeyframes scale(float radius) {
+        float ratio = radius / getRadius();
+        float[] values = getValues().clone();
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= ratio;
+        }
+        float[] times = new float[getKeyframeCount()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = getTime(i);
+        }
+        return new MorphKeyframes(radius, getDistance() * ratio, times, values, mEasings);
+    }
+    
+    @Override
+    protected float interpolate(int segment, float t) {
+        switch (mEasings[segment]) {
+            case EASE_IN:
+                return t * t;
+            case EASE_OUT:
+                return t * (2 - t);
+            case EASE_IN_OUT:
+                return t * t * (3 - 2 * t);
+            default:
+                return t;
+        }
+    }
+}
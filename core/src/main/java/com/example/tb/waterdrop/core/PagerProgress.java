@@ -0,0 +1,67 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 把翻页控件的绝对位置换算成水滴一跳的进度
+ * <p>
+ * 位置取position + positionOffset这样的绝对页码，进度是它和停靠页之差，向右为正、向左为负，
+ * 每次都由绝对位置直接算出，不累加增量，回调丢失或者重复都不会产生漂移。
+ * 滑过不止一页时（快速甩动或者直接跳页），越过相邻页的那一刻把停靠页挪到刚越过的那一页，开始新的一跳。
+ */
+public class PagerProgress {
+    /**
+     * 停靠页，进度相对它计算
+     */
+    private int mAnchor;
+    private float mProgress;
+    
+    /**
+     * 更新绝对位置
+     *
+     * @return 停靠页是否改变，改变时上一跳已经结束，需要从头开始新的一跳
+     */
+    public boolean setPosition(float position) {
+        boolean hopped = false;
+        //正好停在相邻页上仍然算这一跳的终点，超过了才换停靠页
+        if (position > mAnchor + 1) {
+            mAnchor = (int) Math.floor(position);
+            hopped = true;
+        } else if (position < mAnchor - 1) {
+            mAnchor = (int) Math.ceil(position);
+            hopped = true;
+        }
+        mProgress = position - mAnchor;
+        return hopped;
+    }
+    
+    /**
+     * 滚动停止，停靠到离位置最近的一页
+     *
+     * @return 停靠页是否改变
+     */
+    public boolean settle(float position) {
+        int anchor = Math.round(position);
+        boolean changed = anchor != mAnchor;
+        mAnchor = anchor;
+        mProgress = position - anchor;
+        return changed;
+    }
+    
+    /**
+     * 直接停靠到某一页，比如恢复状态或者不带动画的跳页
+     */
+    public void setAnchor(int anchor) {
+        mAnchor = anchor;
+        mProgress = 0f;
+    }
+    
+    public int getAnchor() {
+        return mAnchor;
+    }
+    
+    /**
+     * 当前进度，-1～1
+     */
+    public float getProgress() {
+        return mProgress;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 把路径命令记录在可复用的数组里，容量够用之后reset再写入不会再分配内存，可以重放到其它PathSink
+ */
+public class PathBuffer implements PathSink {
+    public static final byte MOVE = 0;
+    public static final byte LINE = 1;
+    public static final byte QUAD = 2;
+    public static final byte CUBIC = 3;
+    public static final byte CLOSE = 4;
+    
+    private byte[] mVerbs;
+    private float[] mCoords;
+    private int mVerbCount;
+    private int mCoordCount;
+    
+    public PathBuffer() {
+        this(16);
+    }
+    
+    /**
+     * @param verbCapacity 预估的命令个数
+     */
+    public PathBuffer(int verbCapacity) {
+        mVerbs = new byte[verbCapacity];
+        mCoords = new float[verbCapacity * 6];
+    }
+    
+    /**
+     * 清空命令，保留已经分配的容量
+     */
+    public void reset() {
+        mVerbCount = 0;
+        mCoordCount = 0;
+    }
+    
+    public int getVerbCount() {
+        return mVerbCount;
+    }
+    
+    public byte getVerb(int index) {
+        return mVerbs[index];
+    }
+    
+    public int getCoordCount() {
+        return mCoordCount;
+    }
+    
+    /**
+     * 所有命令的坐标，按命令顺序紧密排列，只有前{@link #getCoordCount()}个有效
+     */
+    public float[] getCoords() {
+        return mCoords;
+    }
+    
+    /**
+     * 按顺序把记录的命令输出到另一个PathSink
+     */
+    public void replay(PathSink sink) {
+        float[] c = mCoords;
+        int j = 0;
+        for (int i = 0; i < mVerbCount; i++) {
+            switch (mVerbs[i]) {
+                case MOVE:
+                    sink.moveTo(c[j], c[j + 1]);
+                    j += 2;
+                    break;
+                case LINE:
+                    sink.lineTo(c[j], c[j + 1]);
+                    j += 2;
+                    break;
+                case QUAD:
+                    sink.quadTo(c[j], c[j + 1], c[j + 2], c[j + 3]);
+                    j += 4;
+                    break;
+                case CUBIC:
+                    sink.cubicTo(c[j], c[j + 1], c[j + 2], c[j + 3], c[j + 4], c[j + 5]);
+                    j += 6;
+                    break;
+                case CLOSE:
+                default:
+                    sink.close();
+                    break;
+            }
+        }
+    }
+    
+    @Override
+    public void moveTo(float x, float y) {
+        ensure(2);
+        mVerbs[mVerbCount++] = MOVE;
+        mCoords[mCoordCount++] = x;
+        mCoords[mCoordCount++] = y;
+    }
+    
+    @Override
+    public void lineTo(float x, float y) {
+        ensure(2);
+        mVerbs[mVerbCount++] = LINE;
+        mCoords[mCoordCount++] = x;
+        mCoords[mCoordCount++] = y;
+    }
+    
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        ensure(4);
+        mVerbs[mVerbCount++] = QUAD;
+        mCoords[mCoordCount++] = x1;
+        mCoords[mCoordCount++] = y1;
+        mCoords[mCoordCount++] = x2;
+        mCoords[mCoordCount++] = y2;
+    }
+    
+    @Override
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        ensure(6);
+        mVerbs[mVerbCount++] = CUBIC;
+        mCoords[mCoordCount++] = x1;
+        mCoords[mCoordCount++] = y1;
+        mCoords[mCoordCount++] = x2;
+        mCoords[mCoordCount++] = y2;
+        mCoords[mCoordCount++] = x3;
+        mCoords[mCoordCount++] = y3;
+    }
+    
+    @Override
+    public void close() {
+        ensure(0);
+        mVerbs[mVerbCount++] = CLOSE;
+    }
+    
+    private void ensure(int coords) {
+        if (mVerbCount == mVerbs.length) {
+            byte[] verbs = new byte[mVerbs.length * 2];
+            System.arraycopy(mVerbs, 0, verbs, 0, mVerbCount);
+            mVerbs = verbs;
+        }
+        if (mCoordCount + coords > mCoords.length) {
+            float[] newCoords = new float[Math.max(mCoords.length * 2, mCoordCount + coords)];
+            System.arraycopy(mCoords, 0, newCoords, 0, mCoordCount);
+            mCoords = newCoords;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.tb.waterdrop.core;
+
+import java.util.Locale;
+
+/**
+ * 把路径写成VectorDrawable的pathData字符串
+ * <p>
+ * 每条命令都用绝对坐标、原样输出，不省略命令字母也不合并，同样的命令序列得到的字符串结构完全相同，
+ * 可以直接作为AnimatedVectorDrawable路径变形的关键帧。
+ */
+public class PathDataSink implements PathSink {
+    private final StringBuilder mData = new StringBuilder();
+    /**
+     * 输出前加到每个坐标上的平移
+     */
+    private final float mDx;
+    private final float mDy;
+    
+    public PathDataSink() {
+        this(0f, 0f);
+    }
+    
+    public PathDataSink(float dx, float dy) {
+        mDx = dx;
+        mDy = dy;
+    }
+    
+    /**
+     * 清空，开始新的一条路径
+     */
+    public void reset() {
+        mData.setLength(0);
+    }
+    
+    @Override
+    public void moveTo(float x, float y) {
+        command('M').point(x, y);
+    }
+    
+    @Override
+    public void lineTo(float x, float y) {
+        command('L').point(x, y);
+    }
+    
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        command('Q').point(x1, y1).point(x2, y2);
+    }
+    
+    @Override
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        command('C').point(x1, y1).point(x2, y2).point(x3, y3);
+    }
+    
+    @Override
+    public void close() {
+        command('Z');
+    }
+    
+    @Override
+    public String toString() {
+        return mData.toString();
+    }
+    
+    private PathDataSink command(char command) {
+        if (mData.length() > 0) {
+            mData.append(' ');
+        }
+        mData.append(command);
+        return this;
+    }
+    
+    private PathDataSink point(float x, float y) {
+        mData.append(' ').append(format(x + mDx)).append(',').append(format(y + mDy));
+        return this;
+    }
+    
+    /**
+     * 保留4位小数并去掉末尾的0，以半径为单位时误差不到万分之一个半径
+     */
+    static String format(float value) {
+        String s = String.format(Locale.US, "%.4f", value);
+        int end = s.length();
+        while (s.charAt(end - 1) == '0') {
+            end--;
+        }
+        if (s.charAt(end - 1) == '.') {
+            end--;
+        }
+        s = s.substring(0, end);
+        return "-0".equals(s) ? "0" : s;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 路径的输出端，命令和android.graphics.Path一致，几何内核只负责往这里写，不关心最终画到哪里
+ */
+public interface PathSink {
+    
+    void moveTo(float x, float y);
+    
+    void lineTo(float x, float y);
+    
+    void quadTo(float x1, float y1, float x2, float y2);
+    
+    void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3);
+    
+    void close();
+}
@@ -0,0 +1,210 @@
+package com.example.tb.waterdrop.core;
+
+import java.util.Arrays;
+
+/**
+ * 点的空间索引：均匀网格按格子坐标散列到桶里，每个桶是一条双向链表
+ * <p>
+ * 查找最近点只看查询半径覆盖到的格子，和点的总数无关；拖动一个点时只把它从旧桶摘下挂到新桶，O(1)。
+ * 格子边长取触摸半径左右最合适，这样一次查找只涉及3x3个格子。点用添加时返回的id标识，
+ * 所有数据都存在数组里，查找和移动都不分配内存，只在容量不够时扩容。
+ */
+public class PointGridIndex {
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private final float mCellSize;
+    
+    private int mSize;
+    private float[] mX = new float[INITIAL_CAPACITY];
+    private float[] mY = new float[INITIAL_CAPACITY];
+    /**
+     * 每个点所在的桶，以及桶内链表的前后节点
+     */
+    private int[] mBucketOf = new int[INITIAL_CAPACITY];
+    private int[] mPrev = new int[INITIAL_CAPACITY];
+    private int[] mNext = new int[INITIAL_CAPACITY];
+    /**
+     * 每个桶链表的头，桶数是2的幂
+     */
+    private int[] mHeads;
+    private int mMask;
+    
+    /**
+     * @param cellSize 格子边长，一般取触摸半径
+     */
+    public PointGridIndex(float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be > 0");
+        }
+        mCellSize = cellSize;
+        allocateBuckets(INITIAL_CAPACITY);
+    }
+    
+    public float getCellSize() {
+        return mCellSize;
+    }
+    
+    public int size() {
+        return mSize;
+    }
+    
+    public float getX(int id) {
+        checkId(id);
+        return mX[id];
+    }
+    
+    public float getY(int id) {
+        checkId(id);
+        return mY[id];
+    }
+    
+    /**
+     * 添加一个点
+     *
+     * @return 点的id，从0开始连续分配
+     */
+    public int add(float x, float y) {
+        if (mSize == mX.length) {
+            grow();
+        }
+        int id = mSize++;
+        mX[id] = x;
+        mY[id] = y;
+        link(id, bucketOf(x, y));
+        if (mSize > 2 * mHeads.length) {
+            //平均每个桶超过两个点就加倍桶数
+            allocateBuckets(mHeads.length * 2);
+            for (int i = 0; i < mSize; i++) {
+                link(i, bucketOf(mX[i], mY[i]));
+            }
+        }
+        return id;
+    }
+    
+    /**
+     * 移动一个点，还在同一个桶里时只更新坐标
+     */
+    public void move(int id, float x, float y) {
+        checkId(id);
+        mX[id] = x;
+        mY[id] = y;
+        int bucket = bucketOf(x, y);
+        if (bucket != mBucketOf[id]) {
+            unlink(id);
+            link(id, bucket);
+        }
+    }
+    
+    public void clear() {
+        mSize = 0;
+        Arrays.fill(mHeads, NONE);
+    }
+    
+    /**
+     * 离(x, y)最近的点
+     *
+     * @param maxDistance 只在这个距离内查找
+     * @return 点的id，范围内没有点时返回-1
+     */
+    public int nearest(float x, float y, float maxDistance) {
+        int left = cell(x - maxDistance);
+        int right = cell(x + maxDistance);
+        int top = cell(y - maxDistance);
+        int bottom = cell(y + maxDistance);
+        //查询范围比整个桶表还大时，逐个格子查会重复遍历同一个桶，不如直接遍历所有点
+        if ((long) (right - left + 1) * (bottom - top + 1) > mHeads.length) {
+            return nearestLinear(x, y, maxDistance);
+        }
+        int best = NONE;
+        float bestDistance = maxDistance * maxDistance;
+        for (int cy = top; cy <= bottom; cy++) {
+            for (int cx = left; cx <= right; cx++) {
+                //散列冲突的点也会出现在桶里，按真实距离比较即可
+                for (int id = mHeads[hash(cx, cy)]; id != NONE; id = mNext[id]) {
+                    float dx = mX[id] - x;
+                    float dy = mY[id] - y;
+                    float d = dx * dx + dy * dy;
+                    if (d <= bestDistance && (best == NONE || d < bestDistance || id < best)) {
+                        best = id;
+                        bestDistance = d;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    private int nearestLinear(float x, float y, float maxDistance) {
+        int best = NONE;
+        float bestDistance = maxDistance * maxDistance;
+        for (int id = 0; id < mSize; id++) {
+            float dx = mX[id] - x;
+            float dy = mY[id] - y;
+            float d = dx * dx + dy * dy;
+            if (d < bestDistance || (d == bestDistance && best == NONE)) {
+                best = id;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+    
+    private int cell(float v) {
+        return (int) Math.floor(v / mCellSize);
+    }
+    
+    private int bucketOf(float x, float y) {
+        return hash(cell(x), cell(y));
+    }
+    
+    private int hash(int cx, int cy) {
+        int h = cx * 73856093 ^ cy * 19349663;
+        return (h ^ (h >>> 16)) & mMask;
+    }
+    
+    private void link(int id, int bucket) {
+        int head = mHeads[bucket];
+        mBucketOf[id] = bucket;
+        mPrev[id] = NONE;
+        mNext[id] = head;
+        if (head != NONE) {
+            mPrev[head] = id;
+        }
+        mHeads[bucket] = id;
+    }
+    
+    private void unlink(int id) {
+        int prev = mPrev[id];
+        int next = mNext[id];
+        if (prev != NONE) {
+            mNext[prev] = next;
+        } else {
+            mHeads[mBucketOf[id]] = next;
+        }
+        if (next != NONE) {
+            mPrev[next] = prev;
+        }
+    }
+    
+    private void allocateBuckets(int count) {
+        mHeads = new int[count];
+        mMask = count - 1;
+        Arrays.fill(mHeads, NONE);
+    }
+    
+    private void grow() {
+        int capacity = mX.length * 2;
+        mX = Arrays.copyOf(mX, capacity);
+        mY = Arrays.copyOf(mY, capacity);
+        mBucketOf = Arrays.copyOf(mBucketOf, capacity);
+        mPrev = Arrays.copyOf(mPrev, capacity);
+        mNext = Arrays.copyOf(mNext, capacity);
+    }
+    
+    private void checkId(int id) {
+        if (id < 0 || id >= mSize) {
+            throw new IndexOutOfBoundsException("id " + id + " out of " + mSize);
+        }
+    }
+}
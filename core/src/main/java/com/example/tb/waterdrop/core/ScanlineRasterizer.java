@@ -0,0 +1,400 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 纯Java的扫描线光栅化：把路径按非零环绕规则填充进int[] ARGB缓冲区，带抗锯齿
+ * <p>
+ * 路径命令通过{@link PathSink}写入，曲线先用{@link BezierFlattener}均匀拆成折线，再按边表逐行扫描。抗锯齿在竖直方向每个像素行取
+ * {@link #SUBSAMPLES}条子扫描线，水平方向按跨度两端的小数部分精确计算覆盖率。像素是非预乘的ARGB，
+ * 和Bitmap.getPixels的格式一致，按源在上的方式混合。
+ * <p>
+ * 边表、交点和覆盖率等临时数组都会复用，容量够用以后反复绘制不再分配内存。不是线程安全的，
+ * 每个线程用自己的实例。
+ */
+public class ScanlineRasterizer implements PathSink {
+    /**
+     * 每个像素行的子扫描线条数
+     */
+    public static final int SUBSAMPLES = 16;
+    /**
+     * 曲线拆成折线时允许的最大偏差（像素）
+     */
+    public static final float DEFAULT_TOLERANCE = 0.2f;
+    /**
+     * 每条边占用的float个数：上端点x、y，下端点y，dx/dy，方向
+     */
+    private static final int EDGE_STRIDE = 5;
+    
+    private int[] mPixels;
+    private int mWidth;
+    private int mHeight;
+    private float mTolerance = DEFAULT_TOLERANCE;
+    
+    /**
+     * 边表，y方向从上到下，水平边不记录
+     */
+    private float[] mEdges = new float[EDGE_STRIDE * 64];
+    private int mEdgeCount;
+    /**
+     * 单条曲线拆出来的折线
+     */
+    private final float[] mCurve = new float[2 * BezierFlattener.MAX_SEGMENTS];
+    /**
+     * 按上端点y排序后的边下标
+     */
+    private int[] mOrder = new int[64];
+    /**
+     * 当前子扫描线穿过的边
+     */
+    private int[] mActive = new int[64];
+    private float[] mCrossX = new float[64];
+    private int[] mCrossWinding = new int[64];
+    /**
+     * 当前像素行的覆盖率：mPartial是本像素内的小数覆盖，mStep在本像素及之后的像素上整体累加
+     */
+    private float[] mPartial;
+    private float[] mStep;
+    
+    private float mMinY = Float.MAX_VALUE;
+    private float mMaxY = -Float.MAX_VALUE;
+    
+    /**
+     * 当前子路径的起点和当前点
+     */
+    private float mStartX, mStartY;
+    private float mLastX, mLastY;
+    private boolean mHasSubpath;
+    
+    /**
+     * 设置绘制目标，pixels按行存放，每行width个像素
+     */
+    public void setTarget(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("pixels too small for " + width + "x" + height);
+        }
+        mPixels = pixels;
+        mWidth = width;
+        mHeight = height;
+        if (mPartial == null || mPartial.length < width + 2) {
+            mPartial = new float[width + 2];
+            mStep = new float[width + 2];
+        }
+    }
+    
+    public int getWidth() {
+        return mWidth;
+    }
+    
+    public int getHeight() {
+        return mHeight;
+    }
+    
+    /**
+     * 曲线拆成折线时允许的最大偏差（像素），越小越圆滑、边越多
+     */
+    public void setTolerance(float tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be > 0");
+        }
+        mTolerance = tolerance;
+    }
+    
+    public float getTolerance() {
+        return mTolerance;
+    }
+    
+    /**
+     * 清空路径，开始新的一次绘制
+     */
+    public void reset() {
+        mEdgeCount = 0;
+        mMinY = Float.MAX_VALUE;
+        mMaxY = -Float.MAX_VALUE;
+        mHasSubpath = false;
+    }
+    
+    /**
+     * 当前路径拆出来的边数
+     */
+    public int getEdgeCount() {
+        return mEdgeCount;
+    }
+    
+    @Override
+    public void moveTo(float x, float y) {
+        closeSubpath();
+        mStartX = mLastX = x;
+        mStartY = mLastY = y;
+        mHasSubpath = true;
+    }
+    
+    @Override
+    public void lineTo(float x, float y) {
+        ensureSubpath();
+        addEdge(mLastX, mLastY, x, y);
+        mLastX = x;
+        mLastY = y;
+    }
+    
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        ensureSubpath();
+        int n = BezierFlattener.quadSegmentCount(mLastX, mLastY, x1, y1, x2, y2, mTolerance);
+        BezierFlattener.forwardQuad(mLastX, mLastY, x1, y1, x2, y2, n, mCurve, 0);
+        addPolyline(n);
+    }
+    
+    @Override
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        ensureSubpath();
+        int n = BezierFlattener.cubicSegmentCount(mLastX, mLastY, x1, y1, x2, y2, x3, y3, mTolerance);
+        BezierFlattener.forwardCubic(mLastX, mLastY, x1, y1, x2, y2, x3, y3, n, mCurve, 0);
+        addPolyline(n);
+    }
+    
+    /**
+     * 把{@link #mCurve}里的折线从当前点开始连成边
+     */
+    private void addPolyline(int points) {
+        float px = mLastX;
+        float py = mLastY;
+        for (int i = 0; i < points * 2; i += 2) {
+            addEdge(px, py, mCurve[i], mCurve[i + 1]);
+            px = mCurve[i];
+            py = mCurve[i + 1];
+        }
+        mLastX = px;
+        mLastY = py;
+    }
+    
+    @Override
+    public void close() {
+        closeSubpath();
+    }
+    
+    /**
+     * 按非零环绕规则填充当前路径，color是非预乘的ARGB，透明度参与混合
+     */
+    public void fill(int color) {
+        closeSubpath();
+        if (mPixels == null) {
+            throw new IllegalStateException("call setTarget first");
+        }
+        int srcAlpha = color >>> 24;
+        if (mEdgeCount == 0 || srcAlpha == 0) {
+            return;
+        }
+        int top = Math.max(0, (int) Math.floor(mMinY));
+        int bottom = Math.min(mHeight, (int) Math.ceil(mMaxY));
+        if (top >= bottom) {
+            return;
+        }
+        sortEdges();
+        float scale = srcAlpha / (255f * SUBSAMPLES);
+        int next = 0;
+        int activeCount = 0;
+        for (int y = top; y < bottom; y++) {
+            int minX = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            for (int s = 0; s < SUBSAMPLES; s++) {
+                float sy = y + (s + 0.5f) / SUBSAMPLES;
+                //加入上端点已经越过这条子扫描线的边
+                while (next < mEdgeCount && mEdges[mOrder[next] * EDGE_STRIDE + 1] <= sy) {
+                    activeCount = growActive(activeCount);
+                    mActive[activeCount++] = mOrder[next++];
+                }
+                //算交点，同时去掉已经结束的边
+                int crossCount = 0;
+                int kept = 0;
+                for (int i = 0; i < activeCount; i++) {
+                    int e = mActive[i] * EDGE_STRIDE;
+                    if (mEdges[e + 2] <= sy) {
+                        continue;
+                    }
+                    mActive[kept++] = mActive[i];
+                    float x = mEdges[e] + (sy - mEdges[e + 1]) * mEdges[e + 3];
+                    //插入排序，交点通常只有几个
+                    int j = crossCount++;
+                    while (j > 0 && mCrossX[j - 1] > x) {
+                        mCrossX[j] = mCrossX[j - 1];
+                        mCrossWinding[j] = mCrossWinding[j - 1];
+                        j--;
+                    }
+                    mCrossX[j] = x;
+                    mCrossWinding[j] = (int) mEdges[e + 4];
+                }
+                activeCount = kept;
+                //非零环绕：环绕数从0变为非0时进入，回到0时离开
+                int winding = 0;
+                float spanStart = 0f;
+                for (int i = 0; i < crossCount; i++) {
+                    int before = winding;
+                    winding += mCrossWinding[i];
+                    if (before == 0 && winding != 0) {
+                        spanStart = mCrossX[i];
+                    } else if (before != 0 && winding == 0) {
+                        int covered = addSpan(spanStart, mCrossX[i]);
+                        if (covered >= 0) {
+                            minX = Math.min(minX, covered);
+                            maxX = Math.max(maxX, Math.min((int) mCrossX[i] + 1, mWidth - 1));
+                        }
+                    }
+                }
+            }
+            if (minX <= maxX) {
+                compositeRow(y, minX, maxX, color & 0xffffff, scale);
+            }
+        }
+    }
+    
+    /**
+     * 把一条子扫描线上的跨度累加进覆盖率
+     *
+     * @return 跨度起始的像素，跨度为空时返回-1
+     */
+    private int addSpan(float xs, float xe) {
+        if (xs < 0) {
+            xs = 0;
+        }
+        if (xe > mWidth) {
+            xe = mWidth;
+        }
+        if (xe <= xs) {
+            return -1;
+        }
+        int ix0 = (int) xs;
+        int ix1 = (int) xe;
+        //起点像素只覆盖了(ix0 + 1 - xs)，之后的像素整格覆盖，终点像素只覆盖了(xe - ix1)
+        mPartial[ix0] += ix0 + 1 - xs;
+        mStep[ix0 + 1] += 1;
+        mPartial[ix1] -= ix1 + 1 - xe;
+        mStep[ix1 + 1] -= 1;
+        return ix0;
+    }
+    
+    /**
+     * 按覆盖率把颜色混合进一行像素，同时清空这一行用过的覆盖率
+     */
+    private void compositeRow(int y, int minX, int maxX, int rgb, float scale) {
+        int row = y * mWidth;
+        int r = (rgb >> 16) & 0xff;
+        int g = (rgb >> 8) & 0xff;
+        int b = rgb & 0xff;
+        float step = 0f;
+        for (int x = minX; x <= maxX; x++) {
+            step += mStep[x];
+            float coverage = step + mPartial[x];
+            mStep[x] = 0f;
+            mPartial[x] = 0f;
+            int alpha = (int) (Math.min(coverage, SUBSAMPLES) * scale * 255f + 0.5f);
+            if (alpha <= 0) {
+                continue;
+            }
+            int index = row + x;
+            mPixels[index] = blend(mPixels[index], r, g, b, alpha);
+        }
+        //跨度的终点可能落在最后一个像素之外，多出来的两格也要清空
+        for (int x = maxX + 1; x <= maxX + 2 && x < mStep.length; x++) {
+            mStep[x] = 0f;
+            mPartial[x] = 0f;
+        }
+    }
+    
+    /**
+     * 非预乘ARGB的源在上混合
+     */
+    private static int blend(int dst, int r, int g, int b, int alpha) {
+        if (alpha >= 255) {
+            return 0xff000000 | (r << 16) | (g << 8) | b;
+        }
+        int dstAlpha = dst >>> 24;
+        if (dstAlpha == 0) {
+            return (alpha << 24) | (r << 16) | (g << 8) | b;
+        }
+        //目标的权重 = da * (1 - sa)，都放大255倍
+        int dstWeight = dstAlpha * (255 - alpha);
+        int srcWeight = alpha * 255;
+        int total = srcWeight + dstWeight;
+        int outAlpha = (total + 127) / 255;
+        int outR = (r * srcWeight + ((dst >> 16) & 0xff) * dstWeight + total / 2) / total;
+        int outG = (g * srcWeight + ((dst >> 8) & 0xff) * dstWeight + total / 2) / total;
+        int outB = (b * srcWeight + (dst & 0xff) * dstWeight + total / 2) / total;
+        return (outAlpha << 24) | (outR << 16) | (outG << 8) | outB;
+    }
+    
+    private void ensureSubpath() {
+        if (!mHasSubpath) {
+            moveTo(mLastX, mLastY);
+        }
+    }
+    
+    /**
+     * 填充时每个子路径都隐式闭合
+     */
+    private void closeSubpath() {
+        if (mHasSubpath) {
+            addEdge(mLastX, mLastY, mStartX, mStartY);
+            mLastX = mStartX;
+            mLastY = mStartY;
+            mHasSubpath = false;
+        }
+    }
+    
+    private void addEdge(float x0, float y0, float x1, float y1) {
+        if (y0 == y1) {
+            return;
+        }
+        float winding = 1f;
+        if (y0 > y1) {
+            float t = x0;
+            x0 = x1;
+            x1 = t;
+            t = y0;
+            y0 = y1;
+            y1 = t;
+            winding = -1f;
+        }
+        if (mEdges.length < (mEdgeCount + 1) * EDGE_STRIDE) {
+            float[] edges = new float[mEdges.length * 2];
+            System.arraycopy(mEdges, 0, edges, 0, mEdgeCount * EDGE_STRIDE);
+            mEdges = edges;
+        }
+        int e = mEdgeCount * EDGE_STRIDE;
+        mEdges[e] = x0;
+        mEdges[e + 1] = y0;
+        mEdges[e + 2] = y1;
+        mEdges[e + 3] = (x1 - x0) / (y1 - y0);
+        mEdges[e + 4] = winding;
+        mEdgeCount++;
+        mMinY = Math.min(mMinY, y0);
+        mMaxY = Math.max(mMaxY, y1);
+    }
+    
+    /**
+     * 按上端点y排序，边表基本按路径顺序生成，插入排序足够
+     */
+    private void sortEdges() {
+        if (mOrder.length < mEdgeCount) {
+            mOrder = new int[mEdges.length / EDGE_STRIDE];
+        }
+        for (int i = 0; i < mEdgeCount; i++) {
+            float y = mEdges[i * EDGE_STRIDE + 1];
+            int j = i;
+            while (j > 0 && mEdges[mOrder[j - 1] * EDGE_STRIDE + 1] > y) {
+                mOrder[j] = mOrder[j - 1];
+                j--;
+            }
+            mOrder[j] = i;
+        }
+    }
+    
+    private int growActive(int activeCount) {
+        if (activeCount == mActive.length) {
+            int[] active = new int[mActive.length * 2];
+            System.arraycopy(mActive, 0, active, 0, activeCount);
+            mActive = active;
+            mCrossX = new float[active.length];
+            mCrossWinding = new int[active.length];
+        }
+        return activeCount;
+    }
+}
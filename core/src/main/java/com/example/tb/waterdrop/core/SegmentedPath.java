@@ -0,0 +1,310 @@
+package com.example.tb.waterdrop.core;
+
+import java.util.Arrays;
+
+/**
+ * 多段三阶贝塞尔曲线的增量模型：每段缓存拆分后的折线和包围盒，包围盒组织成线段树
+ * <p>
+ * 点的排列和CurveEditor一致：数据点、控制点、控制点、数据点……第i段用第3i到第3i+3个点。
+ * 移动一个控制点只影响它所在的一段，移动一个数据点影响前后两段，只重新拆分这一两段，
+ * 再沿线段树向上更新包围盒，一次编辑O(log n)。每段的包围盒取它的4个点，曲线和控制点都在里面。按矩形裁剪和按点命中都从树根往下找，
+ * 只进入包围盒相交的子树。
+ */
+public class SegmentedPath {
+    private final float mTolerance;
+    
+    private int mSegmentCount;
+    private float[] mPoints = new float[0];
+    /**
+     * 每段拆分后的折线，含起点，x和y交替存放
+     */
+    private float[][] mFlat = new float[0][];
+    private int[] mFlatCount = new int[0];
+    /**
+     * 线段树，节点i的包围盒在[4i, 4i + 4)：left、top、right、bottom，叶子从mLeafBase开始
+     */
+    private float[] mTree = new float[0];
+    private int mLeafBase;
+    
+    private int mFlattenCount;
+    /**
+     * 命中测试过程中当前最近的段和距离的平方
+     */
+    private int mHitSegment;
+    private float mHitDistance;
+    
+    /**
+     * @param tolerance 拆分折线的容差（像素）
+     */
+    public SegmentedPath(float tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("tolerance must be > 0");
+        }
+        mTolerance = tolerance;
+    }
+    
+    /**
+     * 整体设置所有点，O(n)
+     *
+     * @param points     x和y交替存放
+     * @param pointCount 点数，必须是3n + 1
+     */
+    public void setPoints(float[] points, int pointCount) {
+        if (pointCount < 4 || (pointCount - 1) % 3 != 0) {
+            throw new IllegalArgumentException("pointCount must be 3n + 1, got " + pointCount);
+        }
+        mSegmentCount = (pointCount - 1) / 3;
+        if (mPoints.length < 2 * pointCount) {
+            mPoints = new float[2 * pointCount];
+        }
+        System.arraycopy(points, 0, mPoints, 0, 2 * pointCount);
+        if (mFlat.length < mSegmentCount) {
+            mFlat = Arrays.copyOf(mFlat, mSegmentCount);
+            mFlatCount = Arrays.copyOf(mFlatCount, mSegmentCount);
+        }
+        int leaves = 1;
+        while (leaves < mSegmentCount) {
+            leaves <<= 1;
+        }
+        mLeafBase = leaves;
+        if (mTree.length < 8 * leaves) {
+            mTree = new float[8 * leaves];
+        }
+        //空叶子的包围盒是反的，合并时不起作用，也不会和任何矩形相交
+        for (int node = leaves + mSegmentCount; node < 2 * leaves; node++) {
+            setEmpty(node);
+        }
+        for (int s = 0; s < mSegmentCount; s++) {
+            flatten(s);
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            merge(node);
+        }
+    }
+    
+    public int getSegmentCount() {
+        return mSegmentCount;
+    }
+    
+    public int getPointCount() {
+        return mSegmentCount == 0 ? 0 : 3 * mSegmentCount + 1;
+    }
+    
+    public float getPointX(int point) {
+        return mPoints[2 * point];
+    }
+    
+    public float getPointY(int point) {
+        return mPoints[2 * point + 1];
+    }
+    
+    /**
+     * 移动一个点，只重新拆分受影响的一两段，O(log n)
+     */
+    public void movePoint(int point, float x, float y) {
+        if (point < 0 || point >= getPointCount()) {
+            throw new IndexOutOfBoundsException("point " + point + " out of " + getPointCount());
+        }
+        mPoints[2 * point] = x;
+        mPoints[2 * point + 1] = y;
+        int first = getFirstSegment(point);
+        int last = getLastSegment(point);
+        for (int s = first; s <= last; s++) {
+            flatten(s);
+            for (int node = (mLeafBase + s) >> 1; node >= 1; node >>= 1) {
+                merge(node);
+            }
+        }
+    }
+    
+    /**
+     * 点影响的第一段：数据点影响前后两段，控制点只影响所在的一段
+     */
+    public int getFirstSegment(int point) {
+        return point % 3 == 0 ? Math.max(point / 3 - 1, 0) : point / 3;
+    }
+    
+    /**
+     * 点影响的最后一段
+     */
+    public int getLastSegment(int point) {
+        return Math.min(point / 3, mSegmentCount - 1);
+    }
+    
+    /**
+     * 整条曲线的包围盒
+     *
+     * @return out：left、top、right、bottom
+     */
+    public float[] getBounds(float[] out) {
+        System.arraycopy(mTree, 4, out, 0, 4);
+        return out;
+    }
+    
+    /**
+     * 某一段的包围盒，按数据点和控制点计算，既包含曲线也包含控制点
+     */
+    public float[] getSegmentBounds(int segment, float[] out) {
+        System.arraycopy(mTree, 4 * (mLeafBase + segment), out, 0, 4);
+        return out;
+    }
+    
+    /**
+     * 某一段拆分后的折线，含起点，x和y交替存放，只在下一次修改这一段之前有效
+     */
+    public float[] getFlattened(int segment) {
+        return mFlat[segment];
+    }
+    
+    /**
+     * 某一段折线的点数
+     */
+    public int getFlattenedCount(int segment) {
+        return mFlatCount[segment];
+    }
+    
+    /**
+     * 累计拆分曲线段的次数
+     */
+    public int getFlattenCount() {
+        return mFlattenCount;
+    }
+    
+    /**
+     * 找出包围盒和矩形相交的段，按序号从小到大输出
+     *
+     * @param out 至少{@link #getSegmentCount()}大
+     * @return 段数
+     */
+    public int query(float left, float top, float right, float bottom, int[] out) {
+        if (mSegmentCount == 0) {
+            return 0;
+        }
+        return query(1, left, top, right, bottom, out, 0);
+    }
+    
+    private int query(int node, float left, float top, float right, float bottom, int[] out, int count) {
+        int b = 4 * node;
+        if (mTree[b] > right || mTree[b + 1] > bottom || mTree[b + 2] < left || mTree[b + 3] < top) {
+            return count;
+        }
+        if (node >= mLeafBase) {
+            out[count++] = node - mLeafBase;
+            return count;
+        }
+        count = query(2 * node, left, top, right, bottom, out, count);
+        return query(2 * node + 1, left, top, right, bottom, out, count);
+    }
+    
+    /**
+     * 离点(x, y)最近、距离不超过radius的一段
+     *
+     * @return 段的序号，没有时返回-1
+     */
+    public int hitSegment(float x, float y, float radius) {
+        if (mSegmentCount == 0) {
+            return -1;
+        }
+        mHitSegment = -1;
+        mHitDistance = radius * radius;
+        hitSegment(1, x, y, radius);
+        return mHitSegment;
+    }
+    
+    private void hitSegment(int node, float x, float y, float radius) {
+        int b = 4 * node;
+        if (mTree[b] - radius > x || mTree[b + 1] - radius > y || mTree[b + 2] + radius < x || mTree[b + 3] + radius < y) {
+            return;
+        }
+        if (node < mLeafBase) {
+            hitSegment(2 * node, x, y, radius);
+            hitSegment(2 * node + 1, x, y, radius);
+            return;
+        }
+        int segment = node - mLeafBase;
+        float[] p = mFlat[segment];
+        int n = 2 * mFlatCount[segment];
+        for (int i = 2; i < n; i += 2) {
+            float d = distanceSquared(x, y, p[i - 2], p[i - 1], p[i], p[i + 1]);
+            if (d < mHitDistance) {
+                mHitDistance = d;
+                mHitSegment = segment;
+            }
+        }
+    }
+    
+    /**
+     * 把第from到第to - 1段写进sink，中间不断开
+     */
+    public void buildPath(int from, int to, PathSink sink) {
+        float[] p = mPoints;
+        sink.moveTo(p[6 * from], p[6 * from + 1]);
+        for (int s = from; s < to; s++) {
+            int o = 6 * s;
+            sink.cubicTo(p[o + 2], p[o + 3], p[o + 4], p[o + 5], p[o + 6], p[o + 7]);
+        }
+    }
+    
+    private static float distanceSquared(float x, float y, float x0, float y0, float x1, float y1) {
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        float length = dx * dx + dy * dy;
+        float t = length > 0 ? ((x - x0) * dx + (y - y0) * dy) / length : 0f;
+        t = t < 0 ? 0 : (t > 1 ? 1 : t);
+        float ex = x0 + t * dx - x;
+        float ey = y0 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+    
+    private void flatten(int segment) {
+        float[] p = mPoints;
+        int o = 6 * segment;
+        int count = BezierFlattener.cubicSegmentCount(p[o], p[o + 1], p[o + 2], p[o + 3],
+                p[o + 4], p[o + 5], p[o + 6], p[o + 7], mTolerance);
+        float[] flat = mFlat[segment];
+        if (flat == null || flat.length < 2 * (count + 1)) {
+            flat = new float[2 * (count + 1)];
+            mFlat[segment] = flat;
+        }
+        flat[0] = p[o];
+        flat[1] = p[o + 1];
+        int n = 1 + BezierFlattener.forwardCubic(p[o], p[o + 1], p[o + 2], p[o + 3],
+                p[o + 4], p[o + 5], p[o + 6], p[o + 7], count, flat, 2);
+        mFlatCount[segment] = n;
+        //曲线在4个点的凸包内，包围盒取4个点的范围，控制点本身也在里面
+        float left = p[o];
+        float top = p[o + 1];
+        float right = left;
+        float bottom = top;
+        for (int i = o + 2; i < o + 8; i += 2) {
+            left = Math.min(left, p[i]);
+            right = Math.max(right, p[i]);
+            top = Math.min(top, p[i + 1]);
+            bottom = Math.max(bottom, p[i + 1]);
+        }
+        int b = 4 * (mLeafBase + segment);
+        mTree[b] = left;
+        mTree[b + 1] = top;
+        mTree[b + 2] = right;
+        mTree[b + 3] = bottom;
+        mFlattenCount++;
+    }
+    
+    private void merge(int node) {
+        int b = 4 * node;
+        int l = 8 * node;
+        int r = l + 4;
+        mTree[b] = Math.min(mTree[l], mTree[r]);
+        mTree[b + 1] = Math.min(mTree[l + 1], mTree[r + 1]);
+        mTree[b + 2] = Math.max(mTree[l + 2], mTree[r + 2]);
+        mTree[b + 3] = Math.max(mTree[l + 3], mTree[r + 3]);
+    }
+    
+    private void setEmpty(int node) {
+        int b = 4 * node;
+        mTree[b] = Float.POSITIVE_INFINITY;
+        mTree[b + 1] = Float.POSITIVE_INFINITY;
+        mTree[b + 2] = Float.NEGATIVE_INFINITY;
+        mTree[b + 3] = Float.NEGATIVE_INFINITY;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 固定步长的阻尼弹簧（质量为1）：a = -stiffness * (x - target) - damping * v
+ * <p>
+ * 不管帧间隔是多少，都按{@link #STEP_SECONDS}一步做半隐式欧拉积分，剩下不足一步的时间留到下一帧，
+ * 输出的位置在最后两步之间插值，所以结果和帧率无关。动能加势能低于{@link #setRestEnergy(float)}时
+ * 认为已经静止，直接停在目标位置，调用方据此停止请求新帧。
+ */
+public class SpringIntegrator {
+    /**
+     * 积分步长（秒）
+     */
+    public static final float STEP_SECONDS = 1f / 240f;
+    /**
+     * 一次最多积分的步数，主线程卡顿很久之后不至于一帧里算太多
+     */
+    private static final int MAX_STEPS = 60;
+    
+    private float mStiffness = 300f;
+    private float mDamping = 12f;
+    private float mRestEnergy = 0.5f;
+    
+    private float mTarget;
+    private float mPosition;
+    private float mVelocity;
+    private float mPreviousPosition;
+    /**
+     * 还没有积分的时间
+     */
+    private float mAccumulator;
+    private boolean mAtRest = true;
+    
+    /**
+     * 劲度系数，越大振得越快
+     */
+    public void setStiffness(float stiffness) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("stiffness must be > 0");
+        }
+        mStiffness = stiffness;
+    }
+    
+    public float getStiffness() {
+        return mStiffness;
+    }
+    
+    /**
+     * 阻尼系数，2 * √stiffness为临界阻尼，小于它会来回振荡几次
+     */
+    public void setDamping(float damping) {
+        if (damping < 0) {
+            throw new IllegalArgumentException("damping must be >= 0");
+        }
+        mDamping = damping;
+    }
+    
+    public float getDamping() {
+        return mDamping;
+    }
+    
+    /**
+     * 静止的能量阈值：0.5 * v² + 0.5 * stiffness * (x - target)²低于它就停下
+     */
+    public void setRestEnergy(float restEnergy) {
+        mRestEnergy = restEnergy;
+    }
+    
+    public float getRestEnergy() {
+        return mRestEnergy;
+    }
+    
+    public void setTarget(float target) {
+        mTarget = target;
+        mAtRest = false;
+    }
+    
+    public float getTarget() {
+        return mTarget;
+    }
+    
+    /**
+     * 从某个位置、某个速度开始运动
+     */
+    public void start(float position, float velocity) {
+        mPosition = position;
+        mPreviousPosition = position;
+        mVelocity = velocity;
+        mAccumulator = 0f;
+        mAtRest = false;
+    }
+    
+    /**
+     * 直接停在目标位置
+     */
+    public void snapToTarget() {
+        mPosition = mTarget;
+        mPreviousPosition = mTarget;
+        mVelocity = 0f;
+        mAccumulator = 0f;
+        mAtRest = true;
+    }
+    
+    /**
+     * 推进一段时间
+     *
+     * @param dt 秒
+     * @return 是否还在运动
+     */
+    public boolean advance(float dt) {
+        if (mAtRest) {
+            return false;
+        }
+        mAccumulator += dt;
+        int steps = 0;
+        while (mAccumulator >= STEP_SECONDS && steps < MAX_STEPS) {
+            mPreviousPosition = mPosition;
+            float acceleration = -mStiffness * (mPosition - mTarget) - mDamping * mVelocity;
+            mVelocity += acceleration * STEP_SECONDS;
+            mPosition += mVelocity * STEP_SECONDS;
+            mAccumulator -= STEP_SECONDS;
+            steps++;
+            if (getEnergy() < mRestEnergy) {
+                snapToTarget();
+                return false;
+            }
+        }
+        if (steps == MAX_STEPS) {
+            //丢掉积压的时间
+            mAccumulator = 0f;
+        }
+        return true;
+    }
+    
+    /**
+     * 当前位置，在最后两步之间按剩余时间插值
+     */
+    public float getPosition() {
+        if (mAtRest) {
+            return mPosition;
+        }
+        float alpha = mAccumulator / STEP_SECONDS;
+        return mPreviousPosition + (mPosition - mPreviousPosition) * alpha;
+    }
+    
+    public float getVelocity() {
+        return mVelocity;
+    }
+    
+    /**
+     * 当前的动能加势能
+     */
+    public float getEnergy() {
+        float offset = mPosition - mTarget;
+        return 0.5f * mVelocity * mVelocity + 0.5f * mStiffness * offset * offset;
+    }
+    
+    public boolean isAtRest() {
+        return mAtRest;
+    }
+}
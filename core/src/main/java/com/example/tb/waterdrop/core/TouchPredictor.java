@@ -0,0 +1,140 @@
+package com.example.tb.waterdrop.core;
+
+/**
+ * 手指位置预测：用最近三个采样的速度和加速度外推一段时间后的位置，抵消绘制和输入管线带来的延迟
+ * <p>
+ * 为了方便按机型调参，同时统计预测误差：每做出一次预测，等真实采样越过预测的时间点后，
+ * 用前后两个真实采样插值出该时刻的真实位置，和预测值比较。
+ */
+public class TouchPredictor {
+    /**
+     * 预测需要的采样个数
+     */
+    private static final int HISTORY = 3;
+    
+    private final long[] mTimes = new long[HISTORY];
+    private final float[] mValues = new float[HISTORY];
+    /**
+     * 已记录的采样个数，最多HISTORY个，最新的在下标count-1
+     */
+    private int mCount;
+    
+    /**
+     * 预测的时间提前量（毫秒）
+     */
+    private float mHorizonMillis = 16f;
+    
+    /**
+     * 等待验证的预测
+     */
+    private boolean mHasPending;
+    private float mPendingTime;
+    private float mPendingValue;
+    
+    private double mErrorSum;
+    private int mErrorCount;
+    
+    public void setHorizonMillis(float horizonMillis) {
+        mHorizonMillis = Math.max(0f, horizonMillis);
+        mHasPending = false;
+    }
+    
+    public float getHorizonMillis() {
+        return mHorizonMillis;
+    }
+    
+    /**
+     * 开始新的手势，清空采样，误差统计保留
+     */
+    public void reset() {
+        mCount = 0;
+        mHasPending = false;
+    }
+    
+    /**
+     * 加入一个真实采样，时间必须单调不减
+     */
+    public void addSample(long timeMillis, float value) {
+        if (mCount > 0 && timeMillis == mTimes[mCount - 1]) {
+            //同一时刻的采样只保留最新的值
+            mValues[mCount - 1] = value;
+            return;
+        }
+        if (mHasPending && mCount > 0 && timeMillis >= mPendingTime) {
+            long lastTime = mTimes[mCount - 1];
+            float lastValue = mValues[mCount - 1];
+            float t = (mPendingTime - lastTime) / (float) (timeMillis - lastTime);
+            float actual = lastValue + (value - lastValue) * t;
+            mErrorSum += Math.abs(actual - mPendingValue);
+            mErrorCount++;
+            mHasPending = false;
+        }
+        if (mCount == HISTORY) {
+            System.arraycopy(mTimes, 1, mTimes, 0, HISTORY - 1);
+            System.arraycopy(mValues, 1, mValues, 0, HISTORY - 1);
+            mCount--;
+        }
+        mTimes[mCount] = timeMillis;
+        mValues[mCount] = value;
+        mCount++;
+        if (!mHasPending && mCount >= 2 && mHorizonMillis > 0) {
+            mPendingTime = timeMillis + mHorizonMillis;
+            mPendingValue = predict();
+            mHasPending = true;
+        }
+    }
+    
+    /**
+     * 预测最新采样之后{@link #getHorizonMillis()}毫秒的位置
+     *
+     * @return 采样不足时返回最新的真实值，没有采样时返回0
+     */
+    public float predict() {
+        if (mCount == 0) {
+            return 0f;
+        }
+        int last = mCount - 1;
+        float value = mValues[last];
+        if (mCount < 2) {
+            return value;
+        }
+        float dt1 = mTimes[last] - mTimes[last - 1];
+        float v1 = (value - mValues[last - 1]) / dt1;
+        float velocity = v1;
+        float acceleration = 0f;
+        if (mCount == HISTORY) {
+            float dt0 = mTimes[last - 1] - mTimes[last - 2];
+            float v0 = (mValues[last - 1] - mValues[last - 2]) / dt0;
+            //两段平均速度分别是两个中点时刻的速度
+            acceleration = (v1 - v0) / ((dt0 + dt1) / 2f);
+            //平均速度推到最新采样时刻的瞬时速度
+            velocity = v1 + acceleration * dt1 / 2f;
+        }
+        float h = mHorizonMillis;
+        float move = velocity * h + acceleration * h * h / 2f;
+        if (move * velocity < 0) {
+            //加速度大到让手指掉头的外推不可信，只保留速度项
+            move = velocity * h;
+        }
+        return value + move;
+    }
+    
+    /**
+     * 平均预测误差，单位与采样值相同
+     */
+    public float getAverageError() {
+        return mErrorCount == 0 ? 0f : (float) (mErrorSum / mErrorCount);
+    }
+    
+    /**
+     * 参与误差统计的预测次数
+     */
+    public int getErrorCount() {
+        return mErrorCount;
+    }
+    
+    public void resetError() {
+        mErrorSum = 0;
+        mErrorCount = 0;
+    }
+}
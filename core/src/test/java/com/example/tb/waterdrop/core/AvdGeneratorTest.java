@@ -0,0 +1,79 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AvdGeneratorTest {
+    private static final Pattern PATH = Pattern.compile("(?:valueFrom|valueTo|pathData)=\"([^\"]*)\"");
+    private static final Pattern DURATION = Pattern.compile("android:duration=\"(\\d+)\"");
+    
+    @Test
+    public void everyFrameHasSameCommands() {
+        AvdGenerator generator = new AvdGenerator(MorphKeyframesTest.fromGeometry(50f, 150f, MorphKeyframes.EASE_IN_OUT));
+        List<String> paths = find(PATH, generator.hop(500));
+        assertTrue(paths.size() > 10);
+        //路径变形要求命令和参数个数完全一致
+        String commands = paths.get(0).replaceAll("[^A-Za-z]", "");
+        int numbers = paths.get(0).split("[ ,]").length;
+        assertEquals("MCCCCZ", commands);
+        for (String path : paths) {
+            assertEquals(commands, path.replaceAll("[^A-Za-z]", ""));
+            assertEquals(numbers, path.split("[ ,]").length);
+        }
+    }
+    
+    @Test
+    public void hopSpansDurationThenRebounds() {
+        MorphKeyframes morph = MorphKeyframesTest.fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR);
+        AvdGenerator generator = new AvdGenerator(morph);
+        String hop = generator.hop(500);
+        List<String> durations = find(DURATION, hop);
+        int reboundFrames = find(DURATION, generator.rebound()).size();
+        assertTrue(reboundFrames > 0);
+        long total = 0;
+        for (int i = 0; i < durations.size() - reboundFrames; i++) {
+            total += Long.parseLong(durations.get(i));
+        }
+        assertEquals(500, total, morph.getKeyframeCount());
+        //最后停在终点的圆形
+        List<String> paths = find(PATH, hop);
+        assertEquals(generator.pathAt(1f, 0f), paths.get(paths.size() - 1));
+        assertTrue(hop.contains("android:viewportWidth=\"5\""));
+    }
+    
+    @Test
+    public void reboundStartsAtRest() {
+        AvdGenerator generator = new AvdGenerator(MorphKeyframesTest.fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR));
+        List<String> paths = find(PATH, generator.rebound());
+        String rest = generator.pathAt(1f, 0f);
+        assertEquals(rest, paths.get(0));
+        assertEquals(rest, paths.get(1));
+        assertEquals(rest, paths.get(paths.size() - 1));
+    }
+    
+    @Test
+    public void smallRadiusReboundLastsAsLong() {
+        AvdGenerator generator = new AvdGenerator(MorphKeyframesTest.fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR));
+        int frames = find(DURATION, generator.rebound()).size();
+        //半径为3时幅度不到0.2像素，阈值不缩放的话第一帧就静止了
+        generator.setRadiusPx(3f);
+        int smallFrames = find(DURATION, generator.rebound()).size();
+        assertTrue(frames + " vs " + smallFrames, Math.abs(frames - smallFrames) <= 1);
+    }
+    
+    private static List<String> find(Pattern pattern, String xml) {
+        List<String> found = new ArrayList<>();
+        Matcher matcher = pattern.matcher(xml);
+        while (matcher.find()) {
+            found.add(matcher.group(1));
+        }
+        return found;
+    }
+}
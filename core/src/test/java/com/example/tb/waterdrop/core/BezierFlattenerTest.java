@@ -0,0 +1,97 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BezierFlattenerTest {
+    private static final float EPS = 1e-3f;
+    /**
+     * 一段比较弯的三阶曲线
+     */
+    private static final float[] CUBIC = {0, 0, 100, -150, 250, 150, 300, 0};
+    private static final float[] QUAD = {0, 0, 150, 200, 300, 0};
+    
+    @Test
+    public void forwardCubicMatchesPolynomial() throws Exception {
+        float[] out = new float[2 * 16];
+        assertEquals(16, BezierFlattener.forwardCubic(CUBIC[0], CUBIC[1], CUBIC[2], CUBIC[3],
+                CUBIC[4], CUBIC[5], CUBIC[6], CUBIC[7], 16, out, 0));
+        for (int i = 1; i <= 16; i++) {
+            float t = i / 16f;
+            assertEquals(cubic(CUBIC, 0, t), out[2 * i - 2], 0.01f);
+            assertEquals(cubic(CUBIC, 1, t), out[2 * i - 1], 0.01f);
+        }
+    }
+    
+    @Test
+    public void forwardQuadMatchesPolynomial() throws Exception {
+        float[] out = new float[2 * 8];
+        assertEquals(8, BezierFlattener.forwardQuad(QUAD[0], QUAD[1], QUAD[2], QUAD[3], QUAD[4], QUAD[5], 8, out, 0));
+        for (int i = 1; i <= 8; i++) {
+            float t = i / 8f;
+            float u = 1 - t;
+            assertEquals(2 * u * t * 150 + t * t * 300, out[2 * i - 2], EPS);
+            assertEquals(2 * u * t * 200, out[2 * i - 1], EPS);
+        }
+    }
+    
+    @Test
+    public void adaptiveCubicStaysWithinTolerance() throws Exception {
+        float[] out = new float[2 * BezierFlattener.MAX_SEGMENTS];
+        int coarse = 0;
+        for (float tolerance : new float[]{1f, 0.25f, 0.05f}) {
+            int n = BezierFlattener.adaptiveCubic(CUBIC[0], CUBIC[1], CUBIC[2], CUBIC[3],
+                    CUBIC[4], CUBIC[5], CUBIC[6], CUBIC[7], tolerance, out, 0);
+            assertTrue("容差越小段数越多", n > coarse);
+            coarse = n;
+            assertEquals(300f, out[2 * n - 2], EPS);
+            assertEquals(0f, out[2 * n - 1], EPS);
+            //在曲线上密集取点，到折线的距离不超过容差
+            for (int i = 0; i <= 1000; i++) {
+                float t = i / 1000f;
+                float d = distanceToPolyline(cubic(CUBIC, 0, t), cubic(CUBIC, 1, t), out, n);
+                assertTrue("t=" + t + " d=" + d, d <= tolerance + EPS);
+            }
+        }
+    }
+    
+    @Test
+    public void adaptiveQuadUsesFewerSegmentsThanUniform() throws Exception {
+        float[] out = new float[2 * BezierFlattener.MAX_SEGMENTS];
+        int adaptive = BezierFlattener.adaptiveQuad(QUAD[0], QUAD[1], QUAD[2], QUAD[3], QUAD[4], QUAD[5], 0.25f, out, 0);
+        int uniform = BezierFlattener.quadSegmentCount(QUAD[0], QUAD[1], QUAD[2], QUAD[3], QUAD[4], QUAD[5], 0.25f);
+        assertTrue(adaptive >= 1);
+        assertTrue(adaptive <= 2 * uniform);
+        assertEquals(300f, out[2 * adaptive - 2], EPS);
+        //直线不需要细分
+        assertEquals(1, BezierFlattener.adaptiveQuad(0, 0, 5, 5, 10, 10, 0.25f, out, 0));
+        assertEquals(1, BezierFlattener.cubicSegmentCount(0, 0, 1, 1, 2, 2, 3, 3, 0.25f));
+    }
+    
+    private static float cubic(float[] p, int axis, float t) {
+        float u = 1 - t;
+        return u * u * u * p[axis] + 3 * u * u * t * p[2 + axis] + 3 * u * t * t * p[4 + axis] + t * t * t * p[6 + axis];
+    }
+    
+    private static float distanceToPolyline(float x, float y, float[] points, int count) {
+        float best = Float.MAX_VALUE;
+        float px = CUBIC[0];
+        float py = CUBIC[1];
+        for (int i = 0; i < count; i++) {
+            float qx = points[2 * i];
+            float qy = points[2 * i + 1];
+            float dx = qx - px;
+            float dy = qy - py;
+            float len = dx * dx + dy * dy;
+            float t = len == 0 ? 0 : Math.max(0, Math.min(1, ((x - px) * dx + (y - py) * dy) / len));
+            float ex = px + t * dx - x;
+            float ey = py + t * dy - y;
+            best = Math.min(best, (float) Math.sqrt(ex * ex + ey * ey));
+            px = qx;
+            py = qy;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DropletGeometryTest {
+    private static final float EPS = 1e-4f;
+    
+    @Test
+    public void startIsCircle() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        float[] shape = geometry.shapeAt(0f, new float[DropletGeometry.SIZE]);
+        assertCircle(shape, 50f, 50f);
+        assertEquals(DropletGeometry.STATUS_IDLE, geometry.statusAt(0f));
+    }
+    
+    @Test
+    public void endIsCircleMovedByDistance() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        float[] shape = geometry.shapeAt(1f, new float[DropletGeometry.SIZE]);
+        assertCircle(shape, 650f, 50f);
+        assertEquals(DropletGeometry.STATUS_REBOUND, geometry.statusAt(1f));
+    }
+    
+    @Test
+    public void negativeProgressIsMirrored() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        float[] right = geometry.shapeAt(0.4f, new float[DropletGeometry.SIZE]);
+        float[] left = geometry.shapeAt(-0.4f, new float[DropletGeometry.SIZE]);
+        for (int i = 0; i < DropletGeometry.SIZE; i += 2) {
+            assertEquals(100f - right[i], left[i], EPS);
+            assertEquals(right[i + 1], left[i + 1], EPS);
+        }
+    }
+    
+    @Test
+    public void statusFollowsStages() throws Exception {
+        //eachDis = 50, travel = 700
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        assertEquals(DropletGeometry.STATUS_STRETCH, geometry.statusAt(25f / 700f));
+        assertEquals(DropletGeometry.STATUS_ELLIPSE, geometry.statusAt(75f / 700f));
+        assertEquals(DropletGeometry.STATUS_TRANSLATE, geometry.statusAt(300f / 700f));
+        assertEquals(DropletGeometry.STATUS_CONTRACT, geometry.statusAt(625f / 700f));
+        assertEquals(DropletGeometry.STATUS_SHRINK, geometry.statusAt(675f / 700f));
+    }
+    
+    @Test
+    public void shortDistanceIsSplitIntoThree() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 90f);
+        assertEquals(30f, geometry.getEachDis(), EPS);
+        assertEquals(150f, geometry.getTravel(), EPS);
+    }
+    
+    @Test
+    public void boundsCoverHull() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        float[] shape = geometry.shapeAt(0.3f, new float[DropletGeometry.SIZE]);
+        float[] bounds = DropletGeometry.bounds(shape, 0, new float[4]);
+        for (int i = 0; i < DropletGeometry.SIZE; i += 2) {
+            assertTrue(shape[i] >= bounds[0] && shape[i] <= bounds[2]);
+            assertTrue(shape[i + 1] >= bounds[1] && shape[i + 1] <= bounds[3]);
+        }
+        assertEquals(-50f, bounds[1], EPS);
+        assertEquals(50f, bounds[3], EPS);
+    }
+    
+    private static void assertCircle(float[] shape, float cx, float r) {
+        float delta = r * DropletGeometry.C;
+        float[] expected = {
+                cx, r, cx + r, 0, cx, -r, cx - r, 0,
+                cx + delta, r, cx + r, delta, cx + r, -delta, cx + delta, -r,
+                cx - delta, -r, cx - r, -delta, cx - r, delta, cx - delta, r
+        };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("index " + i, expected[i], shape[i], EPS);
+        }
+    }
+}
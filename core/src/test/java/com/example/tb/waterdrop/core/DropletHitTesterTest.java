@@ -0,0 +1,51 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DropletHitTesterTest {
+    
+    @Test
+    public void circleContainsCenterButNotBoundsCorner() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        DropletHitTester tester = new DropletHitTester();
+        tester.setShape(geometry.shapeAt(0f, new float[DropletGeometry.SIZE]), 0);
+        //圆心(50, 0)
+        assertTrue(tester.contains(50f, 0f));
+        assertTrue(tester.contains(50f, 48f));
+        assertTrue(tester.contains(2f, 0f));
+        //包围盒的角在圆外
+        assertFalse(tester.contains(2f, -48f));
+        assertFalse(tester.contains(150f, 0f));
+    }
+    
+    @Test
+    public void mirroredShapeIsHitToo() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        DropletHitTester tester = new DropletHitTester();
+        float[] shape = geometry.shapeAt(-0.5f, new float[DropletGeometry.SIZE]);
+        tester.setShape(shape, 0);
+        float[] bounds = DropletGeometry.bounds(shape, 0, new float[4]);
+        assertTrue(tester.contains((bounds[0] + bounds[2]) / 2, 0f));
+        assertFalse(tester.contains(bounds[2] + 1, 0f));
+    }
+    
+    @Test
+    public void polygonIsRebuiltOnlyWhenShapeChanges() throws Exception {
+        DropletGeometry geometry = new DropletGeometry(50f, 600f);
+        DropletHitTester tester = new DropletHitTester();
+        float[] shape = geometry.shapeAt(0.3f, new float[DropletGeometry.SIZE]);
+        tester.setShape(shape, 0);
+        tester.contains(60f, 0f);
+        tester.setShape(shape, 0);
+        tester.contains(60f, 0f);
+        assertEquals(1, tester.getRebuildCount());
+        geometry.shapeAt(0.4f, shape);
+        tester.setShape(shape, 0);
+        tester.contains(60f, 0f);
+        assertEquals(2, tester.getRebuildCount());
+    }
+}
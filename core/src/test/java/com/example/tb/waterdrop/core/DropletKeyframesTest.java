@@ -0,0 +1,136 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class DropletKeyframesTest {
+    private static final float EPS = 1e-3f;
+    
+    @Test
+    public void tableMatchesKernel() throws Exception {
+        float[][] configs = {{50f, 600f}, {50f, 100f}, {200f, 600f}};
+        float[] expected = new float[DropletGeometry.SIZE];
+        float[] actual = new float[DropletGeometry.SIZE];
+        for (float[] config : configs) {
+            DropletGeometry geometry = new DropletGeometry(config[0], config[1]);
+            DropletKeyframes keyframes = DropletKeyframes.sample(geometry);
+            for (int i = -100; i <= 100; i++) {
+                float progress = i / 100f;
+                float rebound = i % 3 == 0 ? 7f : 0f;
+                geometry.shapeAt(progress, rebound, expected, 0);
+                keyframes.shapeAt(progress, rebound, actual, 0);
+                for (int j = 0; j < DropletGeometry.SIZE; j++) {
+                    assertEquals("progress " + progress + " index " + j, expected[j], actual[j], EPS);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void cacheCountsHitsAndMisses() throws Exception {
+        KeyframeCache cache = new KeyframeCache(KeyframeCache.DEFAULT_BUDGET_BYTES);
+        DropletKeyframes first = cache.getOrBuild(50f, 600f);
+        assertSame(first, cache.getOrBuild(50f, 600f));
+        final DropletKeyframes[] ready = new DropletKeyframes[1];
+        cache.acquire(50f, 600f, new DirectExecutor(), new KeyframeCache.Listener() {
+            @Override
+            public void onKeyframesReady(DropletKeyframes keyframes) {
+                ready[0] = keyframes;
+            }
+        });
+        assertSame(first, ready[0]);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+    
+    @Test
+    public void joiningPendingBuildIsNotAMiss() throws Exception {
+        KeyframeCache cache = new KeyframeCache(KeyframeCache.DEFAULT_BUDGET_BYTES);
+        QueueExecutor executor = new QueueExecutor();
+        final DropletKeyframes[] ready = new DropletKeyframes[2];
+        cache.acquire(50f, 600f, executor, new KeyframeCache.Listener() {
+            @Override
+            public void onKeyframesReady(DropletKeyframes keyframes) {
+                ready[0] = keyframes;
+            }
+        });
+        cache.acquire(50f, 600f, executor, new KeyframeCache.Listener() {
+            @Override
+            public void onKeyframesReady(DropletKeyframes keyframes) {
+                ready[1] = keyframes;
+            }
+        });
+        assertEquals(1, executor.tasks.size());
+        executor.tasks.get(0).run();
+        assertSame(ready[0], ready[1]);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+    
+    @Test
+    public void rejectedBuildIsRetried() throws Exception {
+        KeyframeCache cache = new KeyframeCache(KeyframeCache.DEFAULT_BUDGET_BYTES);
+        final DropletKeyframes[] ready = new DropletKeyframes[1];
+        KeyframeCache.Listener listener = new KeyframeCache.Listener() {
+            @Override
+            public void onKeyframesReady(DropletKeyframes keyframes) {
+                ready[0] = keyframes;
+            }
+        };
+        try {
+            cache.acquire(50f, 600f, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    throw new RejectedExecutionException();
+                }
+            }, listener);
+            fail("rejection should reach the caller");
+        } catch (RejectedExecutionException expected) {
+        }
+        cache.acquire(50f, 600f, new DirectExecutor(), listener);
+        assertEquals(1, cache.getEntryCount());
+        assertSame(cache.getOrBuild(50f, 600f), ready[0]);
+    }
+    
+    @Test
+    public void leastRecentlyUsedIsEvictedOverBudget() throws Exception {
+        int size = DropletKeyframes.sample(new DropletGeometry(50f, 600f)).getByteSize();
+        KeyframeCache cache = new KeyframeCache(size * 2);
+        cache.getOrBuild(50f, 600f);
+        cache.getOrBuild(60f, 600f);
+        //访问一次，让第二个变成最久未使用
+        cache.getOrBuild(50f, 600f);
+        cache.getOrBuild(70f, 600f);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        long misses = cache.getMissCount();
+        cache.getOrBuild(50f, 600f);
+        assertEquals(misses, cache.getMissCount());
+        cache.getOrBuild(60f, 600f);
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+    
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+        
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    }
+    
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DropletLodTest {
+    private static final int SAMPLES = 64;
+    
+    /**
+     * 把路径按参数均匀采样成折线，同时记下曲线的条数
+     */
+    private static class SamplingSink implements PathSink {
+        float[] points = new float[0];
+        int count;
+        int quads;
+        int cubics;
+        private float mX;
+        private float mY;
+        
+        @Override
+        public void moveTo(float x, float y) {
+            add(x, y);
+        }
+        
+        @Override
+        public void lineTo(float x, float y) {
+            add(x, y);
+        }
+        
+        @Override
+        public void quadTo(float x1, float y1, float x2, float y2) {
+            quads++;
+            float x0 = mX;
+            float y0 = mY;
+            for (int i = 1; i <= SAMPLES; i++) {
+                float t = i / (float) SAMPLES;
+                float mt = 1 - t;
+                add(mt * mt * x0 + 2 * mt * t * x1 + t * t * x2, mt * mt * y0 + 2 * mt * t * y1 + t * t * y2);
+            }
+        }
+        
+        @Override
+        public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+            cubics++;
+            float x0 = mX;
+            float y0 = mY;
+            for (int i = 1; i <= SAMPLES; i++) {
+                float t = i / (float) SAMPLES;
+                float mt = 1 - t;
+                float a = mt * mt * mt;
+                float b = 3 * mt * mt * t;
+                float c = 3 * mt * t * t;
+                float d = t * t * t;
+                add(a * x0 + b * x1 + c * x2 + d * x3, a * y0 + b * y1 + c * y2 + d * y3);
+            }
+        }
+        
+        @Override
+        public void close() {
+        }
+        
+        private void add(float x, float y) {
+            if (points.length < 2 * (count + 1)) {
+                points = Arrays.copyOf(points, Math.max(64, points.length * 2));
+            }
+            points[2 * count] = x;
+            points[2 * count + 1] = y;
+            count++;
+            mX = x;
+            mY = y;
+        }
+        
+        /**
+         * 点到折线的最短距离
+         */
+        float distance(float x, float y) {
+            float best = Float.MAX_VALUE;
+            for (int i = 1; i < count; i++) {
+                float x0 = points[2 * i - 2];
+                float y0 = points[2 * i - 1];
+                float dx = points[2 * i] - x0;
+                float dy = points[2 * i + 1] - y0;
+                float length = dx * dx + dy * dy;
+                float t = length > 0 ? ((x - x0) * dx + (y - y0) * dy) / length : 0;
+                t = Math.max(0, Math.min(1, t));
+                float ex = x0 + t * dx - x;
+                float ey = y0 + t * dy - y;
+                best = Math.min(best, (float) Math.sqrt(ex * ex + ey * ey));
+            }
+            return best;
+        }
+    }
+    
+    @Test
+    public void errorShrinksWithLevel() throws Exception {
+        for (int level = DropletLod.CUBIC_4; level < DropletLod.LEVEL_COUNT; level++) {
+            assertTrue(DropletLod.errorFactor(level) < DropletLod.errorFactor(level - 1));
+        }
+    }
+    
+    @Test
+    public void errorFactorsBoundFullSweep() throws Exception {
+        float[] distances = {1f, 2f, 3f, 12f, 24f};
+        float[] rebounds = {0f, 0.5f};
+        float[] shape = new float[DropletGeometry.SIZE];
+        double[] measured = new double[DropletLod.LEVEL_COUNT];
+        for (float distance : distances) {
+            DropletGeometry geometry = new DropletGeometry(1f, distance);
+            for (float rebound : rebounds) {
+                for (int step = -SWEEP_STEPS; step <= SWEEP_STEPS; step++) {
+                    geometry.shapeAt(step / (float) SWEEP_STEPS, rebound, shape, 0);
+                    for (int level = 0; level < DropletLod.LEVEL_COUNT; level++) {
+                        measured[level] = Math.max(measured[level], referenceError(shape, level));
+                    }
+                }
+            }
+        }
+        for (int level = 0; level < DropletLod.LEVEL_COUNT; level++) {
+            float factor = DropletLod.errorFactor(level);
+            assertTrue("level " + level + " measured " + measured[level], measured[level] <= factor);
+            //常量不能定得太松，否则select会浪费
+            assertTrue("level " + level + " measured " + measured[level], measured[level] >= 0.8 * factor);
+        }
+    }
+    
+    @Test
+    public void selectsCheapestLevelWithinTolerance() throws Exception {
+        assertEquals(DropletLod.QUAD, DropletLod.select(3, 0.25f));
+        assertEquals(DropletLod.CUBIC_4, DropletLod.select(50, 0.25f));
+        assertEquals(DropletLod.CUBIC_8, DropletLod.select(1000, 0.25f));
+        assertEquals(DropletLod.CUBIC_16, DropletLod.select(5000, 0.25f));
+        assertEquals(DropletLod.CUBIC_16, DropletLod.select(5000, 0.01f));
+        for (float radius = 1; radius <= 4096; radius *= 2) {
+            int level = DropletLod.select(radius, 0.1f);
+            assertTrue(level == DropletLod.CUBIC_16 || DropletLod.errorFactor(level) * radius <= 0.1f);
+            if (level > DropletLod.QUAD) {
+                assertTrue(DropletLod.errorFactor(level - 1) * radius > 0.1f);
+            }
+        }
+    }
+    
+    @Test
+    public void segmentCounts() throws Exception {
+        float[] shape = new DropletGeometry(50, 150).shapeAt(0.3f, new float[DropletGeometry.SIZE]);
+        int[] expected = {4, 4, 8, 16};
+        for (int level = 0; level < DropletLod.LEVEL_COUNT; level++) {
+            SamplingSink sink = new SamplingSink();
+            DropletLod.buildPath(shape, 0, level, sink);
+            assertEquals(expected[level], DropletLod.segmentCount(level));
+            assertEquals(expected[level], level == DropletLod.QUAD ? sink.quads : sink.cubics);
+        }
+    }
+    
+    @Test
+    public void circleIsMoreAccurateAtHigherLevels() throws Exception {
+        float r = 1000;
+        float[] shape = new DropletGeometry(r, 3 * r).shapeAt(0f, new float[DropletGeometry.SIZE]);
+        for (int level = 0; level < DropletLod.LEVEL_COUNT; level++) {
+            SamplingSink sink = new SamplingSink();
+            DropletLod.buildPath(shape, 0, level, sink);
+            float error = 0;
+            for (int i = 0; i < sink.count; i++) {
+                float dx = sink.points[2 * i] - r;
+                float dy = sink.points[2 * i + 1];
+                error = Math.max(error, Math.abs((float) Math.sqrt(dx * dx + dy * dy) - r));
+            }
+            assertTrue("level " + level + " error " + error, error <= DropletLod.errorFactor(level) * r + 0.01f);
+        }
+    }
+    
+    @Test
+    public void everyStageStaysConsistentAcrossLevels() throws Exception {
+        float r = 100;
+        DropletGeometry geometry = new DropletGeometry(r, 3 * r);
+        float[] shape = new float[DropletGeometry.SIZE];
+        float[] progresses = {0f, 0.1f, 0.25f, 0.4f, 0.6f, 0.75f, 0.9f, 1f, -0.3f, -0.8f};
+        for (float progress : progresses) {
+            geometry.shapeAt(progress, progress == 1f ? 20f : 0f, shape, 0);
+            SamplingSink reference = new SamplingSink();
+            DropletLod.buildPath(shape, 0, DropletLod.CUBIC_4, reference);
+            for (int level = 0; level < DropletLod.LEVEL_COUNT; level++) {
+                SamplingSink sink = new SamplingSink();
+                DropletLod.buildPath(shape, 0, level, sink);
+                //各层次都经过同样的4个数据点
+                for (int i = 0; i < 4; i++) {
+                    int p = i * SAMPLES * DropletLod.segmentCount(level) / 4;
+                    assertEquals(shape[2 * i], sink.points[2 * p], 1e-3f);
+                    assertEquals(shape[2 * i + 1], sink.points[2 * p + 1], 1e-3f);
+                }
+                //圆弧上参照本身也有逼近误差，再加上折线的弦高
+                float tolerance = (DropletLod.errorFactor(level) + DropletLod.errorFactor(DropletLod.CUBIC_4)) * r + 0.1f;
+                for (int i = 0; i < sink.count; i++) {
+                    float d = reference.distance(sink.points[2 * i], sink.points[2 * i + 1]);
+                    assertTrue("progress " + progress + " level " + level + " off by " + d, d <= tolerance);
+                }
+            }
+        }
+    }
+    
+    private static final int SWEEP_STEPS = 16;
+    
+    /**
+     * 按层次输出形状，每一小段均匀取点，求到参考形状的最大距离
+     */
+    private static double referenceError(float[] shape, int level) {
+        SamplingSink sink = new SamplingSink();
+        DropletLod.buildPath(shape, 0, level, sink);
+        int perArc = SAMPLES * DropletLod.segmentCount(level) / 4;
+        double[] frame = new double[14];
+        double error = 0;
+        for (int arc = 0; arc < 4; arc++) {
+            referenceFrame(shape, arc, frame);
+            for (int i = 0; i <= perArc; i += 4) {
+                int p = arc * perArc + i;
+                double t = i / (double) perArc;
+                error = Math.max(error, distanceToReference(frame, t, sink.points[2 * p], sink.points[2 * p + 1]));
+            }
+        }
+        return error;
+    }
+    
+    /**
+     * 参考形状的仿射框架：O、P3 - O、P0 - O，以及两个手柄减去圆弧手柄的差
+     */
+    private static void referenceFrame(float[] shape, int arc, double[] out) {
+        int d0 = DropletGeometry.DATA_OFFSET + 2 * arc;
+        int d1 = DropletGeometry.DATA_OFFSET + 2 * ((arc + 1) % 4);
+        int c = DropletGeometry.CTRL_OFFSET + 4 * arc;
+        double x0 = shape[d0];
+        double y0 = shape[d0 + 1];
+        double x3 = shape[d1];
+        double y3 = shape[d1 + 1];
+        double tx0 = shape[c] - x0;
+        double ty0 = shape[c + 1] - y0;
+        double tx1 = shape[c + 2] - x3;
+        double ty1 = shape[c + 3] - y3;
+        double s = ((x3 - x0) * ty1 - (y3 - y0) * tx1) / (tx0 * ty1 - ty0 * tx1);
+        double cornerX = x0 + s * tx0;
+        double cornerY = y0 + s * ty0;
+        double ox = x0 + x3 - cornerX;
+        double oy = y0 + y3 - cornerY;
+        double ux = cornerX - x0;
+        double uy = cornerY - y0;
+        double vx = cornerX - x3;
+        double vy = cornerY - y3;
+        double c0 = DropletGeometry.C;
+        out[0] = ox;
+        out[1] = oy;
+        out[2] = ux;
+        out[3] = uy;
+        out[4] = vx;
+        out[5] = vy;
+        out[6] = shape[c] - (ox + c0 * ux + vx);
+        out[7] = shape[c + 1] - (oy + c0 * uy + vy);
+        out[8] = shape[c + 2] - (ox + ux + c0 * vx);
+        out[9] = shape[c + 3] - (oy + uy + c0 * vy);
+    }
+    
+    /**
+     * 参考形状在t处的点：单位四分之一圆的三阶曲线沿半径推到圆上，经仿射变换，再加上手柄差的三阶曲线
+     */
+    private static void reference(double[] frame, double t, double[] out) {
+        double c = DropletGeometry.C;
+        double mt = 1 - t;
+        double px = 3 * mt * mt * t * c + 3 * mt * t * t + t * t * t;
+        double py = mt * mt * mt + 3 * mt * mt * t + 3 * mt * t * t * c;
+        double length = Math.hypot(px, py);
+        double b1 = 3 * mt * mt * t;
+        double b2 = 3 * mt * t * t;
+        out[0] = frame[0] + (px * frame[2] + py * frame[4]) / length + b1 * frame[6] + b2 * frame[8];
+        out[1] = frame[1] + (px * frame[3] + py * frame[5]) / length + b1 * frame[7] + b2 * frame[9];
+    }
+    
+    /**
+     * 点到参考形状的距离：在参数t附近先粗扫再三分搜索
+     */
+    private static double distanceToReference(double[] frame, double t, double x, double y) {
+        double[] point = new double[2];
+        double lo = Math.max(0, t - 0.25);
+        double hi = Math.min(1, t + 0.25);
+        double bestT = t;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i <= 32; i++) {
+            double s = lo + (hi - lo) * i / 32;
+            reference(frame, s, point);
+            double d = Math.hypot(point[0] - x, point[1] - y);
+            if (d < best) {
+                best = d;
+                bestT = s;
+            }
+        }
+        double width = (hi - lo) / 32;
+        lo = Math.max(0, bestT - width);
+        hi = Math.min(1, bestT + width);
+        for (int i = 0; i < 50; i++) {
+            double m1 = lo + (hi - lo) / 3;
+            double m2 = hi - (hi - lo) / 3;
+            reference(frame, m1, point);
+            double d1 = Math.hypot(point[0] - x, point[1] - y);
+            reference(frame, m2, point);
+            double d2 = Math.hypot(point[0] - x, point[1] - y);
+            if (d1 < d2) {
+                hi = m2;
+            } else {
+                lo = m1;
+            }
+        }
+        reference(frame, (lo + hi) / 2, point);
+        return Math.min(best, Math.hypot(point[0] - x, point[1] - y));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistogramTest {
+    
+    @Test
+    public void recordsIntoBuckets() throws Exception {
+        Histogram histogram = new Histogram(10, 5);
+        histogram.record(0);
+        histogram.record(9);
+        histogram.record(10);
+        histogram.record(35);
+        //超出范围的记在最后一个桶
+        histogram.record(1000);
+        assertEquals(2, histogram.getBucket(0));
+        assertEquals(1, histogram.getBucket(1));
+        assertEquals(1, histogram.getBucket(3));
+        assertEquals(1, histogram.getBucket(4));
+        assertEquals(5, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1054 / 5.0, histogram.getMean(), 1e-9);
+    }
+    
+    @Test
+    public void percentileIsBucketUpperBound() throws Exception {
+        Histogram histogram = new Histogram(10, 100);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(50, histogram.getPercentile(0.5));
+        assertEquals(90, histogram.getPercentile(0.9));
+        //不超过最大值
+        assertEquals(99, histogram.getPercentile(1));
+        histogram.reset();
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetaballRendererTest {
+    private static final int BLUE = 0xff0000ff;
+    
+    @Test
+    public void singleBallIsCircle() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            int[] pixels = new int[256 * 256];
+            MetaballRenderer renderer = new MetaballRenderer(pool);
+            renderer.setTarget(pixels, 256, 256);
+            renderer.addBall(128f, 128f, 40f);
+            renderer.render(BLUE);
+            double area = 0;
+            for (int pixel : pixels) {
+                area += (pixel >>> 24) / 255.0;
+            }
+            assertEquals(Math.PI * 40 * 40, area, Math.PI * 40 * 40 * 0.005);
+            assertEquals(BLUE, pixels[128 * 256 + 128]);
+            assertEquals(0, pixels[128 * 256 + 128 + 42]);
+            //64个块里只有圆附近的需要逐像素计算
+            assertEquals(64, renderer.getRenderedTileCount() + renderer.getSkippedTileCount());
+            assertTrue(renderer.getSkippedTileCount() >= 40);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void closeBallsMerge() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            int[] pixels = new int[200 * 100];
+            MetaballRenderer renderer = new MetaballRenderer(pool);
+            renderer.setTarget(pixels, 200, 100);
+            //两个圆之间隔着8个像素，单独画的话中点是空的
+            renderer.addBall(66f, 50f, 30f);
+            renderer.addBall(134f, 50f, 30f);
+            renderer.render(BLUE);
+            assertEquals(BLUE, pixels[50 * 200 + 100]);
+            
+            renderer.clearBalls();
+            renderer.addBall(40f, 50f, 30f);
+            renderer.addBall(160f, 50f, 30f);
+            renderer.render(BLUE);
+            assertEquals(0, pixels[50 * 200 + 100]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void parallelResultMatchesSequential() throws Exception {
+        int[] expected = render(1);
+        for (int parallelism : new int[]{2, 4, 8}) {
+            assertArrayEquals(expected, render(parallelism));
+        }
+    }
+    
+    private static int[] render(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int[] pixels = new int[300 * 200];
+            //旧内容要被完全覆盖
+            Arrays.fill(pixels, 0xffff0000);
+            MetaballRenderer renderer = new MetaballRenderer(pool);
+            renderer.setTarget(pixels, 300, 200);
+            renderer.addBall(80f, 100f, 35f);
+            renderer.addBall(140f, 90f, 25f);
+            renderer.addBall(230f, 120f, 45f);
+            renderer.render(BLUE);
+            return pixels;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MorphCompilerTest {
+    
+    @Test
+    public void formatAndParseRoundTrip() throws Exception {
+        MorphKeyframes morph = MorphKeyframesTest.fromGeometry(1f, 3f, MorphKeyframes.EASE_OUT);
+        MorphKeyframes parsed = MorphCompiler.parse(new StringReader(MorphCompiler.format(morph)));
+        assertEquals(morph.getKeyframeCount(), parsed.getKeyframeCount());
+        assertEquals(3f, parsed.getDistance(), 0f);
+        assertArrayEquals(morph.getValues(), parsed.getValues(), 0f);
+        assertEquals(MorphKeyframes.EASE_OUT, parsed.getEasing(0));
+    }
+    
+    @Test
+    public void reportsLineOfSyntaxError() throws Exception {
+        StringBuilder text = new StringBuilder("# comment\ndistance 3\nkeyframe 0 bouncy");
+        for (int i = 0; i < DropletGeometry.SIZE; i++) {
+            text.append(" 0");
+        }
+        try {
+            MorphCompiler.parse(new StringReader(text.toString()));
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("line 3: unknown easing bouncy"));
+        }
+    }
+}
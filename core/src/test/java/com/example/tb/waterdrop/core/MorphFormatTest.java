@@ -0,0 +1,76 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MorphFormatTest {
+    
+    @Test
+    public void roundTripsInRadiusUnits() throws Exception {
+        MorphKeyframes morph = MorphKeyframesTest.fromGeometry(50f, 150f, MorphKeyframes.EASE_IN_OUT);
+        byte[] bytes = write(morph);
+        assertEquals(MorphFormat.byteSize(morph.getKeyframeCount()), bytes.length);
+        MorphKeyframes read = MorphFormat.read(ByteBuffer.wrap(bytes));
+        assertEquals(1f, read.getRadius(), 0f);
+        assertEquals(3f, read.getDistance(), 0f);
+        MorphKeyframes scaled = read.scale(50f);
+        assertArrayEquals(morph.getValues(), scaled.getValues(), 1e-4f);
+        for (int i = 0; i < morph.getKeyframeCount(); i++) {
+            assertEquals(morph.getTime(i), read.getTime(i), 0f);
+        }
+        for (int i = 0; i < morph.getKeyframeCount() - 1; i++) {
+            assertEquals(MorphKeyframes.EASE_IN_OUT, read.getEasing(i));
+        }
+    }
+    
+    @Test
+    public void readsFromCurrentPositionOfDirectBuffer() throws Exception {
+        byte[] bytes = write(MorphKeyframesTest.fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR));
+        //内存映射的资源是直接缓冲区，文件也不一定从0开始
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 3);
+        buffer.position(3);
+        buffer.put(bytes);
+        buffer.position(3);
+        MorphKeyframes read = MorphFormat.read(buffer);
+        assertEquals(bytes.length + 3, buffer.position());
+        assertEquals(6, read.getKeyframeCount());
+    }
+    
+    @Test
+    public void rejectsBadFiles() throws Exception {
+        byte[] bytes = write(MorphKeyframesTest.fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR));
+        byte[] badMagic = bytes.clone();
+        badMagic[0] = 'X';
+        expectIOException(badMagic);
+        byte[] badVersion = bytes.clone();
+        badVersion[5] = 2;
+        expectIOException(badVersion);
+        expectIOException(Arrays.copyOf(bytes, bytes.length - 1));
+        byte[] badEasing = bytes.clone();
+        badEasing[bytes.length - 1] = 9;
+        expectIOException(badEasing);
+    }
+    
+    private static byte[] write(MorphKeyframes morph) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MorphFormat.write(morph, out);
+        return out.toByteArray();
+    }
+    
+    private static void expectIOException(byte[] bytes) {
+        try {
+            MorphFormat.read(ByteBuffer.wrap(bytes));
+            fail("expected IOException");
+        } catch (IOException expected) {
+            //预期的异常
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MorphKeyframesTest {
+    private static final float EPS = 1e-3f;
+    
+    /**
+     * 从几何内核取关键帧，所有区间用同一种缓动
+     */
+    static MorphKeyframes fromGeometry(float radius, float distance, int easing) {
+        DropletKeyframes keyframes = DropletKeyframes.sample(new DropletGeometry(radius, distance));
+        float[] times = new float[keyframes.getKeyframeCount()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = keyframes.getTime(i);
+        }
+        byte[] easings = new byte[times.length - 1];
+        Arrays.fill(easings, (byte) easing);
+        return new MorphKeyframes(radius, distance, times, keyframes.getValues().clone(), easings);
+    }
+    
+    @Test
+    public void linearScaledMorphMatchesKernel() throws Exception {
+        MorphKeyframes unit = fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR);
+        MorphKeyframes morph = unit.scale(50f);
+        assertEquals(150f, morph.getDistance(), 0f);
+        DropletGeometry geometry = new DropletGeometry(50f, 150f);
+        float[] expected = new float[DropletGeometry.SIZE];
+        float[] actual = new float[DropletGeometry.SIZE];
+        for (int i = -100; i <= 100; i++) {
+            float progress = i / 100f;
+            geometry.shapeAt(progress, 0f, expected, 0);
+            morph.shapeAt(progress, 0f, actual, 0);
+            for (int j = 0; j < DropletGeometry.SIZE; j++) {
+                assertEquals("progress " + progress + " index " + j, expected[j], actual[j], EPS);
+            }
+        }
+    }
+    
+    @Test
+    public void easingKeepsKeyframesAndBendsInBetween() throws Exception {
+        MorphKeyframes linear = fromGeometry(1f, 3f, MorphKeyframes.EASE_LINEAR);
+        MorphKeyframes easeIn = fromGeometry(1f, 3f, MorphKeyframes.EASE_IN);
+        float[] a = new float[DropletGeometry.SIZE];
+        float[] b = new float[DropletGeometry.SIZE];
+        //关键帧上完全一致
+        for (int k = 0; k < linear.getKeyframeCount(); k++) {
+            linear.shapeAt(linear.getTime(k), 0f, a, 0);
+            easeIn.shapeAt(linear.getTime(k), 0f, b, 0);
+            for (int j = 0; j < DropletGeometry.SIZE; j++) {
+                assertEquals(a[j], b[j], 1e-5f);
+            }
+        }
+        //第一个区间的中点：最右边的数据点缓入时只走了四分之一
+        float mid = linear.getTime(1) / 2;
+        linear.shapeAt(mid, 0f, a, 0);
+        easeIn.shapeAt(mid, 0f, b, 0);
+        int rightX = DropletGeometry.DATA_OFFSET + 2;
+        assertEquals(2.5f, a[rightX], 1e-5f);
+        assertEquals(2.25f, b[rightX], 1e-5f);
+        assertTrue(easeIn.getEasing(0) == MorphKeyframes.EASE_IN);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWrongEasingCount() throws Exception {
+        new MorphKeyframes(1f, 3f, new float[]{0f, 1f}, new float[2 * DropletGeometry.SIZE], new byte[2]);
+    }
+}
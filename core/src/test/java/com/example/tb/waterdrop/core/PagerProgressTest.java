@@ -0,0 +1,60 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PagerProgressTest {
+    
+    @Test
+    public void progressFollowsAbsolutePositionInBothDirections() throws Exception {
+        PagerProgress progress = new PagerProgress();
+        progress.setAnchor(2);
+        assertFalse(progress.setPosition(2.3f));
+        assertEquals(0.3f, progress.getProgress(), 1e-6f);
+        //往回拖过停靠页，进度变为负数，方向跟着反转
+        assertFalse(progress.setPosition(1.6f));
+        assertEquals(-0.4f, progress.getProgress(), 1e-6f);
+        assertEquals(2, progress.getAnchor());
+    }
+    
+    @Test
+    public void reachingNeighbourEndsHopWithoutReanchoring() throws Exception {
+        PagerProgress progress = new PagerProgress();
+        assertFalse(progress.setPosition(1f));
+        assertEquals(1f, progress.getProgress(), 0f);
+        assertEquals(0, progress.getAnchor());
+        assertTrue(progress.settle(1f));
+        assertEquals(1, progress.getAnchor());
+        assertEquals(0f, progress.getProgress(), 0f);
+    }
+    
+    @Test
+    public void multiPageSettleStartsNewHops() throws Exception {
+        PagerProgress progress = new PagerProgress();
+        assertFalse(progress.setPosition(0.8f));
+        assertTrue(progress.setPosition(1.25f));
+        assertEquals(1, progress.getAnchor());
+        assertEquals(0.25f, progress.getProgress(), 1e-6f);
+        //一次回调跳过好几页，只按最后的位置计算
+        assertTrue(progress.setPosition(3.5f));
+        assertEquals(3, progress.getAnchor());
+        assertEquals(0.5f, progress.getProgress(), 1e-6f);
+        assertTrue(progress.setPosition(1.75f));
+        assertEquals(2, progress.getAnchor());
+        assertEquals(-0.25f, progress.getProgress(), 1e-6f);
+    }
+    
+    @Test
+    public void noDriftFromRepeatedCallbacks() throws Exception {
+        PagerProgress progress = new PagerProgress();
+        for (int i = 0; i < 1000; i++) {
+            progress.setPosition(0.5f);
+            progress.setPosition(0.25f);
+        }
+        assertEquals(0.25f, progress.getProgress(), 0f);
+        assertEquals(0, progress.getAnchor());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PathDataSinkTest {
+    
+    @Test
+    public void formatsWithFourDecimals() {
+        assertEquals("1", PathDataSink.format(1f));
+        assertEquals("0.5", PathDataSink.format(0.5f));
+        assertEquals("1.5523", PathDataSink.format(1.55228f));
+        assertEquals("-2.25", PathDataSink.format(-2.25f));
+        //很小的负数不能写成-0
+        assertEquals("0", PathDataSink.format(-0.00001f));
+    }
+    
+    @Test
+    public void writesAbsoluteCommandsWithOffset() {
+        PathDataSink sink = new PathDataSink(0f, 1f);
+        sink.moveTo(0f, 1f);
+        sink.lineTo(1f, 0f);
+        sink.quadTo(2f, 0f, 2f, -1f);
+        sink.cubicTo(1f, -1f, 0.5f, -0.5f, 0f, 1f);
+        sink.close();
+        assertEquals("M 0,2 L 1,1 Q 2,1 2,0 C 1,0 0.5,0.5 0,2 Z", sink.toString());
+        sink.reset();
+        sink.moveTo(0f, 0f);
+        assertEquals("M 0,1", sink.toString());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PointGridIndexTest {
+    
+    @Test
+    public void findsNearestWithinDistance() throws Exception {
+        PointGridIndex index = new PointGridIndex(40);
+        int a = index.add(0, 0);
+        int b = index.add(100, 0);
+        int c = index.add(100, 100);
+        assertEquals(a, index.nearest(10, 10, 50));
+        assertEquals(b, index.nearest(90, 10, 50));
+        assertEquals(c, index.nearest(120, 120, 50));
+        //范围内没有点
+        assertEquals(-1, index.nearest(50, 50, 20));
+    }
+    
+    @Test
+    public void movedPointIsFoundAtNewPosition() throws Exception {
+        PointGridIndex index = new PointGridIndex(40);
+        int a = index.add(0, 0);
+        index.add(500, 500);
+        index.move(a, 1000, -300);
+        assertEquals(-1, index.nearest(0, 0, 50));
+        assertEquals(a, index.nearest(1010, -310, 50));
+        assertEquals(1000, index.getX(a), 0);
+        assertEquals(-300, index.getY(a), 0);
+    }
+    
+    @Test
+    public void matchesBruteForce() throws Exception {
+        Random random = new Random(7);
+        PointGridIndex index = new PointGridIndex(32);
+        int n = 5000;
+        float[] xs = new float[n];
+        float[] ys = new float[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = random.nextFloat() * 4000 - 2000;
+            ys[i] = random.nextFloat() * 4000 - 2000;
+            assertEquals(i, index.add(xs[i], ys[i]));
+        }
+        for (int round = 0; round < 2000; round++) {
+            //随机拖动一些点，再和逐个比较的结果对照
+            int id = random.nextInt(n);
+            xs[id] += random.nextFloat() * 200 - 100;
+            ys[id] += random.nextFloat() * 200 - 100;
+            index.move(id, xs[id], ys[id]);
+            float x = random.nextFloat() * 4000 - 2000;
+            float y = random.nextFloat() * 4000 - 2000;
+            float max = round % 10 == 0 ? 5000 : 48;
+            assertEquals(bruteForce(xs, ys, x, y, max), index.nearest(x, y, max));
+        }
+    }
+    
+    private static int bruteForce(float[] xs, float[] ys, float x, float y, float max) {
+        int best = -1;
+        float bestDistance = max * max;
+        for (int i = 0; i < xs.length; i++) {
+            float dx = xs[i] - x;
+            float dy = ys[i] - y;
+            float d = dx * dx + dy * dy;
+            if (d < bestDistance || (d == bestDistance && best == -1)) {
+                best = i;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScanlineRasterizerTest {
+    private static final int BLUE = 0xff0000ff;
+    
+    @Test
+    public void pixelAlignedRectIsSolid() throws Exception {
+        int[] pixels = new int[16 * 16];
+        ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+        rasterizer.setTarget(pixels, 16, 16);
+        rect(rasterizer, 4, 4, 12, 12, false);
+        rasterizer.fill(BLUE);
+        assertEquals(BLUE, pixels[8 * 16 + 8]);
+        assertEquals(BLUE, pixels[4 * 16 + 4]);
+        assertEquals(BLUE, pixels[11 * 16 + 11]);
+        assertEquals(0, pixels[3 * 16 + 8]);
+        assertEquals(0, pixels[8 * 16 + 12]);
+        assertEquals(64, countNonZero(pixels));
+    }
+    
+    @Test
+    public void halfCoveredPixelIsHalfTransparent() throws Exception {
+        int[] pixels = new int[8 * 8];
+        ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+        rasterizer.setTarget(pixels, 8, 8);
+        rect(rasterizer, 2.5f, 2, 6, 6, false);
+        rasterizer.fill(BLUE);
+        int alpha = pixels[3 * 8 + 2] >>> 24;
+        assertTrue("alpha " + alpha, Math.abs(alpha - 128) <= 1);
+        assertEquals(BLUE, pixels[3 * 8 + 3]);
+    }
+    
+    @Test
+    public void windingIsNonZero() throws Exception {
+        int[] pixels = new int[20 * 20];
+        ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+        rasterizer.setTarget(pixels, 20, 20);
+        //同向的两个矩形：重叠部分仍然填充
+        rect(rasterizer, 0, 0, 10, 10, false);
+        rect(rasterizer, 5, 5, 15, 15, false);
+        rasterizer.fill(BLUE);
+        assertEquals(BLUE, pixels[7 * 20 + 7]);
+        
+        //反向的内矩形：挖空
+        Arrays.fill(pixels, 0);
+        rasterizer.reset();
+        rect(rasterizer, 0, 0, 20, 20, false);
+        rect(rasterizer, 5, 5, 15, 15, true);
+        rasterizer.fill(BLUE);
+        assertEquals(0, pixels[10 * 20 + 10]);
+        assertEquals(BLUE, pixels[2 * 20 + 2]);
+    }
+    
+    @Test
+    public void dropletAreaMatchesCircle() throws Exception {
+        int size = 200;
+        int[] pixels = new int[size * size];
+        ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+        rasterizer.setTarget(pixels, size, size);
+        //折线是曲线的内接弦，面积偏小，容差取小一些
+        rasterizer.setTolerance(0.05f);
+        DropletGeometry geometry = new DropletGeometry(80f, 600f);
+        float[] shape = geometry.shapeAt(0f, new float[DropletGeometry.SIZE]);
+        for (int i = 0; i < DropletGeometry.SIZE; i += 2) {
+            shape[i] += 20f;
+            shape[i + 1] += 100f;
+        }
+        DropletGeometry.buildPath(shape, 0, rasterizer);
+        rasterizer.fill(BLUE);
+        double area = 0;
+        for (int pixel : pixels) {
+            area += (pixel >>> 24) / 255.0;
+        }
+        assertEquals(Math.PI * 80 * 80, area, Math.PI * 80 * 80 * 0.002);
+    }
+    
+    @Test
+    public void translucentColorBlendsOverDestination() throws Exception {
+        int[] pixels = new int[4 * 4];
+        Arrays.fill(pixels, 0xffffffff);
+        ScanlineRasterizer rasterizer = new ScanlineRasterizer();
+        rasterizer.setTarget(pixels, 4, 4);
+        rect(rasterizer, 0, 0, 4, 4, false);
+        rasterizer.fill(0x800000ff);
+        int pixel = pixels[5];
+        assertEquals(0xff, pixel >>> 24);
+        assertTrue(Math.abs(((pixel >> 16) & 0xff) - 127) <= 1);
+        assertEquals(0xff, pixel & 0xff);
+    }
+    
+    private static void rect(ScanlineRasterizer sink, float l, float t, float r, float b, boolean reverse) {
+        sink.moveTo(l, t);
+        if (reverse) {
+            sink.lineTo(l, b);
+            sink.lineTo(r, b);
+            sink.lineTo(r, t);
+        } else {
+            sink.lineTo(r, t);
+            sink.lineTo(r, b);
+            sink.lineTo(l, b);
+        }
+        sink.close();
+    }
+    
+    private static int countNonZero(int[] pixels) {
+        int count = 0;
+        for (int pixel : pixels) {
+            if (pixel != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SegmentedPathTest {
+    
+    /**
+     * 排成一条横向的波浪线，每段宽30
+     */
+    private static float[] wave(int segments) {
+        int count = 3 * segments + 1;
+        float[] points = new float[2 * count];
+        for (int i = 0; i < count; i++) {
+            int phase = i % 3;
+            points[2 * i] = i * 10f;
+            points[2 * i + 1] = phase == 0 ? 0 : (phase == 1 ? -20 : 20);
+        }
+        return points;
+    }
+    
+    @Test
+    public void moveReflattensOnlyNeighbours() throws Exception {
+        SegmentedPath path = new SegmentedPath(0.25f);
+        float[] points = wave(1000);
+        path.setPoints(points, 3001);
+        int flattened = path.getFlattenCount();
+        //控制点只影响一段
+        path.movePoint(1501, 5000, 100);
+        assertEquals(flattened + 1, path.getFlattenCount());
+        //数据点影响前后两段
+        path.movePoint(1500, 5000, 50);
+        assertEquals(flattened + 3, path.getFlattenCount());
+        //首尾的数据点只有一段
+        path.movePoint(0, -10, 0);
+        assertEquals(flattened + 4, path.getFlattenCount());
+        path.movePoint(3000, 30010, 0);
+        assertEquals(flattened + 5, path.getFlattenCount());
+    }
+    
+    @Test
+    public void boundsFollowEdits() throws Exception {
+        SegmentedPath path = new SegmentedPath(0.25f);
+        path.setPoints(wave(100), 301);
+        float[] bounds = path.getBounds(new float[4]);
+        assertEquals(0, bounds[0], 0);
+        assertEquals(3000, bounds[2], 0);
+        //包含控制点
+        assertEquals(-20, bounds[1], 0);
+        assertEquals(20, bounds[3], 0);
+        path.movePoint(150, 1500, 500);
+        path.getBounds(bounds);
+        assertEquals(500, bounds[3], 0);
+        //移回去，包围盒也恢复
+        path.movePoint(150, 1500, 0);
+        float[] after = path.getBounds(new float[4]);
+        SegmentedPath fresh = new SegmentedPath(0.25f);
+        fresh.setPoints(wave(100), 301);
+        assertArrayEquals(fresh.getBounds(new float[4]), after, 0);
+    }
+    
+    @Test
+    public void queryMatchesBruteForce() throws Exception {
+        Random random = new Random(3);
+        SegmentedPath path = new SegmentedPath(0.5f);
+        float[] points = wave(500);
+        path.setPoints(points, 1501);
+        for (int i = 0; i < 200; i++) {
+            int point = random.nextInt(1501);
+            path.movePoint(point, random.nextFloat() * 15000, random.nextFloat() * 400 - 200);
+        }
+        int[] out = new int[500];
+        float[] bounds = new float[4];
+        for (int round = 0; round < 100; round++) {
+            float left = random.nextFloat() * 15000;
+            float top = random.nextFloat() * 400 - 200;
+            float right = left + random.nextFloat() * 2000;
+            float bottom = top + random.nextFloat() * 100;
+            int count = path.query(left, top, right, bottom, out);
+            int expected = 0;
+            for (int s = 0; s < 500; s++) {
+                path.getSegmentBounds(s, bounds);
+                if (bounds[0] <= right && bounds[1] <= bottom && bounds[2] >= left && bounds[3] >= top) {
+                    assertEquals(s, out[expected++]);
+                }
+            }
+            assertEquals(expected, count);
+        }
+    }
+    
+    @Test
+    public void hitsNearestSegment() throws Exception {
+        SegmentedPath path = new SegmentedPath(0.25f);
+        path.setPoints(wave(100), 301);
+        //数据点在y = 0，第10段从x = 300到x = 330
+        assertEquals(10, path.hitSegment(315, 0, 5));
+        assertEquals(-1, path.hitSegment(315, 100, 5));
+        path.movePoint(31, 315, 200);
+        path.movePoint(32, 315, 200);
+        assertEquals(-1, path.hitSegment(315, 0, 5));
+        //三阶曲线在t = 0.5处是控制点的3/4
+        assertEquals(10, path.hitSegment(315, 150, 5));
+    }
+    
+    @Test
+    public void flattenedSegmentStaysWithinTolerance() throws Exception {
+        SegmentedPath path = new SegmentedPath(0.25f);
+        float[] points = {0, 0, 0, 100, 100, 100, 100, 0};
+        path.setPoints(points, 4);
+        float[] flat = path.getFlattened(0);
+        int n = path.getFlattenedCount(0);
+        assertEquals(0, flat[0], 0);
+        assertEquals(100, flat[2 * n - 2], 1e-3f);
+        assertEquals(0, flat[2 * n - 1], 1e-3f);
+        //控制点(0, 100)也在包围盒里
+        assertEquals(1, path.query(-1, 99, 1, 101, new int[1]));
+        assertEquals(0, path.query(101, 0, 200, 100, new int[1]));
+    }
+}
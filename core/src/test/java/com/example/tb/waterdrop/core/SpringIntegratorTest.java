@@ -0,0 +1,77 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpringIntegratorTest {
+    
+    @Test
+    public void settlesAtTargetAndStops() throws Exception {
+        SpringIntegrator spring = new SpringIntegrator();
+        spring.start(0f, 100f);
+        int frames = 0;
+        while (spring.advance(1f / 60f)) {
+            frames++;
+            assertTrue("spring never settled", frames < 600);
+        }
+        assertTrue(spring.isAtRest());
+        assertEquals(0f, spring.getPosition(), 0f);
+        assertEquals(0f, spring.getVelocity(), 0f);
+        //静止之后不再需要新帧
+        assertFalse(spring.advance(1f / 60f));
+    }
+    
+    @Test
+    public void sameMotionAtAnyFrameRate() throws Exception {
+        SpringIntegrator slow = new SpringIntegrator();
+        SpringIntegrator fast = new SpringIntegrator();
+        slow.start(0f, 100f);
+        fast.start(0f, 100f);
+        //30Hz的每一帧和120Hz的每四帧对应同一时刻
+        for (int frame = 0; frame < 15; frame++) {
+            slow.advance(1f / 30f);
+            for (int i = 0; i < 4; i++) {
+                fast.advance(1f / 120f);
+            }
+            assertEquals(slow.getPosition(), fast.getPosition(), 0.05f);
+        }
+    }
+    
+    @Test
+    public void energyDecreasesWithDamping() throws Exception {
+        SpringIntegrator spring = new SpringIntegrator();
+        spring.start(0f, 100f);
+        float energy = spring.getEnergy();
+        while (spring.advance(1f / 60f)) {
+            float next = spring.getEnergy();
+            assertTrue(next < energy);
+            energy = next;
+        }
+    }
+    
+    @Test
+    public void higherRestEnergyStopsSooner() throws Exception {
+        SpringIntegrator loose = new SpringIntegrator();
+        loose.setRestEnergy(50f);
+        SpringIntegrator strict = new SpringIntegrator();
+        loose.start(0f, 100f);
+        strict.start(0f, 100f);
+        int looseFrames = 0;
+        while (loose.advance(1f / 60f)) {
+            looseFrames++;
+        }
+        int strictFrames = 0;
+        while (strict.advance(1f / 60f)) {
+            strictFrames++;
+        }
+        assertTrue(looseFrames < strictFrames);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveStiffness() throws Exception {
+        new SpringIntegrator().setStiffness(0f);
+    }
+}
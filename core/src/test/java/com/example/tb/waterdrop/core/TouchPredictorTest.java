@@ -0,0 +1,54 @@
+package com.example.tb.waterdrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TouchPredictorTest {
+    private static final float EPS = 1e-3f;
+    
+    @Test
+    public void constantVelocityIsPredictedExactly() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.setHorizonMillis(16f);
+        for (int t = 0; t <= 40; t += 4) {
+            predictor.addSample(t, 2f * t);
+        }
+        assertEquals(2f * (40 + 16), predictor.predict(), EPS);
+        assertTrue(predictor.getErrorCount() > 0);
+        assertEquals(0f, predictor.getAverageError(), EPS);
+    }
+    
+    @Test
+    public void constantAccelerationIsPredictedExactly() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.setHorizonMillis(8f);
+        for (int t = 0; t <= 20; t += 4) {
+            predictor.addSample(t, 0.05f * t * t);
+        }
+        assertEquals(0.05f * 28 * 28, predictor.predict(), EPS);
+    }
+    
+    @Test
+    public void singleSampleReturnsItself() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.addSample(100, 42f);
+        assertEquals(42f, predictor.predict(), EPS);
+        predictor.reset();
+        assertEquals(0f, predictor.predict(), EPS);
+    }
+    
+    @Test
+    public void errorIsMeasuredAgainstInterpolatedSample() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.setHorizonMillis(10f);
+        predictor.addSample(0, 0f);
+        //预测20ms时位于20
+        predictor.addSample(10, 10f);
+        //手指停住，20ms时真实位置为10
+        predictor.addSample(30, 10f);
+        assertEquals(1, predictor.getErrorCount());
+        assertEquals(10f, predictor.getAverageError(), EPS);
+    }
+}